@@ -64,6 +64,48 @@ public interface IMEInventory<StackType extends IAEStack>
 	 */
 	StackType extractItems( StackType request, Actionable mode, BaseActionSource src );
 
+	/**
+	 * Store several stacks at once, monitors report the combined change to their listeners only once.
+	 *
+	 * @param input items to add.
+	 * @param type action type
+	 * @param src action source
+	 *
+	 * @return the items which could not be added, an empty list if everything was stored.
+	 */
+	default IItemList<StackType> injectItemsBulk( final Iterable<StackType> input, final Actionable type, final BaseActionSource src )
+	{
+		final IItemList<StackType> leftovers = this.getChannel().createList();
+
+		for( final StackType stack : input )
+		{
+			leftovers.add( this.injectItems( stack, type, src ) );
+		}
+
+		return leftovers;
+	}
+
+	/**
+	 * Extract several stacks at once, monitors report the combined change to their listeners only once.
+	 *
+	 * @param requests items to request ( with stack size. )
+	 * @param mode simulate, or perform action?
+	 * @param src action source
+	 *
+	 * @return the items extracted, an empty list if nothing was extracted.
+	 */
+	default IItemList<StackType> extractItemsBulk( final Iterable<StackType> requests, final Actionable mode, final BaseActionSource src )
+	{
+		final IItemList<StackType> extracted = this.getChannel().createList();
+
+		for( final StackType request : requests )
+		{
+			extracted.add( this.extractItems( request, mode, src ) );
+		}
+
+		return extracted;
+	}
+
 	/**
 	 * request a full report of all available items, storage.
 	 *
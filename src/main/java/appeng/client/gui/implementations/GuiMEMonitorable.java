@@ -32,7 +32,10 @@ import net.minecraft.item.ItemStack;
 
 import appeng.api.config.SearchBoxMode;
 import appeng.api.config.Settings;
+import appeng.api.config.SortDir;
+import appeng.api.config.SortOrder;
 import appeng.api.config.TerminalStyle;
+import appeng.api.config.ViewItems;
 import appeng.api.implementations.guiobjects.IPortableCell;
 import appeng.api.implementations.tiles.IMEChest;
 import appeng.api.implementations.tiles.IViewCellStorage;
@@ -58,6 +61,7 @@ import appeng.core.localization.GuiText;
 import appeng.core.sync.GuiBridge;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.sync.packets.PacketSwitchGuis;
+import appeng.core.sync.packets.PacketTerminalViewRequest;
 import appeng.core.sync.packets.PacketValueConfig;
 import appeng.helpers.WirelessTerminalGuiObject;
 import appeng.integration.Integrations;
@@ -95,6 +99,13 @@ public class GuiMEMonitorable extends AEBaseMEGui implements ISortSource, IConfi
 	private GuiImgButton SortDirBox;
 	private GuiImgButton searchBoxSettings;
 	private GuiImgButton terminalStyleBox;
+	// last window requested from the server, see ItemRepo#isViewport.
+	private String viewSearch;
+	private Enum viewSortBy;
+	private Enum viewSortDir;
+	private Enum viewMode;
+	private int viewOffset = -1;
+	private int viewCount;
 
 	public GuiMEMonitorable( final InventoryPlayer inventoryPlayer, final ITerminalHost te )
 	{
@@ -158,6 +169,41 @@ public class GuiMEMonitorable extends AEBaseMEGui implements ISortSource, IConfi
 		this.setScrollBar();
 	}
 
+	public void postViewport( final int total, final int offset, final List<IAEItemStack> list )
+	{
+		this.repo.setViewport( total, offset, list );
+		this.setScrollBar();
+	}
+
+	/**
+	 * Tells the server which rows are visible, the first request is sent even if it might not sync lazily.
+	 */
+	private void requestViewport()
+	{
+		if( !this.repo.isViewport() && this.viewOffset >= 0 )
+		{
+			return;
+		}
+
+		final String search = this.repo.getSearchString();
+		final int offset = this.getScrollBar().getCurrentScroll() * this.perRow;
+		final int count = this.rows * this.perRow;
+
+		if( search.equals( this.viewSearch ) && this.getSortBy() == this.viewSortBy && this.getSortDir() == this.viewSortDir && this.getSortDisplay() == this.viewMode && offset == this.viewOffset && count == this.viewCount )
+		{
+			return;
+		}
+
+		this.viewSearch = search;
+		this.viewSortBy = this.getSortBy();
+		this.viewSortDir = this.getSortDir();
+		this.viewMode = this.getSortDisplay();
+		this.viewOffset = offset;
+		this.viewCount = count;
+
+		NetworkHandler.instance().sendToServer( new PacketTerminalViewRequest( search, (SortOrder) this.viewSortBy, (SortDir) this.viewSortDir, (ViewItems) this.viewMode, offset, count ) );
+	}
+
 	private void setScrollBar()
 	{
 		this.getScrollBar().setTop( 18 ).setLeft( 175 ).setHeight( this.rows * 18 - 2 );
@@ -347,6 +393,8 @@ public class GuiMEMonitorable extends AEBaseMEGui implements ISortSource, IConfi
 
 		craftingGridOffsetX -= 25;
 		craftingGridOffsetY -= 6;
+
+		this.requestViewport();
 	}
 
 	@Override
@@ -494,6 +542,7 @@ public class GuiMEMonitorable extends AEBaseMEGui implements ISortSource, IConfi
 				this.repo.updateView();
 			}
 		}
+		this.requestViewport();
 		super.updateScreen();
 	}
 
@@ -21,7 +21,8 @@ package appeng.client.me;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.regex.Pattern;
+import java.util.Comparator;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 
@@ -30,6 +31,7 @@ import net.minecraft.item.ItemStack;
 import appeng.api.AEApi;
 import appeng.api.config.SearchBoxMode;
 import appeng.api.config.Settings;
+import appeng.api.config.SortDir;
 import appeng.api.config.SortOrder;
 import appeng.api.config.ViewItems;
 import appeng.api.config.YesNo;
@@ -41,7 +43,7 @@ import appeng.core.AEConfig;
 import appeng.integration.Integrations;
 import appeng.items.storage.ItemViewCell;
 import appeng.util.ItemSorters;
-import appeng.util.Platform;
+import appeng.util.item.AEItemStack;
 import appeng.util.prioritylist.IPartitionList;
 
 
@@ -49,8 +51,13 @@ public class ItemRepo
 {
 
 	private final IItemList<IAEItemStack> list = AEApi.instance().storage().createItemList();
+	// every item allowed by the view mode and view cells, kept sorted while updates come in.
+	private final ArrayList<IAEItemStack> sorted = new ArrayList<IAEItemStack>();
+	// the part of sorted matching the search.
 	private final ArrayList<IAEItemStack> view = new ArrayList<IAEItemStack>();
+	// display stacks for view, created once they are drawn.
 	private final ArrayList<ItemStack> dsp = new ArrayList<ItemStack>();
+	private final ItemSearchIndex index = new ItemSearchIndex();
 	private final IScrollSource src;
 	private final ISortSource sortSrc;
 
@@ -58,9 +65,23 @@ public class ItemRepo
 
 	private String searchString = "";
 	private IPartitionList<IAEItemStack> myPartitionList;
-	private String innerSearch = "";
 	private boolean hasPower;
 
+	// what sorted was built for, null once it has to be rebuilt.
+	private Comparator<IAEItemStack> order;
+	private Enum sortedBy;
+	private Enum sortedDir;
+	private Enum sortedMode;
+	private IPartitionList<IAEItemStack> sortedPartitionList;
+	// what view was filtered for, null once it has to be filtered again.
+	private String appliedSearch;
+	private boolean appliedToolTips;
+
+	// set once the server only sends the visible window of its view, see AEConfig#isLazyTerminalSync.
+	private boolean viewport;
+	private int viewportTotal;
+	private int viewportOffset;
+
 	public ItemRepo( final IScrollSource src, final ISortSource sortSrc )
 	{
 		this.src = src;
@@ -69,7 +90,12 @@ public class ItemRepo
 
 	public IAEItemStack getReferenceItem( int idx )
 	{
-		idx += this.src.getCurrentScroll() * this.rowSize;
+		idx += this.src.getCurrentScroll() * this.rowSize - this.viewportOffset;
+
+		if( idx < 0 )
+		{
+			return null;
+		}
 
 		if( idx >= this.view.size() )
 		{
@@ -80,13 +106,24 @@ public class ItemRepo
 
 	public ItemStack getItem( int idx )
 	{
-		idx += this.src.getCurrentScroll() * this.rowSize;
+		idx += this.src.getCurrentScroll() * this.rowSize - this.viewportOffset;
+
+		if( idx < 0 )
+		{
+			return ItemStack.EMPTY;
+		}
 
 		if( idx >= this.dsp.size() )
 		{
 			return ItemStack.EMPTY;
 		}
-		return this.dsp.get( idx );
+
+		ItemStack is = this.dsp.get( idx );
+		if( is == null )
+		{
+			this.dsp.set( idx, is = this.view.get( idx ).getDisplayItemStack() );
+		}
+		return is;
 	}
 
 	void setSearch( final String search )
@@ -94,21 +131,65 @@ public class ItemRepo
 		this.searchString = search == null ? "" : search;
 	}
 
+	/**
+	 * Moves the item to its new place in the current view, {@link #updateView()} only has to do anything if the
+	 * search or sorting changed.
+	 */
 	public void postUpdate( final IAEItemStack is )
 	{
+		if( this.order != null )
+		{
+			ItemSorters.setDirection( (SortDir) this.sortedDir );
+		}
+
 		final IAEItemStack st = this.list.findPrecise( is );
 
 		if( st != null )
 		{
+			this.hide( st );
 			st.reset();
 			st.add( is );
+
+			if( st.isMeaningful() )
+			{
+				this.show( st );
+			}
+			else
+			{
+				this.index.remove( st );
+			}
 		}
 		else
 		{
 			this.list.add( is );
+			this.show( this.list.findPrecise( is ) );
+		}
+	}
+
+	/**
+	 * Replaces the view with a window of the server's view, which already is filtered and sorted.
+	 */
+	public void setViewport( final int total, final int offset, final List<IAEItemStack> items )
+	{
+		this.viewport = true;
+		this.viewportTotal = total;
+		this.viewportOffset = offset;
+
+		this.view.clear();
+		this.dsp.clear();
+
+		for( final IAEItemStack is : items )
+		{
+			this.view.add( is );
+			this.dsp.add( null );
 		}
 	}
 
+	public boolean isViewport()
+	{
+		return this.viewport;
+	}
+
 	public void setViewCell( final ItemStack[] list )
 	{
 		this.myPartitionList = ItemViewCell.createFilter( list );
@@ -117,144 +198,225 @@ public class ItemRepo
 
 	public void updateView()
 	{
-		this.view.clear();
-		this.dsp.clear();
-
-		this.view.ensureCapacity( this.list.size() );
-		this.dsp.ensureCapacity( this.list.size() );
-
-		final Enum viewMode = this.sortSrc.getSortDisplay();
 		final Enum searchMode = AEConfig.instance().getConfigManager().getSetting( Settings.SEARCH_MODE );
 		if( searchMode == SearchBoxMode.JEI_AUTOSEARCH || searchMode == SearchBoxMode.JEI_MANUAL_SEARCH )
 		{
 			this.updateJEI( this.searchString );
 		}
 
-		this.innerSearch = this.searchString;
+		// the server filters and sorts, the gui asks it for a new window instead.
+		if( this.viewport )
+		{
+			return;
+		}
+
+		final Enum viewMode = this.sortSrc.getSortDisplay();
+		final Enum sortBy = this.sortSrc.getSortBy();
+		final Enum sortDir = this.sortSrc.getSortDir();
 		final boolean terminalSearchToolTips = AEConfig.instance().getConfigManager().getSetting( Settings.SEARCH_TOOLTIPS ) != YesNo.NO;
-		// boolean terminalSearchMods = Configuration.INSTANCE.settings.getSetting( Settings.SEARCH_MODS ) != YesNo.NO;
 
-		boolean searchMod = false;
-		if( this.innerSearch.startsWith( "@" ) )
+		ItemSorters.setDirection( (SortDir) sortDir );
+		ItemSorters.init();
+
+		if( this.order == null || sortBy != this.sortedBy || sortDir != this.sortedDir || viewMode != this.sortedMode || this.myPartitionList != this.sortedPartitionList )
 		{
-			searchMod = true;
-			this.innerSearch = this.innerSearch.substring( 1 );
+			this.sortedBy = sortBy;
+			this.sortedDir = sortDir;
+			this.sortedMode = viewMode;
+			this.sortedPartitionList = this.myPartitionList;
+			this.order = createOrder( sortBy );
+			this.appliedSearch = null;
+
+			this.sorted.clear();
+			for( final IAEItemStack is : this.list )
+			{
+				if( this.accepts( is ) )
+				{
+					this.sorted.add( this.project( is ) );
+				}
+			}
+
+			Collections.sort( this.sorted, this.order );
+			this.index.retain( this.list );
 		}
 
-		Pattern m = null;
-		try
+		if( this.searchString.equals( this.appliedSearch ) && terminalSearchToolTips == this.appliedToolTips )
 		{
-			m = Pattern.compile( this.innerSearch.toLowerCase(), Pattern.CASE_INSENSITIVE );
+			return;
 		}
-		catch( final Throwable ignore )
+
+		// while typing the previous matches are enough, and they already are in order.
+		final boolean narrows = this.index.setQuery( this.searchString, terminalSearchToolTips ) && this.appliedSearch != null;
+		final List<IAEItemStack> source = narrows ? new ArrayList<IAEItemStack>( this.view ) : this.sorted;
+
+		this.appliedSearch = this.searchString;
+		this.appliedToolTips = terminalSearchToolTips;
+
+		this.view.clear();
+		this.dsp.clear();
+
+		for( final IAEItemStack is : source )
 		{
-			try
-			{
-				m = Pattern.compile( Pattern.quote( this.innerSearch.toLowerCase() ), Pattern.CASE_INSENSITIVE );
-			}
-			catch( final Throwable __ )
+			if( this.index.matches( is ) )
 			{
-				return;
+				this.view.add( is );
+				this.dsp.add( null );
 			}
 		}
+	}
+
+	private void updateJEI( String filter )
+	{
+		Integrations.jei().setSearchText( filter );
+	}
 
-		boolean notDone = false;
-		for( IAEItemStack is : this.list )
+	private boolean accepts( final IAEItemStack is )
+	{
+		if( !is.isMeaningful() )
 		{
-			if( this.myPartitionList != null )
-			{
-				if( !this.myPartitionList.isListed( is ) )
-				{
-					continue;
-				}
-			}
+			return false;
+		}
 
-			if( viewMode == ViewItems.CRAFTABLE && !is.isCraftable() )
-			{
-				continue;
-			}
+		if( this.myPartitionList != null && !this.myPartitionList.isListed( is ) )
+		{
+			return false;
+		}
+
+		if( this.sortedMode == ViewItems.CRAFTABLE && !is.isCraftable() )
+		{
+			return false;
+		}
+
+		return this.sortedMode != ViewItems.STORED || is.getStackSize() != 0;
+	}
+
+	private IAEItemStack project( final IAEItemStack is )
+	{
+		if( this.sortedMode == ViewItems.CRAFTABLE )
+		{
+			final IAEItemStack copy = is.copy();
+			copy.setStackSize( 0 );
+			return copy;
+		}
+
+		return is;
+	}
+
+	private void show( final IAEItemStack st )
+	{
+		if( this.order == null || !this.accepts( st ) )
+		{
+			return;
+		}
+
+		final IAEItemStack is = this.project( st );
+		this.sorted.add( this.lowerBound( this.sorted, is ), is );
+
+		if( this.appliedSearch != null && this.index.matches( is ) )
+		{
+			final int idx = this.lowerBound( this.view, is );
+			this.view.add( idx, is );
+			this.dsp.add( idx, null );
+		}
+	}
+
+	/**
+	 * Has to be called before the amounts of the item change, they are part of its place in the sorted lists.
+	 */
+	private void hide( final IAEItemStack st )
+	{
+		if( this.order == null )
+		{
+			return;
+		}
+
+		final IAEItemStack is = this.project( st );
+		final int pos = this.indexOf( this.sorted, is );
 
-			if( viewMode == ViewItems.CRAFTABLE )
+		if( pos >= 0 )
+		{
+			this.sorted.remove( pos );
+
+			final int idx = this.indexOf( this.view, is );
+			if( idx >= 0 )
 			{
-				is = is.copy();
-				is.setStackSize( 0 );
+				this.view.remove( idx );
+				this.dsp.remove( idx );
 			}
+		}
+	}
 
-			if( viewMode == ViewItems.STORED && is.getStackSize() == 0 )
+	private int indexOf( final List<IAEItemStack> list, final IAEItemStack is )
+	{
+		for( int x = this.lowerBound( list, is ); x < list.size() && this.order.compare( list.get( x ), is ) == 0; x++ )
+		{
+			if( list.get( x ).equals( is ) )
 			{
-				continue;
+				return x;
 			}
+		}
+
+		return -1;
+	}
+
+	private int lowerBound( final List<IAEItemStack> list, final IAEItemStack is )
+	{
+		int lo = 0;
+		int hi = list.size();
 
-			final String dspName = searchMod ? Platform.getModId( is ) : Platform.getItemDisplayName( is );
-			notDone = true;
+		while( lo < hi )
+		{
+			final int mid = ( lo + hi ) >>> 1;
 
-			if( m.matcher( dspName.toLowerCase() ).find() )
+			if( this.order.compare( list.get( mid ), is ) < 0 )
 			{
-				this.view.add( is );
-				notDone = false;
+				lo = mid + 1;
 			}
-
-			if( terminalSearchToolTips && notDone )
+			else
 			{
-				for( final Object lp : Platform.getTooltip( is ) )
-				{
-					if( lp instanceof String && m.matcher( (CharSequence) lp ).find() )
-					{
-						this.view.add( is );
-						notDone = false;
-						break;
-					}
-				}
+				hi = mid;
 			}
-
-			/*
-			 * if ( terminalSearchMods && notDone ) { if ( m.matcher( Platform.getMod( is.getItemStack() ) ).find() ) {
-			 * view.add( is ); notDone = false; } }
-			 */
 		}
 
-		final Enum SortBy = this.sortSrc.getSortBy();
-		final Enum SortDir = this.sortSrc.getSortDir();
+		return lo;
+	}
 
-		ItemSorters.setDirection( (appeng.api.config.SortDir) SortDir );
-		ItemSorters.init();
+	/**
+	 * The sorters of {@link ItemSorters} with a tie breaker, so every item has exactly one place.
+	 */
+	private static Comparator<IAEItemStack> createOrder( final Enum sortBy )
+	{
+		final Comparator<IAEItemStack> order;
 
-		if( SortBy == SortOrder.MOD )
+		if( sortBy == SortOrder.MOD )
 		{
-			Collections.sort( this.view, ItemSorters.CONFIG_BASED_SORT_BY_MOD );
+			order = ItemSorters.CONFIG_BASED_SORT_BY_MOD;
 		}
-		else if( SortBy == SortOrder.AMOUNT )
+		else if( sortBy == SortOrder.AMOUNT )
 		{
-			Collections.sort( this.view, ItemSorters.CONFIG_BASED_SORT_BY_SIZE );
+			order = ItemSorters.CONFIG_BASED_SORT_BY_SIZE;
 		}
-		else if( SortBy == SortOrder.INVTWEAKS )
+		else if( sortBy == SortOrder.INVTWEAKS )
 		{
-			Collections.sort( this.view, ItemSorters.CONFIG_BASED_SORT_BY_INV_TWEAKS );
+			order = ItemSorters.CONFIG_BASED_SORT_BY_INV_TWEAKS;
 		}
 		else
 		{
-			Collections.sort( this.view, ItemSorters.CONFIG_BASED_SORT_BY_NAME );
+			order = ItemSorters.CONFIG_BASED_SORT_BY_NAME;
 		}
 
-		for( final IAEItemStack is : this.view )
-		{
-			this.dsp.add( is.getDisplayItemStack() );
-		}
-	}
-
-	private void updateJEI( String filter )
-	{
-		Integrations.jei().setSearchText( filter );
+		return order.thenComparing( ( a, b ) -> ( (AEItemStack) a ).compareTo( (AEItemStack) b ) );
 	}
 
 	public int size()
 	{
-		return this.view.size();
+		return this.viewport ? this.viewportTotal : this.view.size();
 	}
 
 	public void clear()
 	{
 		this.list.resetStatus();
+		this.order = null;
 	}
 
 	public boolean hasPower()
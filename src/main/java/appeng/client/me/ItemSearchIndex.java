@@ -0,0 +1,191 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.client.me;
+
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.Platform;
+
+
+/**
+ * Lowercased names, mod ids and tooltips of the items a terminal knows, built once per item type instead of on every
+ * keystroke.
+ *
+ * Plain text is matched with {@link String#contains(CharSequence)}, anything that looks like a regular expression is
+ * still compiled.
+ */
+class ItemSearchIndex
+{
+
+	private static final Pattern REGEX_CHARS = Pattern.compile( "[\\\\^$.|?*+()\\[\\]{}]" );
+
+	private final Map<IAEItemStack, SearchText> entries = new HashMap<IAEItemStack, SearchText>();
+
+	private String query;
+	private boolean searchMod;
+	private boolean searchTooltips;
+	// null for plain text.
+	private Pattern pattern;
+
+	/**
+	 * @return true if only items matching the previous query can match the new one.
+	 */
+	boolean setQuery( final String search, final boolean tooltips )
+	{
+		String q = search;
+		final boolean mod = q.startsWith( "@" );
+		if( mod )
+		{
+			q = q.substring( 1 );
+		}
+
+		q = q.toLowerCase();
+
+		Pattern p = null;
+		if( REGEX_CHARS.matcher( q ).find() )
+		{
+			try
+			{
+				p = Pattern.compile( q, Pattern.CASE_INSENSITIVE );
+			}
+			catch( final Throwable ignore )
+			{
+				// matched as plain text, the same as a quoted pattern.
+			}
+		}
+
+		final boolean samePlainSearch = this.query != null && this.pattern == null && p == null && mod == this.searchMod && tooltips == this.searchTooltips;
+		final boolean narrows = samePlainSearch && q.contains( this.query );
+
+		this.query = q;
+		this.pattern = p;
+		this.searchMod = mod;
+		this.searchTooltips = tooltips;
+
+		return narrows;
+	}
+
+	boolean matches( final IAEItemStack is )
+	{
+		final SearchText text = this.getText( is );
+
+		if( this.find( this.searchMod ? text.modId : text.name ) )
+		{
+			return true;
+		}
+
+		if( this.searchTooltips )
+		{
+			for( final String line : text.getTooltip( is ) )
+			{
+				if( this.find( line ) )
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	void remove( final IAEItemStack is )
+	{
+		this.entries.remove( is );
+	}
+
+	/**
+	 * Drops items which are no longer part of the list, once there are noticeably more of them than items left.
+	 */
+	void retain( final IItemList<IAEItemStack> list )
+	{
+		if( this.entries.size() <= list.size() * 2 )
+		{
+			return;
+		}
+
+		final Iterator<IAEItemStack> i = this.entries.keySet().iterator();
+		while( i.hasNext() )
+		{
+			final IAEItemStack is = list.findPrecise( i.next() );
+
+			if( is == null || !is.isMeaningful() )
+			{
+				i.remove();
+			}
+		}
+	}
+
+	private boolean find( final String text )
+	{
+		return this.pattern == null ? text.contains( this.query ) : this.pattern.matcher( text ).find();
+	}
+
+	private SearchText getText( final IAEItemStack is )
+	{
+		SearchText text = this.entries.get( is );
+
+		if( text == null )
+		{
+			this.entries.put( is, text = new SearchText( Platform.getItemDisplayName( is ).toLowerCase(), Platform.getModId( is ).toLowerCase() ) );
+		}
+
+		return text;
+	}
+
+	private static final class SearchText
+	{
+
+		private final String name;
+		private final String modId;
+		// only looked up once a search actually gets to it.
+		private String[] tooltip;
+
+		private SearchText( final String name, final String modId )
+		{
+			this.name = name;
+			this.modId = modId;
+		}
+
+		private String[] getTooltip( final IAEItemStack is )
+		{
+			if( this.tooltip == null )
+			{
+				final List<?> lines = Platform.getTooltip( is );
+				final String[] lower = new String[lines.size()];
+				int x = 0;
+
+				for( final Object line : lines )
+				{
+					lower[x++] = line instanceof String ? ( (String) line ).toLowerCase() : "";
+				}
+
+				this.tooltip = lower;
+			}
+
+			return this.tooltip;
+		}
+	}
+}
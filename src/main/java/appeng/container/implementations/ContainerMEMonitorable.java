@@ -21,6 +21,9 @@ package appeng.container.implementations;
 
 import java.io.IOException;
 import java.nio.BufferOverflowException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
@@ -61,22 +64,30 @@ import appeng.api.util.IConfigurableObject;
 import appeng.container.AEBaseContainer;
 import appeng.container.guisync.GuiSync;
 import appeng.container.slot.SlotRestrictedInput;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.sync.packets.PacketMEInventoryUpdate;
 import appeng.core.sync.packets.PacketValueConfig;
+import appeng.items.storage.ItemViewCell;
+import appeng.me.cache.NetworkMonitor;
+import appeng.me.cache.helpers.TerminalUpdateBroadcaster;
 import appeng.me.helpers.ChannelPowerSrc;
 import appeng.util.ConfigManager;
 import appeng.util.IConfigManagerHost;
 import appeng.util.Platform;
+import appeng.util.item.ItemPacketDictionary;
 
 
 public class ContainerMEMonitorable extends AEBaseContainer implements IConfigManagerHost, IConfigurableObject, IMEMonitorHandlerReceiver<IAEItemStack>
 {
 
+	public static final int MAX_VIEWPORT_SIZE = 4096;
+
 	private final SlotRestrictedInput[] cellView = new SlotRestrictedInput[5];
 	private final IMEMonitor<IAEItemStack> monitor;
 	private final IItemList<IAEItemStack> items = AEApi.instance().storage().createItemList();
+	private final Map<IContainerListener, ItemPacketDictionary> dictionaries = new HashMap<IContainerListener, ItemPacketDictionary>();
 	private final IConfigManager clientCM;
 	private final ITerminalHost host;
 	@GuiSync( 99 )
@@ -86,6 +97,13 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 	private IConfigManagerHost gui;
 	private IConfigManager serverCM;
 	private IGridNode networkNode;
+	// shared by all terminals on the same grid, null for anything else.
+	private TerminalUpdateBroadcaster broadcaster;
+	// only the rows the client shows are sent, see AEConfig#isLazyTerminalSync.
+	private boolean lazySync;
+	// null until the client told which part it shows.
+	private TerminalViewport viewport;
+	private ItemStack[] viewportCells;
 
 	public ContainerMEMonitorable( final InventoryPlayer ip, final ITerminalHost monitorable )
 	{
@@ -110,7 +128,17 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 			this.monitor = monitorable.getItemInventory();
 			if( this.monitor != null )
 			{
-				this.monitor.addListener( this, null );
+				this.lazySync = AEConfig.instance().isLazyTerminalSync();
+
+				if( this.monitor instanceof NetworkMonitor && !this.lazySync )
+				{
+					this.broadcaster = ( (NetworkMonitor<?>) this.monitor ).getTerminalBroadcaster();
+				}
+
+				if( this.broadcaster == null )
+				{
+					this.monitor.addListener( this, null );
+				}
 
 				this.setCellInventory( this.monitor );
 
@@ -203,40 +231,49 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 				}
 			}
 
-			if( !this.items.isEmpty() )
+			if( this.broadcaster != null )
+			{
+				this.broadcaster.flush();
+			}
+			else if( this.lazySync )
+			{
+				this.updateViewport();
+			}
+			else if( !this.items.isEmpty() )
 			{
 				try
 				{
 					final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
 
-					final PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate();
-
-					for( final IAEItemStack is : this.items )
+					// each player has its own dictionary, so the packets are built per listener.
+					for( final IContainerListener c : this.listeners )
 					{
-						final IAEItemStack send = monitorCache.findPrecise( is );
-						if( send == null )
-						{
-							is.setStackSize( 0 );
-							piu.appendItem( is );
-						}
-						else
+						if( c instanceof EntityPlayer )
 						{
-							piu.appendItem( send );
-						}
-					}
+							final PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate( this.getDictionary( c ) );
 
-					if( !piu.isEmpty() )
-					{
-						this.items.resetStatus();
+							for( final IAEItemStack is : this.items )
+							{
+								final IAEItemStack send = monitorCache.findPrecise( is );
+								if( send == null )
+								{
+									is.setStackSize( 0 );
+									piu.appendItem( is );
+								}
+								else
+								{
+									piu.appendItem( send );
+								}
+							}
 
-						for( final Object c : this.listeners )
-						{
-							if( c instanceof EntityPlayer )
+							if( !piu.isEmpty() )
 							{
 								NetworkHandler.instance().sendTo( piu, (EntityPlayerMP) c );
 							}
 						}
 					}
+
+					this.items.resetStatus();
 				}
 				catch( final IOException e )
 				{
@@ -264,6 +301,89 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 
 	}
 
+	private void updateViewport()
+	{
+		if( this.viewport == null )
+		{
+			this.items.resetStatus();
+			return;
+		}
+
+		final boolean reconfigured = this.viewport.applyRequest();
+		final ItemStack[] cells = this.getViewCells();
+		if( !Arrays.equals( cells, this.viewportCells ) )
+		{
+			this.viewportCells = cells;
+			this.viewport.setViewCells( ItemViewCell.createFilter( cells ) );
+			this.viewport.rebuild( this.monitor.getStorageList() );
+		}
+		else if( reconfigured )
+		{
+			this.viewport.rebuild( this.monitor.getStorageList() );
+		}
+		else
+		{
+			final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
+
+			for( final IAEItemStack is : this.items )
+			{
+				this.viewport.update( is, monitorCache.findPrecise( is ) );
+			}
+		}
+
+		this.items.resetStatus();
+
+		if( !this.viewport.isChanged() )
+		{
+			return;
+		}
+
+		try
+		{
+			for( final IContainerListener c : this.listeners )
+			{
+				if( c instanceof EntityPlayerMP )
+				{
+					final PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate( this.getDictionary( c ), this.viewport.size(), this.viewport.getOffset() );
+
+					for( final IAEItemStack is : this.viewport.getWindow() )
+					{
+						piu.appendItem( is );
+					}
+
+					NetworkHandler.instance().sendTo( piu, (EntityPlayerMP) c );
+				}
+			}
+		}
+		catch( final IOException e )
+		{
+			AELog.debug( e );
+		}
+
+		this.viewport.markSent();
+	}
+
+	/**
+	 * Called when the client changed what it shows, ignored unless terminals are synced lazily.
+	 */
+	public void setViewport( final String search, final SortOrder sortBy, final SortDir sortDir, final ViewItems viewMode, final int offset, final int count )
+	{
+		if( !this.lazySync || this.monitor == null )
+		{
+			return;
+		}
+
+		if( this.viewport == null )
+		{
+			this.viewport = new TerminalViewport();
+			this.viewportCells = this.getViewCells();
+			this.viewport.setViewCells( ItemViewCell.createFilter( this.viewportCells ) );
+		}
+
+		// applied on the next update, so a client can not make the server rebuild more than once per tick.
+		this.viewport.request( search, sortBy, sortDir, viewMode, offset, count );
+	}
+
 	protected void updatePowerStatus()
 	{
 		try
@@ -314,11 +434,27 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 
 	private void queueInventory( final IContainerListener c )
 	{
-		if( Platform.isServer() && c instanceof EntityPlayer && this.monitor != null )
+		if( this.lazySync )
+		{
+			// the client asks for the rows it shows once its gui is open.
+			if( this.viewport != null )
+			{
+				this.viewport.rebuild( this.monitor.getStorageList() );
+			}
+		}
+		else if( Platform.isServer() && c instanceof EntityPlayerMP && this.broadcaster != null )
+		{
+			this.broadcaster.subscribe( (EntityPlayerMP) c );
+		}
+		else if( Platform.isServer() && c instanceof EntityPlayer && this.monitor != null )
 		{
 			try
 			{
-				PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate();
+				// a fresh session, the client drops whatever it knew from before.
+				final ItemPacketDictionary dictionary = new ItemPacketDictionary();
+				this.dictionaries.put( c, dictionary );
+
+				PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate( dictionary );
 				final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
 
 				for( final IAEItemStack send : monitorCache )
@@ -331,7 +467,7 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 					{
 						NetworkHandler.instance().sendTo( piu, (EntityPlayerMP) c );
 
-						piu = new PacketMEInventoryUpdate();
+						piu = new PacketMEInventoryUpdate( dictionary );
 						piu.appendItem( send );
 					}
 				}
@@ -345,10 +481,28 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 		}
 	}
 
+	private ItemPacketDictionary getDictionary( final IContainerListener c )
+	{
+		ItemPacketDictionary dictionary = this.dictionaries.get( c );
+
+		if( dictionary == null )
+		{
+			this.dictionaries.put( c, dictionary = new ItemPacketDictionary() );
+		}
+
+		return dictionary;
+	}
+
 	@Override
 	public void removeListener( final IContainerListener c )
 	{
 		super.removeListener( c );
+		this.dictionaries.remove( c );
+
+		if( this.broadcaster != null && c instanceof EntityPlayerMP )
+		{
+			this.broadcaster.unsubscribe( (EntityPlayerMP) c );
+		}
 
 		if( this.listeners.isEmpty() && this.monitor != null )
 		{
@@ -360,6 +514,10 @@ public class ContainerMEMonitorable extends AEBaseContainer implements IConfigMa
 	public void onContainerClosed( final EntityPlayer player )
 	{
 		super.onContainerClosed( player );
+		if( this.broadcaster != null && player instanceof EntityPlayerMP )
+		{
+			this.broadcaster.unsubscribe( (EntityPlayerMP) player );
+		}
 		if( this.monitor != null )
 		{
 			this.monitor.removeListener( this );
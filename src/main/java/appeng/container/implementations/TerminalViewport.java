@@ -0,0 +1,374 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.container.implementations;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.item.Item;
+import net.minecraft.util.ResourceLocation;
+
+import appeng.api.config.SortDir;
+import appeng.api.config.SortOrder;
+import appeng.api.config.ViewItems;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.ItemSorters;
+import appeng.util.Platform;
+import appeng.util.item.AEItemStack;
+import appeng.util.prioritylist.IPartitionList;
+
+
+/**
+ * Server side copy of what a terminal shows, filtered and sorted the way its client asked for, so only the rows which
+ * are currently visible have to be sent.
+ *
+ * Searching only looks at names and mod ids, tooltips are not known on the server. The search is matched as plain text,
+ * a client can send anything and regular expressions would run on the server thread.
+ */
+final class TerminalViewport
+{
+
+	// same as the search field of the terminal.
+	private static final int MAX_SEARCH_LENGTH = 25;
+
+	private final List<IAEItemStack> view = new ArrayList<IAEItemStack>();
+	// the copy stored in the view for each item, the view is sorted by its amount and not the live one.
+	private final Map<IAEItemStack, IAEItemStack> entries = new HashMap<IAEItemStack, IAEItemStack>();
+	// display names are only cached on the client, so the server keeps its own.
+	private final Map<IAEItemStack, String> names = new HashMap<IAEItemStack, String>();
+
+	private String search;
+	private String needle;
+	private boolean searchMod;
+	private SortOrder sortBy;
+	private SortDir sortDir;
+	private ViewItems viewMode;
+	private IPartitionList<IAEItemStack> viewCells;
+	private Comparator<IAEItemStack> order;
+
+	private int offset;
+	private int count;
+	private int sentSize = -1;
+	private boolean changed = true;
+
+	// the last request of the client, applied once per update.
+	private String requestSearch;
+	private SortOrder requestSortBy;
+	private SortDir requestSortDir;
+	private ViewItems requestViewMode;
+	private int requestOffset;
+	private int requestCount;
+	private boolean requested;
+
+	void request( final String search, final SortOrder sortBy, final SortDir sortDir, final ViewItems viewMode, final int offset, final int count )
+	{
+		this.requestSearch = search.length() > MAX_SEARCH_LENGTH ? search.substring( 0, MAX_SEARCH_LENGTH ) : search;
+		this.requestSortBy = sortBy;
+		this.requestSortDir = sortDir;
+		this.requestViewMode = viewMode;
+		this.requestOffset = offset;
+		this.requestCount = count;
+		this.requested = true;
+	}
+
+	/**
+	 * Applies the last request of the client, if there is one.
+	 *
+	 * @return true if the view has to be rebuilt.
+	 */
+	boolean applyRequest()
+	{
+		if( !this.requested )
+		{
+			return false;
+		}
+
+		this.requested = false;
+		this.setWindow( this.requestOffset, this.requestCount );
+		return this.configure( this.requestSearch, this.requestSortBy, this.requestSortDir, this.requestViewMode );
+	}
+
+	private boolean configure( final String search, final SortOrder sortBy, final SortDir sortDir, final ViewItems viewMode )
+	{
+		if( search.equals( this.search ) && sortBy == this.sortBy && sortDir == this.sortDir && viewMode == this.viewMode )
+		{
+			return false;
+		}
+
+		this.search = search;
+		this.sortBy = sortBy;
+		this.sortDir = sortDir;
+		this.viewMode = viewMode;
+
+		String innerSearch = search;
+		this.searchMod = innerSearch.startsWith( "@" );
+		if( this.searchMod )
+		{
+			innerSearch = innerSearch.substring( 1 );
+		}
+
+		this.needle = innerSearch.toLowerCase();
+
+		this.order = createOrder( sortBy, sortDir );
+		return true;
+	}
+
+	void setViewCells( @Nullable final IPartitionList<IAEItemStack> viewCells )
+	{
+		this.viewCells = viewCells;
+	}
+
+	private void setWindow( final int offset, final int count )
+	{
+		if( offset != this.offset || count != this.count )
+		{
+			this.offset = offset;
+			this.count = count;
+			this.changed = true;
+		}
+	}
+
+	void rebuild( final IItemList<IAEItemStack> storage )
+	{
+		// nothing to show until the first request was applied.
+		if( this.search == null )
+		{
+			return;
+		}
+
+		this.view.clear();
+		this.entries.clear();
+
+		// names are kept between searches, only drop them once many items are gone.
+		if( this.names.size() > storage.size() * 2 )
+		{
+			this.names.clear();
+		}
+
+		for( final IAEItemStack is : storage )
+		{
+			if( this.accepts( is ) )
+			{
+				final IAEItemStack copy = this.project( is );
+				this.view.add( copy );
+				this.entries.put( copy, copy );
+			}
+		}
+
+		Collections.sort( this.view, this.order );
+		this.changed = true;
+	}
+
+	/**
+	 * Moves a single item to its new place in the view.
+	 *
+	 * @param key any stack of the changed item
+	 * @param stored what the network holds of it now, null if nothing
+	 */
+	void update( final IAEItemStack key, @Nullable final IAEItemStack stored )
+	{
+		if( this.search == null )
+		{
+			return;
+		}
+
+		final IAEItemStack old = this.entries.remove( key );
+
+		if( old != null )
+		{
+			final int idx = this.indexOf( old );
+			this.view.remove( idx );
+			this.markIfVisible( idx );
+		}
+
+		if( stored == null || !stored.isMeaningful() )
+		{
+			this.names.remove( key );
+		}
+		else if( this.accepts( stored ) )
+		{
+			final IAEItemStack copy = this.project( stored );
+			final int idx = this.lowerBound( copy );
+			this.view.add( idx, copy );
+			this.entries.put( copy, copy );
+			this.markIfVisible( idx );
+		}
+	}
+
+	/**
+	 * @return true if the window or the size of the view changed since it was last sent.
+	 */
+	boolean isChanged()
+	{
+		return this.changed || this.sentSize != this.view.size();
+	}
+
+	void markSent()
+	{
+		this.changed = false;
+		this.sentSize = this.view.size();
+	}
+
+	List<IAEItemStack> getWindow()
+	{
+		final int from = Math.min( this.offset, this.view.size() );
+		return this.view.subList( from, from + Math.min( this.count, this.view.size() - from ) );
+	}
+
+	int getOffset()
+	{
+		return this.offset;
+	}
+
+	int size()
+	{
+		return this.view.size();
+	}
+
+	private void markIfVisible( final int idx )
+	{
+		// anything before the end of the window shifts what is visible.
+		if( idx - this.offset < this.count )
+		{
+			this.changed = true;
+		}
+	}
+
+	private boolean accepts( final IAEItemStack is )
+	{
+		if( this.viewCells != null && !this.viewCells.isListed( is ) )
+		{
+			return false;
+		}
+
+		if( this.viewMode == ViewItems.CRAFTABLE && !is.isCraftable() )
+		{
+			return false;
+		}
+
+		if( this.viewMode == ViewItems.STORED && is.getStackSize() == 0 )
+		{
+			return false;
+		}
+
+		final String dspName = this.searchMod ? getModId( is ) : this.getName( is );
+		return dspName.toLowerCase().contains( this.needle );
+	}
+
+	private String getName( final IAEItemStack is )
+	{
+		String name = this.names.get( is );
+
+		if( name == null )
+		{
+			this.names.put( is, name = Platform.getItemDisplayName( is.getItemStack() ) );
+		}
+
+		return name;
+	}
+
+	private IAEItemStack project( final IAEItemStack is )
+	{
+		final IAEItemStack copy = is.copy();
+
+		if( this.viewMode == ViewItems.CRAFTABLE )
+		{
+			copy.setStackSize( 0 );
+		}
+
+		return copy;
+	}
+
+	private int indexOf( final IAEItemStack is )
+	{
+		// items may compare as equal, so look for the exact copy among them.
+		for( int x = this.lowerBound( is ); x < this.view.size() && this.order.compare( this.view.get( x ), is ) == 0; x++ )
+		{
+			if( this.view.get( x ) == is )
+			{
+				return x;
+			}
+		}
+
+		return this.view.indexOf( is );
+	}
+
+	private int lowerBound( final IAEItemStack is )
+	{
+		int lo = 0;
+		int hi = this.view.size();
+
+		while( lo < hi )
+		{
+			final int mid = ( lo + hi ) >>> 1;
+
+			if( this.order.compare( this.view.get( mid ), is ) < 0 )
+			{
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Matches the order of {@link ItemSorters}, without its shared direction and with a tie breaker. Inventory Tweaks
+	 * is client only, so sorting by it falls back to names.
+	 */
+	private Comparator<IAEItemStack> createOrder( final SortOrder sortBy, final SortDir sortDir )
+	{
+		final Comparator<IAEItemStack> byName = ( a, b ) -> this.getName( a ).compareToIgnoreCase( this.getName( b ) );
+		final Comparator<IAEItemStack> ascending;
+
+		if( sortBy == SortOrder.MOD )
+		{
+			final Comparator<IAEItemStack> byMod = ( a, b ) -> getModId( a ).compareToIgnoreCase( getModId( b ) );
+			ascending = byMod.thenComparing( byName ).reversed();
+		}
+		else if( sortBy == SortOrder.AMOUNT )
+		{
+			ascending = ( a, b ) -> ItemSorters.compareLong( b.getStackSize(), a.getStackSize() );
+		}
+		else
+		{
+			ascending = byName;
+		}
+
+		final Comparator<IAEItemStack> order = sortDir == SortDir.DESCENDING ? ascending.reversed() : ascending;
+		return order.thenComparing( ( a, b ) -> ( (AEItemStack) a ).compareTo( (AEItemStack) b ) );
+	}
+
+	private static String getModId( final IAEItemStack is )
+	{
+		final ResourceLocation id = Item.REGISTRY.getNameForObject( is.getItem() );
+		return id == null ? "** Null" : id.getResourceDomain();
+	}
+}
@@ -87,9 +87,19 @@ public final class AEConfig extends Configuration implements IConfigurableObject
 	private boolean useColoredCraftingStatus;
 	private boolean disableColoredCableRecipesInJEI = true;
 	private int craftingCalculationTimePerTick = 5;
+	private boolean parallelCraftingCalculation = false;
+	private int craftingCalculationThreads = 2;
 	private PowerUnits selectedPowerUnit = PowerUnits.AE;
 	private boolean rememberTerminalSearchOnClose = false;
 	private boolean patternTermRequiresItems = true;
+	private boolean incrementalChannels = true;
+	private int packetCompressionLevel = 6;
+	private boolean lazyTerminalSync = false;
+
+	// Network storage
+	private boolean incrementalStorageList = true;
+	private boolean hashedItemLists = false;
+	private boolean storageResidencyIndex = true;
 
 	// GUI Buttons
 	private final int[] craftByStacks = { 1, 10, 100, 1000 };
@@ -162,6 +172,26 @@ public final class AEConfig extends Configuration implements IConfigurableObject
 		this.patternTermRequiresItems = this.get("general", "patternTermRequiresItems", true,
 				"Whether the pattern terminal requires the items in the system to encode").getBoolean();
 
+		this.incrementalChannels = this.get( "general", "incrementalChannels", this.incrementalChannels,
+				"Assigns channels to single devices or cables attached to, or removed from, a booted network without rebooting the whole network." )
+				.getBoolean();
+		this.packetCompressionLevel = this.get( "general", "packetCompressionLevel", this.packetCompressionLevel,
+				"Deflate level used for terminal inventory packets, from 0 (no compression) to 9 (smallest packets, most CPU).", 0, 9 )
+				.getInt();
+		this.lazyTerminalSync = this.get( "general", "lazyTerminalSync", this.lazyTerminalSync,
+				"Terminals only receive the rows they currently show. Searching and sorting happen on the server, which saves bandwidth on very large networks. Tooltip search is not available in this mode." )
+				.getBoolean();
+
+		this.incrementalStorageList = this.get( "networkStorage", "incrementalStorageList", this.incrementalStorageList,
+				"Keeps the cached network item list up to date from storage changes instead of rebuilding it from every cell after each change. A full rebuild still happens whenever cells are added or removed." )
+				.getBoolean();
+		this.hashedItemLists = this.get( "networkStorage", "hashedItemLists", this.hashedItemLists,
+				"Backs item lists with a hash table instead of a sorted concurrent map. Faster lookups, and concurrent lookups are safe, but a list must not be written or iterated while another thread uses it." )
+				.getBoolean();
+		this.storageResidencyIndex = this.get( "networkStorage", "storageResidencyIndex", this.storageResidencyIndex,
+				"Remembers which storage already holds each type, so inserting items does not have to probe every cell and storage bus on the network." )
+				.getBoolean();
+
 		this.setCategoryComment( "GrindStone",
 				"Creates recipe of the following pattern automatically: '1 oreTYPE => 2 dustTYPE' and '(1 ingotTYPE or 1 crystalTYPE or 1 gemTYPE) => 1 dustTYPE'" );
 		this.grinderOres = this.get( "GrindStone", "grinderOres", this.grinderOres, "The list of types to handle. Specify without a prefix like ore or dust." )
@@ -267,6 +297,12 @@ public final class AEConfig extends Configuration implements IConfigurableObject
 		{
 			this.craftingCalculationTimePerTick = this.get( "craftingCPU", "craftingCalculationTimePerTick", this.craftingCalculationTimePerTick ).getInt(
 					this.craftingCalculationTimePerTick );
+			this.parallelCraftingCalculation = this.get( "craftingCPU", "parallelCraftingCalculation", this.parallelCraftingCalculation,
+					"Plans the independent inputs of a recipe on separate threads. The plan is deterministic, but leftovers from crafting one input are not shared with the others, so it can use more materials than planning them one after another. When the inputs compete for the same items the plan is calculated again without threads." )
+					.getBoolean();
+			this.craftingCalculationThreads = this.get( "craftingCPU", "craftingCalculationThreads", this.craftingCalculationThreads,
+					"Number of threads shared by all crafting calculations when parallelCraftingCalculation is enabled.", 1, 32 )
+					.getInt();
 		}
 
 		this.updatable = true;
@@ -606,6 +642,16 @@ public final class AEConfig extends Configuration implements IConfigurableObject
 		return craftingCalculationTimePerTick;
 	}
 
+	public boolean isParallelCraftingCalculation()
+	{
+		return this.parallelCraftingCalculation;
+	}
+
+	public int getCraftingCalculationThreads()
+	{
+		return this.craftingCalculationThreads;
+	}
+
 	public PowerUnits getSelectedPowerUnit()
 	{
 		return selectedPowerUnit;
@@ -786,4 +832,34 @@ public final class AEConfig extends Configuration implements IConfigurableObject
 	public boolean getRememberTerminalSearchOnClose() { return this.rememberTerminalSearchOnClose; }
 
 	public boolean getPatternTermRequiresItems() { return this.patternTermRequiresItems; }
+
+	public boolean isIncrementalStorageList()
+	{
+		return this.incrementalStorageList;
+	}
+
+	public boolean isIncrementalChannels()
+	{
+		return this.incrementalChannels;
+	}
+
+	public int getPacketCompressionLevel()
+	{
+		return this.packetCompressionLevel;
+	}
+
+	public boolean isLazyTerminalSync()
+	{
+		return this.lazyTerminalSync;
+	}
+
+	public boolean isHashedItemLists()
+	{
+		return this.hashedItemLists;
+	}
+
+	public boolean isStorageResidencyIndex()
+	{
+		return this.storageResidencyIndex;
+	}
 }
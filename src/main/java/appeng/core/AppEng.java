@@ -45,6 +45,7 @@ import appeng.core.features.AEFeature;
 import appeng.core.sync.GuiBridge;
 import appeng.core.sync.network.NetworkHandler;
 import appeng.core.worlddata.WorldData;
+import appeng.helpers.PatternHelper;
 import appeng.hooks.TickHandler;
 import appeng.integration.IntegrationRegistry;
 import appeng.recipes.CustomRecipeConfig;
@@ -237,9 +238,16 @@ public final class AppEng
 		imcHandler.handleIMCEvent( event );
 	}
 
+	@EventHandler
+	private void idMapping( final FMLModIdMappingEvent event )
+	{
+		PatternHelper.invalidateCache();
+	}
+
 	@EventHandler
 	private void serverAboutToStart( final FMLServerAboutToStartEvent evt )
 	{
+		PatternHelper.invalidateCache();
 		WorldData.onServerAboutToStart( evt.getServer() );
 	}
 
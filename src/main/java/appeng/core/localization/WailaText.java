@@ -30,7 +30,9 @@ public enum WailaText
 
 	Locked, Unlocked, Showing,
 
-	Contains, Channels;
+	Contains, Channels,
+
+	TickTime;
 
 	private final String root;
 
@@ -48,6 +48,7 @@ import appeng.core.sync.packets.PacketPatternSlot;
 import appeng.core.sync.packets.PacketProgressBar;
 import appeng.core.sync.packets.PacketSwapSlots;
 import appeng.core.sync.packets.PacketSwitchGuis;
+import appeng.core.sync.packets.PacketTerminalViewRequest;
 import appeng.core.sync.packets.PacketTransitionEffect;
 import appeng.core.sync.packets.PacketValueConfig;
 
@@ -104,7 +105,9 @@ public class AppEngPacketHandlerBase
 
 		PACKET_PAINTED_ENTITY( PacketPaintedEntity.class ),
 
-		PACKET_BAUBLE_KEY( PacketBaubleTerminalKey.class )
+		PACKET_BAUBLE_KEY( PacketBaubleTerminalKey.class ),
+
+		PACKET_TERMINAL_VIEW_REQUEST( PacketTerminalViewRequest.class )
 		;
 
 		private final Class<? extends AppEngPacket> packetClass;
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.core.sync.network;
+
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.netty.buffer.ByteBuf;
+
+
+/**
+ * Deflate compression for large packets, working on whole buffers with one reusable {@link Deflater} and
+ * {@link Inflater} per thread.
+ */
+public final class PacketCompression
+{
+
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial( () -> new Deflater() );
+	private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial( () -> new Inflater() );
+	private static final ThreadLocal<byte[]> CHUNKS = ThreadLocal.withInitial( () -> new byte[CHUNK_SIZE] );
+
+	private PacketCompression()
+	{
+	}
+
+	/**
+	 * Compresses all readable bytes of the input into the output.
+	 *
+	 * @param level deflate level from 0 (store only) to 9
+	 */
+	public static void compress( final ByteBuf in, final ByteBuf out, final int level )
+	{
+		final Deflater deflater = DEFLATERS.get();
+		deflater.reset();
+		deflater.setLevel( Math.max( Deflater.NO_COMPRESSION, Math.min( Deflater.BEST_COMPRESSION, level ) ) );
+
+		setInput( deflater, in );
+		deflater.finish();
+
+		while( !deflater.finished() )
+		{
+			out.ensureWritable( CHUNK_SIZE );
+
+			if( out.hasArray() )
+			{
+				final int written = deflater.deflate( out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes() );
+				out.writerIndex( out.writerIndex() + written );
+			}
+			else
+			{
+				final byte[] chunk = CHUNKS.get();
+				out.writeBytes( chunk, 0, deflater.deflate( chunk ) );
+			}
+		}
+
+		in.skipBytes( in.readableBytes() );
+	}
+
+	/**
+	 * Decompresses all readable bytes of the input into the output.
+	 *
+	 * @param limit the most bytes the output may grow by, anything larger is rejected
+	 */
+	public static void decompress( final ByteBuf in, final ByteBuf out, final int limit ) throws IOException
+	{
+		final Inflater inflater = INFLATERS.get();
+		inflater.reset();
+
+		setInput( inflater, in );
+
+		final int start = out.writerIndex();
+
+		try
+		{
+			while( !inflater.finished() )
+			{
+				out.ensureWritable( CHUNK_SIZE );
+
+				final int read;
+				if( out.hasArray() )
+				{
+					read = inflater.inflate( out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes() );
+					out.writerIndex( out.writerIndex() + read );
+				}
+				else
+				{
+					final byte[] chunk = CHUNKS.get();
+					read = inflater.inflate( chunk );
+					out.writeBytes( chunk, 0, read );
+				}
+
+				if( out.writerIndex() - start > limit )
+				{
+					throw new IOException( "Decompressed packet exceeds " + limit + " bytes." );
+				}
+
+				if( read == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) )
+				{
+					throw new IOException( "Truncated compressed packet." );
+				}
+			}
+		}
+		catch( final DataFormatException e )
+		{
+			throw new IOException( e );
+		}
+
+		in.skipBytes( in.readableBytes() );
+	}
+
+	private static void setInput( final Deflater deflater, final ByteBuf in )
+	{
+		if( in.hasArray() )
+		{
+			deflater.setInput( in.array(), in.arrayOffset() + in.readerIndex(), in.readableBytes() );
+		}
+		else
+		{
+			final byte[] copy = new byte[in.readableBytes()];
+			in.getBytes( in.readerIndex(), copy );
+			deflater.setInput( copy );
+		}
+	}
+
+	private static void setInput( final Inflater inflater, final ByteBuf in )
+	{
+		if( in.hasArray() )
+		{
+			inflater.setInput( in.array(), in.arrayOffset() + in.readerIndex(), in.readableBytes() );
+		}
+		else
+		{
+			final byte[] copy = new byte[in.readableBytes()];
+			in.getBytes( in.readerIndex(), copy );
+			inflater.setInput( copy );
+		}
+	}
+}
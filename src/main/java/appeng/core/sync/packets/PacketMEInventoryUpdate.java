@@ -20,13 +20,9 @@ package appeng.core.sync.packets;
 
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.BufferOverflowException;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -36,6 +32,7 @@ import io.netty.buffer.Unpooled;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiScreen;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
 import net.minecraftforge.fml.common.network.internal.FMLProxyPacket;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -45,75 +42,65 @@ import appeng.client.gui.implementations.GuiCraftConfirm;
 import appeng.client.gui.implementations.GuiCraftingCPU;
 import appeng.client.gui.implementations.GuiMEMonitorable;
 import appeng.client.gui.implementations.GuiNetworkStatus;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.sync.AppEngPacket;
 import appeng.core.sync.network.INetworkInfo;
+import appeng.core.sync.network.PacketCompression;
 import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemPacketDictionary;
 
 
 public class PacketMEInventoryUpdate extends AppEngPacket
 {
 	private static final int UNCOMPRESSED_PACKET_BYTE_LIMIT = 16 * 1024 * 1024;
 	private static final int OPERATION_BYTE_LIMIT = 2 * 1024;
-	private static final int TEMP_BUFFER_SIZE = 1024;
-	private static final int STREAM_MASK = 0xff;
+	private static final int UNCOMPRESSED_INITIAL_SIZE = 16 * 1024;
 
 	// input.
 	@Nullable
 	private final List<IAEItemStack> list;
 	// output...
 	private final byte ref;
+	@Nullable
+	private final ItemPacketDictionary dictionary;
+	// size of the whole terminal view if this only carries a window of it, -1 otherwise.
+	private final int viewportTotal;
+	private final int viewportOffset;
 
 	@Nullable
 	private final ByteBuf data;
+	// items written so far, compressed into data once the packet is sent.
 	@Nullable
-	private final GZIPOutputStream compressFrame;
+	private ByteBuf uncompressed;
 
-	private int writtenBytes = 0;
 	private boolean empty = true;
 
 	// automatic.
 	public PacketMEInventoryUpdate( final ByteBuf stream ) throws IOException
 	{
 		this.data = null;
-		this.compressFrame = null;
 		this.list = new LinkedList<IAEItemStack>();
 		this.ref = stream.readByte();
 
-		// int originalBytes = stream.readableBytes();
-
-		final GZIPInputStream gzReader = new GZIPInputStream( new InputStream(){
-			@Override
-			public int read() throws IOException
-			{
-				if( stream.readableBytes() <= 0 )
-				{
-					return -1;
-				}
+		final int session = ByteBufUtils.readVarInt( stream, 5 );
+		this.dictionary = session == 0 ? null : ItemPacketDictionary.getClientDictionary( session );
+		this.viewportTotal = ByteBufUtils.readVarInt( stream, 5 ) - 1;
+		this.viewportOffset = this.viewportTotal < 0 ? 0 : ByteBufUtils.readVarInt( stream, 5 );
 
-				return stream.readByte() & STREAM_MASK;
-			}
-		} );
+		final ByteBuf uncompressed = Unpooled.buffer( Math.max( UNCOMPRESSED_INITIAL_SIZE, stream.readableBytes() * 4 ) );
+		PacketCompression.decompress( stream, uncompressed, UNCOMPRESSED_PACKET_BYTE_LIMIT );
 
-		final ByteBuf uncompressed = Unpooled.buffer( stream.readableBytes() );
-		final byte[] tmp = new byte[TEMP_BUFFER_SIZE];
-		while( gzReader.available() != 0 )
+		while( uncompressed.readableBytes() > 0 )
 		{
-			final int bytes = gzReader.read( tmp );
-			if( bytes > 0 )
+			final IAEItemStack is = this.dictionary == null ? AEItemStack.loadItemStackFromPacket( uncompressed ) : this.readDictionaryItem( uncompressed );
+
+			// the receivers expect real items, unknown ones are left out.
+			if( is != null )
 			{
-				uncompressed.writeBytes( tmp, 0, bytes );
+				this.list.add( is );
 			}
 		}
-		gzReader.close();
-
-		// int uncompressedBytes = uncompressed.readableBytes();
-		// AELog.info( "Receiver: " + originalBytes + " -> " + uncompressedBytes );
-
-		while( uncompressed.readableBytes() > 0 )
-		{
-			this.list.add( AEItemStack.loadItemStackFromPacket( uncompressed ) );
-		}
 
 		this.empty = this.list.isEmpty();
 	}
@@ -126,19 +113,50 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 
 	// api
 	public PacketMEInventoryUpdate( final byte ref ) throws IOException
+	{
+		this( ref, null );
+	}
+
+	/**
+	 * Sends each item type in full only the first time it is appended for the given dictionary, later updates only
+	 * carry its id and amounts.
+	 */
+	public PacketMEInventoryUpdate( final ItemPacketDictionary dictionary ) throws IOException
+	{
+		this( (byte) 0, dictionary, -1, 0 );
+	}
+
+	/**
+	 * Replaces everything a terminal shows with the appended items, placed at offset within a view of total items.
+	 */
+	public PacketMEInventoryUpdate( final ItemPacketDictionary dictionary, final int total, final int offset ) throws IOException
+	{
+		this( (byte) 0, dictionary, total, offset );
+	}
+
+	private PacketMEInventoryUpdate( final byte ref, @Nullable final ItemPacketDictionary dictionary ) throws IOException
+	{
+		this( ref, dictionary, -1, 0 );
+	}
+
+	private PacketMEInventoryUpdate( final byte ref, @Nullable final ItemPacketDictionary dictionary, final int total, final int offset ) throws IOException
 	{
 		this.ref = ref;
+		this.dictionary = dictionary;
+		this.viewportTotal = total;
+		this.viewportOffset = offset;
 		this.data = Unpooled.buffer( OPERATION_BYTE_LIMIT );
 		this.data.writeInt( this.getPacketID() );
 		this.data.writeByte( this.ref );
+		ByteBufUtils.writeVarInt( this.data, dictionary == null ? 0 : dictionary.getSession(), 5 );
+		ByteBufUtils.writeVarInt( this.data, total + 1, 5 );
 
-		this.compressFrame = new GZIPOutputStream( new OutputStream(){
-			@Override
-			public void write( final int value ) throws IOException
-			{
-				PacketMEInventoryUpdate.this.data.writeByte( value );
-			}
-		} );
+		if( total >= 0 )
+		{
+			ByteBufUtils.writeVarInt( this.data, offset, 5 );
+		}
+
+		this.uncompressed = Unpooled.buffer( UNCOMPRESSED_INITIAL_SIZE );
 
 		this.list = null;
 	}
@@ -161,7 +179,14 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 
 		if( gs instanceof GuiMEMonitorable )
 		{
-			( (GuiMEMonitorable) gs ).postUpdate( this.list );
+			if( this.viewportTotal >= 0 )
+			{
+				( (GuiMEMonitorable) gs ).postViewport( this.viewportTotal, this.viewportOffset, this.list );
+			}
+			else
+			{
+				( (GuiMEMonitorable) gs ).postUpdate( this.list );
+			}
 		}
 
 		if( gs instanceof GuiNetworkStatus )
@@ -174,36 +199,91 @@ public class PacketMEInventoryUpdate extends AppEngPacket
 	@Override
 	public FMLProxyPacket getProxy()
 	{
-		try
+		// the same packet may be sent to several players, only compress it once.
+		if( this.uncompressed != null )
 		{
-			this.compressFrame.close();
+			PacketCompression.compress( this.uncompressed, this.data, AEConfig.instance().getPacketCompressionLevel() );
+			this.uncompressed = null;
+		}
+
+		this.configureWrite( this.data );
+		return super.getProxy();
+	}
+
+	private IAEItemStack readDictionaryItem( final ByteBuf in ) throws IOException
+	{
+		final int header = ByteBufUtils.readVarInt( in, 5 );
+		final int id = header >>> 1;
 
-			this.configureWrite( this.data );
-			return super.getProxy();
+		if( ( header & 1 ) != 0 )
+		{
+			final IAEItemStack is = AEItemStack.loadItemStackFromPacket( in );
+			this.dictionary.define( id, is );
+			return is;
 		}
-		catch( final IOException e )
+
+		final IAEItemStack prototype = this.dictionary.get( id );
+		final IAEItemStack is = AEItemStack.loadAmountsFromPacket( prototype, in );
+
+		if( prototype == null )
 		{
-			AELog.debug( e );
+			AELog.warn( "Skipped an update for item id %d, it is not in the terminal dictionary.", id );
 		}
 
-		return null;
+		return is;
 	}
 
 	public void appendItem( final IAEItemStack is ) throws IOException, BufferOverflowException
 	{
-		final ByteBuf tmp = Unpooled.buffer( OPERATION_BYTE_LIMIT );
-		is.writeToPacket( tmp );
+		this.append( is, false );
+	}
 
-		this.compressFrame.flush();
-		if( this.writtenBytes + tmp.readableBytes() > UNCOMPRESSED_PACKET_BYTE_LIMIT )
+	/**
+	 * Appends the full definition of the item even if the dictionary marks it as known, for receivers which only
+	 * joined the session now.
+	 */
+	public void appendDefinition( final IAEItemStack is ) throws IOException, BufferOverflowException
+	{
+		this.append( is, true );
+	}
+
+	private void append( final IAEItemStack is, final boolean define ) throws IOException, BufferOverflowException
+	{
+		final ByteBuf out = this.uncompressed;
+		final int start = out.writerIndex();
+		final int knownId = this.dictionary == null || define ? -1 : this.dictionary.getKnownId( is );
+
+		if( this.dictionary == null )
 		{
-			throw new BufferOverflowException();
+			is.writeToPacket( out );
+		}
+		else if( knownId < 0 )
+		{
+			ByteBufUtils.writeVarInt( out, ( this.dictionary.getIdOrNext( is ) << 1 ) | 1, 5 );
+			is.writeToPacket( out );
 		}
 		else
 		{
-			this.writtenBytes += tmp.readableBytes();
-			this.compressFrame.write( tmp.array(), 0, tmp.readableBytes() );
-			this.empty = false;
+			ByteBufUtils.writeVarInt( out, knownId << 1, 5 );
+			( (AEItemStack) is ).writeAmountsToPacket( out );
+		}
+
+		if( out.writerIndex() > UNCOMPRESSED_PACKET_BYTE_LIMIT )
+		{
+			out.writerIndex( start );
+			throw new BufferOverflowException();
+		}
+
+		this.empty = false;
+
+		// only assigned once it is actually part of the packet.
+		if( this.dictionary != null && define )
+		{
+			this.dictionary.assign( is );
+		}
+		else if( this.dictionary != null && knownId < 0 )
+		{
+			this.dictionary.markKnown( is );
 		}
 	}
 
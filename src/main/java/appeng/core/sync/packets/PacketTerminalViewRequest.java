@@ -0,0 +1,94 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.core.sync.packets;
+
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+import appeng.api.config.SortDir;
+import appeng.api.config.SortOrder;
+import appeng.api.config.ViewItems;
+import appeng.container.implementations.ContainerMEMonitorable;
+import appeng.core.sync.AppEngPacket;
+import appeng.core.sync.network.INetworkInfo;
+
+
+/**
+ * Tells the server which part of its terminal a client currently shows, used when terminals are synced lazily.
+ */
+public class PacketTerminalViewRequest extends AppEngPacket
+{
+
+	private final String search;
+	private final int sortBy;
+	private final int sortDir;
+	private final int viewMode;
+	private final int offset;
+	private final int count;
+
+	// automatic.
+	public PacketTerminalViewRequest( final ByteBuf stream )
+	{
+		this.search = ByteBufUtils.readUTF8String( stream );
+		this.sortBy = stream.readByte();
+		this.sortDir = stream.readByte();
+		this.viewMode = stream.readByte();
+		this.offset = ByteBufUtils.readVarInt( stream, 5 );
+		this.count = ByteBufUtils.readVarInt( stream, 5 );
+	}
+
+	// api
+	public PacketTerminalViewRequest( final String search, final SortOrder sortBy, final SortDir sortDir, final ViewItems viewMode, final int offset, final int count )
+	{
+		final ByteBuf data = Unpooled.buffer();
+
+		data.writeInt( this.getPacketID() );
+		ByteBufUtils.writeUTF8String( data, this.search = search );
+		data.writeByte( this.sortBy = sortBy.ordinal() );
+		data.writeByte( this.sortDir = sortDir.ordinal() );
+		data.writeByte( this.viewMode = viewMode.ordinal() );
+		ByteBufUtils.writeVarInt( data, this.offset = offset, 5 );
+		ByteBufUtils.writeVarInt( data, this.count = count, 5 );
+
+		this.configureWrite( data );
+	}
+
+	@Override
+	public void serverPacketData( final INetworkInfo manager, final AppEngPacket packet, final EntityPlayer player )
+	{
+		if( this.sortBy < 0 || this.sortBy >= SortOrder.values().length || this.sortDir < 0 || this.sortDir >= SortDir.values().length || this.viewMode < 0 || this.viewMode >= ViewItems.values().length )
+		{
+			return;
+		}
+
+		if( this.offset < 0 || this.count < 0 || this.count > ContainerMEMonitorable.MAX_VIEWPORT_SIZE )
+		{
+			return;
+		}
+
+		if( player != null && player.openContainer instanceof ContainerMEMonitorable )
+		{
+			( (ContainerMEMonitorable) player.openContainer ).setViewport( this.search, SortOrder.values()[this.sortBy], SortDir.values()[this.sortDir], ViewItems.values()[this.viewMode], this.offset, this.count );
+		}
+	}
+}
@@ -24,7 +24,11 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.Objects;
 
 import javax.annotation.Nonnull;
 
@@ -37,16 +41,22 @@ import appeng.core.AELog;
 
 
 /**
+ * Keeps the spawn data of recently used regions in memory, changes are written once the world is saved or a region is
+ * evicted.
+ *
  * @author thatsIch
  * @version rv3 - 30.05.2015
  * @since rv3 30.05.2015
  */
-final class SpawnData implements IWorldSpawnData
+final class SpawnData implements IWorldSpawnData, IOnWorldSaveable, IOnWorldStoppable
 {
+	private static final int MAX_CACHED_REGIONS = 256;
+
 	@Nonnull
 	private final File spawnDirectory;
 	@Nonnull
 	private final MeteorDataNameEncoder encoder;
+	private final Map<RegionKey, SpawnRegion> regions = new LinkedHashMap<RegionKey, SpawnRegion>( 16, 0.75f, true );
 
 	public SpawnData( @Nonnull final File spawnDirectory )
 	{
@@ -59,40 +69,27 @@ final class SpawnData implements IWorldSpawnData
 	@Override
 	public void setGenerated( final int dim, final int chunkX, final int chunkZ )
 	{
-		synchronized( SpawnData.class )
+		synchronized( this )
 		{
-			final NBTTagCompound data = this.loadSpawnData( dim, chunkX, chunkZ );
-
-			// edit.
-			data.setBoolean( chunkX + "," + chunkZ, true );
-
-			this.writeSpawnData( dim, chunkX, chunkZ, data );
+			this.getRegion( dim, chunkX, chunkZ ).setGenerated( chunkX, chunkZ );
 		}
 	}
 
 	@Override
 	public boolean hasGenerated( final int dim, final int chunkX, final int chunkZ )
 	{
-		synchronized( SpawnData.class )
+		synchronized( this )
 		{
-			final NBTTagCompound data = this.loadSpawnData( dim, chunkX, chunkZ );
-			return data.getBoolean( chunkX + "," + chunkZ );
+			return this.getRegion( dim, chunkX, chunkZ ).hasGenerated( chunkX, chunkZ );
 		}
 	}
 
 	@Override
 	public boolean addNearByMeteorites( final int dim, final int chunkX, final int chunkZ, final NBTTagCompound newData )
 	{
-		synchronized( SpawnData.class )
+		synchronized( this )
 		{
-			final NBTTagCompound data = this.loadSpawnData( dim, chunkX, chunkZ );
-
-			// edit.
-			final int size = data.getInteger( "num" );
-			data.setTag( String.valueOf( size ), newData );
-			data.setInteger( "num", size + 1 );
-
-			this.writeSpawnData( dim, chunkX, chunkZ, data );
+			this.getRegion( dim, chunkX, chunkZ ).addMeteorite( newData );
 
 			return true;
 		}
@@ -103,7 +100,7 @@ final class SpawnData implements IWorldSpawnData
 	{
 		final Collection<NBTTagCompound> ll = new LinkedList<NBTTagCompound>();
 
-		synchronized( SpawnData.class )
+		synchronized( this )
 		{
 			for( int x = -1; x <= 1; x++ )
 			{
@@ -112,17 +109,7 @@ final class SpawnData implements IWorldSpawnData
 					final int cx = x + ( chunkX >> 4 );
 					final int cz = z + ( chunkZ >> 4 );
 
-					final NBTTagCompound data = this.loadSpawnData( dim, cx << 4, cz << 4 );
-
-					if( data != null )
-					{
-						// edit.
-						final int size = data.getInteger( "num" );
-						for( int s = 0; s < size; s++ )
-						{
-							ll.add( data.getCompoundTag( String.valueOf( s ) ) );
-						}
-					}
+					this.getRegion( dim, cx << 4, cz << 4 ).getMeteorites( ll );
 				}
 			}
 		}
@@ -130,16 +117,68 @@ final class SpawnData implements IWorldSpawnData
 		return ll;
 	}
 
-	private NBTTagCompound loadSpawnData( final int dim, final int chunkX, final int chunkZ )
+	@Override
+	public void onWorldSave()
+	{
+		synchronized( this )
+		{
+			for( final Map.Entry<RegionKey, SpawnRegion> entry : this.regions.entrySet() )
+			{
+				this.writeIfDirty( entry.getKey(), entry.getValue() );
+			}
+		}
+	}
+
+	@Override
+	public void onWorldStop()
+	{
+		synchronized( this )
+		{
+			this.onWorldSave();
+			this.regions.clear();
+		}
+	}
+
+	private SpawnRegion getRegion( final int dim, final int chunkX, final int chunkZ )
+	{
+		final RegionKey key = new RegionKey( dim, chunkX >> 4, chunkZ >> 4 );
+		SpawnRegion region = this.regions.get( key );
+
+		if( region == null )
+		{
+			region = this.loadSpawnData( key );
+			this.regions.put( key, region );
+
+			if( this.regions.size() > MAX_CACHED_REGIONS )
+			{
+				final Iterator<Map.Entry<RegionKey, SpawnRegion>> it = this.regions.entrySet().iterator();
+				final Map.Entry<RegionKey, SpawnRegion> eldest = it.next();
+
+				this.writeIfDirty( eldest.getKey(), eldest.getValue() );
+				it.remove();
+			}
+		}
+
+		return region;
+	}
+
+	private void writeIfDirty( final RegionKey key, final SpawnRegion region )
 	{
-		if( !Thread.holdsLock( SpawnData.class ) )
+		if( region.isDirty() )
 		{
-			throw new IllegalStateException( "Invalid Request" );
+			this.writeSpawnData( key, region.writeToNBT() );
+			region.markClean();
 		}
+	}
 
-		NBTTagCompound data = null;
-		final String fileName = this.encoder.encode( dim, chunkX, chunkZ );
-		final File file = new File( this.spawnDirectory, fileName );
+	private File getFile( final RegionKey key )
+	{
+		return new File( this.spawnDirectory, this.encoder.encode( key.dim, key.regionX << 4, key.regionZ << 4 ) );
+	}
+
+	private SpawnRegion loadSpawnData( final RegionKey key )
+	{
+		final File file = this.getFile( key );
 
 		if( file.isFile() )
 		{
@@ -148,11 +187,10 @@ final class SpawnData implements IWorldSpawnData
 			try
 			{
 				fileInputStream = new FileInputStream( file );
-				data = CompressedStreamTools.readCompressed( fileInputStream );
+				return new SpawnRegion( CompressedStreamTools.readCompressed( fileInputStream ) );
 			}
 			catch( final Throwable e )
 			{
-				data = new NBTTagCompound();
 				AELog.debug( e );
 			}
 			finally
@@ -170,23 +208,13 @@ final class SpawnData implements IWorldSpawnData
 				}
 			}
 		}
-		else
-		{
-			data = new NBTTagCompound();
-		}
 
-		return data;
+		return new SpawnRegion();
 	}
 
-	private void writeSpawnData( final int dim, final int chunkX, final int chunkZ, final NBTTagCompound data )
+	private void writeSpawnData( final RegionKey key, final NBTTagCompound data )
 	{
-		if( !Thread.holdsLock( SpawnData.class ) )
-		{
-			throw new IllegalStateException( "Invalid Request" );
-		}
-
-		final String fileName = this.encoder.encode( dim, chunkX, chunkZ );
-		final File file = new File( this.spawnDirectory, fileName );
+		final File file = this.getFile( key );
 		FileOutputStream fileOutputStream = null;
 
 		try
@@ -213,4 +241,41 @@ final class SpawnData implements IWorldSpawnData
 			}
 		}
 	}
+
+	private static final class RegionKey
+	{
+		private final int dim;
+		private final int regionX;
+		private final int regionZ;
+
+		private RegionKey( final int dim, final int regionX, final int regionZ )
+		{
+			this.dim = dim;
+			this.regionX = regionX;
+			this.regionZ = regionZ;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash( this.dim, this.regionX, this.regionZ );
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			if( this == obj )
+			{
+				return true;
+			}
+
+			if( !( obj instanceof RegionKey ) )
+			{
+				return false;
+			}
+
+			final RegionKey other = (RegionKey) obj;
+			return this.dim == other.dim && this.regionX == other.regionX && this.regionZ == other.regionZ;
+		}
+	}
 }
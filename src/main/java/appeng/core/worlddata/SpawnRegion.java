@@ -0,0 +1,165 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.core.worlddata;
+
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+
+
+/**
+ * Spawn data of the 16x16 chunks stored in one file.
+ *
+ * Generated chunks are kept as a bitset, older files with one boolean per chunk are converted when they are read.
+ */
+final class SpawnRegion
+{
+	static final int SIZE = 16;
+
+	private static final String TAG_GENERATED = "generated";
+	private static final String TAG_METEORITES = "meteorites";
+	private static final String LEGACY_TAG_NUM = "num";
+
+	private final BitSet generated = new BitSet( SIZE * SIZE );
+	private final List<NBTTagCompound> meteorites = new ArrayList<NBTTagCompound>();
+	private boolean dirty = false;
+
+	SpawnRegion()
+	{
+	}
+
+	SpawnRegion( final NBTTagCompound data )
+	{
+		if( data.hasKey( TAG_GENERATED ) )
+		{
+			final byte[] bits = data.getByteArray( TAG_GENERATED );
+			this.generated.or( BitSet.valueOf( bits ) );
+
+			final NBTTagList list = data.getTagList( TAG_METEORITES, 10 );
+			for( int x = 0; x < list.tagCount(); x++ )
+			{
+				this.meteorites.add( list.getCompoundTagAt( x ) );
+			}
+		}
+		else
+		{
+			this.readLegacy( data );
+		}
+	}
+
+	private void readLegacy( final NBTTagCompound data )
+	{
+		final int size = data.getInteger( LEGACY_TAG_NUM );
+		for( int s = 0; s < size; s++ )
+		{
+			this.meteorites.add( data.getCompoundTag( String.valueOf( s ) ) );
+		}
+
+		for( final String key : data.getKeySet() )
+		{
+			final int split = key.indexOf( ',' );
+			final NBTBase tag = data.getTag( key );
+
+			if( split > 0 && tag.getId() == 1 && data.getBoolean( key ) )
+			{
+				try
+				{
+					final int chunkX = Integer.parseInt( key.substring( 0, split ) );
+					final int chunkZ = Integer.parseInt( key.substring( split + 1 ) );
+					this.generated.set( index( chunkX, chunkZ ) );
+				}
+				catch( final NumberFormatException ignored )
+				{
+				}
+			}
+		}
+
+		// written back in the new format on the next save.
+		this.dirty = true;
+	}
+
+	NBTTagCompound writeToNBT()
+	{
+		final NBTTagCompound data = new NBTTagCompound();
+		final byte[] bits = new byte[SIZE * SIZE / 8];
+		final byte[] used = this.generated.toByteArray();
+		System.arraycopy( used, 0, bits, 0, used.length );
+		data.setByteArray( TAG_GENERATED, bits );
+
+		final NBTTagList list = new NBTTagList();
+		for( final NBTTagCompound meteorite : this.meteorites )
+		{
+			list.appendTag( meteorite );
+		}
+		data.setTag( TAG_METEORITES, list );
+
+		return data;
+	}
+
+	boolean hasGenerated( final int chunkX, final int chunkZ )
+	{
+		return this.generated.get( index( chunkX, chunkZ ) );
+	}
+
+	void setGenerated( final int chunkX, final int chunkZ )
+	{
+		final int index = index( chunkX, chunkZ );
+
+		if( !this.generated.get( index ) )
+		{
+			this.generated.set( index );
+			this.dirty = true;
+		}
+	}
+
+	void addMeteorite( final NBTTagCompound data )
+	{
+		this.meteorites.add( data );
+		this.dirty = true;
+	}
+
+	void getMeteorites( final Collection<NBTTagCompound> out )
+	{
+		for( final NBTTagCompound meteorite : this.meteorites )
+		{
+			out.add( meteorite.copy() );
+		}
+	}
+
+	boolean isDirty()
+	{
+		return this.dirty;
+	}
+
+	void markClean()
+	{
+		this.dirty = false;
+	}
+
+	private static int index( final int chunkX, final int chunkZ )
+	{
+		return ( ( chunkX & ( SIZE - 1 ) ) << 4 ) | ( chunkZ & ( SIZE - 1 ) );
+	}
+}
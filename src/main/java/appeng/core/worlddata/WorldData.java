@@ -31,7 +31,10 @@ import com.google.common.collect.Lists;
 
 import net.minecraft.server.MinecraftServer;
 import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 
 import appeng.core.AEConfig;
 import appeng.services.CompassService;
@@ -67,6 +70,7 @@ public final class WorldData implements IWorldData
 
 	private final List<IOnWorldStartable> startables;
 	private final List<IOnWorldStoppable> stoppables;
+	private final List<IOnWorldSaveable> saveables;
 
 	private final File ae2directory;
 	private final File spawnDirectory;
@@ -94,7 +98,7 @@ public final class WorldData implements IWorldData
 		final CompassService compassService = new CompassService( this.compassDirectory, compassThreadFactory );
 		final CompassData compassData = new CompassData( this.compassDirectory, compassService );
 
-		final IWorldSpawnData spawnData = new SpawnData( this.spawnDirectory );
+		final SpawnData spawnData = new SpawnData( this.spawnDirectory );
 
 		this.playerData = playerData;
 		this.dimensionData = dimensionData;
@@ -103,7 +107,8 @@ public final class WorldData implements IWorldData
 		this.spawnData = spawnData;
 
 		this.startables = Lists.<IOnWorldStartable>newArrayList( playerData, dimensionData, storageData );
-		this.stoppables = Lists.<IOnWorldStoppable>newArrayList( playerData, dimensionData, storageData, compassData );
+		this.stoppables = Lists.<IOnWorldStoppable>newArrayList( playerData, dimensionData, storageData, compassData, spawnData );
+		this.saveables = Lists.<IOnWorldSaveable>newArrayList( spawnData );
 	}
 
 	/**
@@ -163,6 +168,17 @@ public final class WorldData implements IWorldData
 		}
 
 		this.startables.clear();
+
+		MinecraftForge.EVENT_BUS.register( this );
+	}
+
+	@SubscribeEvent
+	public void onWorldSave( final WorldEvent.Save event )
+	{
+		for( final IOnWorldSaveable saveable : this.saveables )
+		{
+			saveable.onWorldSave();
+		}
 	}
 
 	@Override
@@ -179,7 +195,10 @@ public final class WorldData implements IWorldData
 	{
 		Preconditions.checkNotNull( instance );
 
+		MinecraftForge.EVENT_BUS.unregister( this );
+
 		this.stoppables.clear();
+		this.saveables.clear();
 		instance = null;
 	}
 
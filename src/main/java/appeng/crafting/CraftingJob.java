@@ -19,7 +19,15 @@
 package appeng.crafting;
 
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Stopwatch;
@@ -27,6 +35,7 @@ import com.google.common.base.Stopwatch;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 
 import appeng.api.AEApi;
 import appeng.api.config.Actionable;
@@ -45,8 +54,11 @@ import appeng.api.networking.storage.IStorageGrid;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
 import appeng.api.util.DimensionalCoord;
+import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.hooks.TickHandler;
+import appeng.me.cache.CraftingGridCache;
+import appeng.util.Platform;
 
 
 public class CraftingJob implements Runnable, ICraftingJob
@@ -54,6 +66,16 @@ public class CraftingJob implements Runnable, ICraftingJob
 	private static final String LOG_CRAFTING_JOB = "CraftingJob (%s) issued by %s requesting [%s] using %s bytes took %s ms";
 	private static final String LOG_MACHINE_SOURCE_DETAILS = "Machine[object=%s, %s]";
 
+	/**
+	 * Shared by all jobs, the inputs of a process are planned on it when parallel calculation is enabled.
+	 */
+	private static final ForkJoinPool BRANCH_POOL = new ForkJoinPool( AEConfig.instance().getCraftingCalculationThreads(), pool ->
+	{
+		final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+		thread.setName( "AE Crafting Branch " + thread.getPoolIndex() );
+		return thread;
+	}, null, false );
+
 	private final MECraftingInventory original;
 	private final World world;
 	private final IItemList<IAEItemStack> crafting = AEApi.instance().storage().createItemList();
@@ -73,6 +95,13 @@ public class CraftingJob implements Runnable, ICraftingJob
 	private int time = 5;
 	private int incTime = Integer.MAX_VALUE;
 
+	// the availability overlay of the branch running on the current thread, null on the job thread.
+	private final ThreadLocal<MECraftingInventory> branchCheck = new ThreadLocal<MECraftingInventory>();
+	private int branchesRunning = 0;
+	private volatile boolean pauseBranches = false;
+	private volatile boolean cancelled = false;
+	private boolean branchesFailed = false;
+
 	private World wrapWorld( final World w )
 	{
 		return w;
@@ -95,17 +124,300 @@ public class CraftingJob implements Runnable, ICraftingJob
 
 	private CraftingTreeNode getCraftingTree( final ICraftingGrid cc, final IAEItemStack what )
 	{
+		if( cc instanceof CraftingGridCache )
+		{
+			return ( (CraftingGridCache) cc ).getCraftingTree( this, what );
+		}
+
 		return new CraftingTreeNode( cc, this, what, null, -1, 0 );
 	}
 
 	void refund( final IAEItemStack o )
 	{
-		this.availableCheck.injectItems( o, Actionable.MODULATE, this.actionSrc );
+		this.getAvailableCheck().injectItems( o, Actionable.MODULATE, this.actionSrc );
 	}
 
 	IAEItemStack checkUse( final IAEItemStack available )
 	{
-		return this.availableCheck.extractItems( available, Actionable.MODULATE, this.actionSrc );
+		return this.getAvailableCheck().extractItems( available, Actionable.MODULATE, this.actionSrc );
+	}
+
+	private MECraftingInventory getAvailableCheck()
+	{
+		final MECraftingInventory check = this.branchCheck.get();
+		return check == null ? this.availableCheck : check;
+	}
+
+	/**
+	 * @return true if the inputs of a process requested from the current thread may be planned in parallel.
+	 */
+	boolean canRequestBranches()
+	{
+		return AEConfig.instance().isParallelCraftingCalculation() && !this.branchesFailed && this.branchCheck.get() == null;
+	}
+
+	/**
+	 * Requests each input on its own thread, against a private overlay of the inventory and of the availability
+	 * check. The overlays are committed in the order of the inputs once all of them are done, so the result does not
+	 * depend on which thread finished first. It is not the same as requesting them one after another though: surplus
+	 * outputs crafted by one input stay in its overlay, so its siblings may craft the same items again.
+	 *
+	 * @return false if the inputs competed for the same items or one of them failed, the inputs are left as they were
+	 * and have to be requested one after another.
+	 */
+	boolean requestBranches( final MECraftingInventory inv, final Map<CraftingTreeNode, Long> requests, final BaseActionSource src ) throws InterruptedException
+	{
+		final CraftingTreeState state = new CraftingTreeState();
+		for( final CraftingTreeNode node : requests.keySet() )
+		{
+			node.saveState( state );
+		}
+
+		// the fake player is cached per world, make sure the branches only ever read it.
+		Platform.getPlayer( (WorldServer) this.world );
+
+		final MECraftingInventory merged = new MECraftingInventory( inv, true, true, true );
+		final MECraftingInventory checkMerged = new MECraftingInventory( this.availableCheck, true, true, false );
+		final List<MECraftingInventory> inventories = new ArrayList<MECraftingInventory>( requests.size() );
+		final List<MECraftingInventory> checks = new ArrayList<MECraftingInventory>( requests.size() );
+		final List<ForkJoinTask<Void>> tasks = new ArrayList<ForkJoinTask<Void>>( requests.size() );
+
+		for( final Entry<CraftingTreeNode, Long> entry : requests.entrySet() )
+		{
+			final CraftingTreeNode node = entry.getKey();
+			final long amount = entry.getValue();
+			final MECraftingInventory branchInv = new MECraftingInventory( merged, true, true, true );
+			final MECraftingInventory check = new MECraftingInventory( checkMerged, true, true, false );
+
+			inventories.add( branchInv );
+			checks.add( check );
+
+			final ForkJoinTask<Void> task = BRANCH_POOL.submit( () ->
+			{
+				this.enterBranch( check );
+
+				try
+				{
+					node.request( branchInv, amount, src );
+				}
+				finally
+				{
+					this.leaveBranch();
+				}
+
+				return null;
+			} );
+
+			tasks.add( task );
+		}
+
+		this.awaitBranches( tasks );
+
+		boolean failed = false;
+
+		for( final ForkJoinTask<Void> task : tasks )
+		{
+			try
+			{
+				task.get();
+			}
+			catch( final ExecutionException e )
+			{
+				final Throwable cause = e.getCause();
+
+				if( cause instanceof CraftBranchFailure )
+				{
+					failed = true;
+				}
+				else if( cause instanceof InterruptedException )
+				{
+					throw (InterruptedException) cause;
+				}
+				else if( cause instanceof RuntimeException )
+				{
+					throw (RuntimeException) cause;
+				}
+				else
+				{
+					throw new IllegalStateException( cause );
+				}
+			}
+		}
+
+		for( int x = 0; x < inventories.size() && !failed; x++ )
+		{
+			failed = !inventories.get( x ).commit( src ) || !checks.get( x ).commit( src );
+		}
+
+		if( failed )
+		{
+			this.branchesFailed = true;
+
+			// the overlays are thrown away, so are the refunds while putting the inputs back.
+			this.branchCheck.set( new MECraftingInventory( this.availableCheck, false, false, false ) );
+
+			try
+			{
+				for( final CraftingTreeNode node : requests.keySet() )
+				{
+					node.restoreState( state );
+				}
+			}
+			finally
+			{
+				this.branchCheck.remove();
+			}
+
+			return false;
+		}
+
+		// everything fitted into the merged overlays, so this cannot come up short.
+		if( !merged.commit( src ) || !checkMerged.commit( src ) )
+		{
+			throw new IllegalStateException( "Crafting branches could not be merged." );
+		}
+
+		return true;
+	}
+
+	private void enterBranch( final MECraftingInventory check ) throws InterruptedException
+	{
+		synchronized( this.monitor )
+		{
+			this.branchesRunning++;
+		}
+
+		this.branchCheck.set( check );
+
+		try
+		{
+			this.pauseBranch();
+		}
+		catch( final InterruptedException e )
+		{
+			this.leaveBranch();
+			throw e;
+		}
+	}
+
+	private void leaveBranch()
+	{
+		this.branchCheck.remove();
+
+		synchronized( this.monitor )
+		{
+			this.branchesRunning--;
+			this.monitor.notifyAll();
+		}
+	}
+
+	/**
+	 * Parks a branch while the job hands the time slice back to the main thread.
+	 */
+	private void pauseBranch() throws InterruptedException
+	{
+		if( this.pauseBranches || this.cancelled )
+		{
+			synchronized( this.monitor )
+			{
+				this.branchesRunning--;
+				this.monitor.notifyAll();
+
+				try
+				{
+					while( this.pauseBranches && !this.cancelled )
+					{
+						this.monitor.wait();
+					}
+				}
+				finally
+				{
+					this.branchesRunning++;
+				}
+			}
+
+			if( this.cancelled )
+			{
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	/**
+	 * Waits on the job thread until all branches are done, taking part in the handshake with the main thread
+	 * whenever the time slice runs out.
+	 */
+	private void awaitBranches( final List<ForkJoinTask<Void>> tasks ) throws InterruptedException
+	{
+		synchronized( this.monitor )
+		{
+			try
+			{
+				while( !isDone( tasks ) )
+				{
+					this.monitor.wait( 1 );
+
+					if( !isDone( tasks ) && this.watch.elapsed( TimeUnit.MICROSECONDS ) > this.time )
+					{
+						this.pauseBranches = true;
+
+						while( this.branchesRunning > 0 )
+						{
+							this.monitor.wait();
+						}
+
+						this.running = false;
+						this.watch.stop();
+						this.monitor.notifyAll();
+
+						while( !this.running )
+						{
+							this.monitor.wait();
+						}
+
+						this.pauseBranches = false;
+						this.monitor.notifyAll();
+					}
+				}
+			}
+			catch( final InterruptedException e )
+			{
+				this.cancelled = true;
+				this.monitor.notifyAll();
+
+				for( final ForkJoinTask<Void> task : tasks )
+				{
+					task.cancel( false );
+				}
+
+				// branches still inside the inventories stop at their next pause.
+				while( this.branchesRunning > 0 )
+				{
+					this.monitor.wait();
+				}
+
+				throw e;
+			}
+		}
+
+		if( Thread.interrupted() )
+		{
+			this.cancelled = true;
+			throw new InterruptedException();
+		}
+	}
+
+	private static boolean isDone( final List<ForkJoinTask<Void>> tasks )
+	{
+		for( final ForkJoinTask<Void> task : tasks )
+		{
+			if( !task.isDone() )
+			{
+				return false;
+			}
+		}
+
+		return true;
 	}
 
 	public void writeToNBT( final NBTTagCompound out )
@@ -144,6 +456,11 @@ public class CraftingJob implements Runnable, ICraftingJob
 				final MECraftingInventory craftingInventory = new MECraftingInventory( this.original, true, false, true );
 				craftingInventory.ignore( this.output );
 
+				if( AEConfig.instance().isParallelCraftingCalculation() )
+				{
+					this.getTree().warmUp( craftingInventory );
+				}
+
 				this.availableCheck = new MECraftingInventory( this.original, false, false, false );
 				this.getTree().request( craftingInventory, this.output.getStackSize(), this.actionSrc );
 				this.getTree().dive( this );
@@ -221,6 +538,12 @@ public class CraftingJob implements Runnable, ICraftingJob
 
 	void handlePausing() throws InterruptedException
 	{
+		if( this.branchCheck.get() != null )
+		{
+			this.pauseBranch();
+			return;
+		}
+
 		if( this.incTime > 100 )
 		{
 			this.incTime = 0;
@@ -231,7 +554,7 @@ public class CraftingJob implements Runnable, ICraftingJob
 				{
 					this.running = false;
 					this.watch.stop();
-					this.monitor.notify();
+					this.monitor.notifyAll();
 				}
 
 				if( !this.running )
@@ -268,7 +591,7 @@ public class CraftingJob implements Runnable, ICraftingJob
 		{
 			this.running = false;
 			this.done = true;
-			this.monitor.notify();
+			this.monitor.notifyAll();
 		}
 	}
 
@@ -333,7 +656,7 @@ public class CraftingJob implements Runnable, ICraftingJob
 
 			AELog.craftingDebug( "main thread is now going to sleep" );
 
-			this.monitor.notify();
+			this.monitor.notifyAll();
 
 			while( this.running )
 			{
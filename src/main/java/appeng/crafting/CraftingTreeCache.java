@@ -0,0 +1,82 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.crafting;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import appeng.api.networking.crafting.ICraftingGrid;
+import appeng.api.storage.data.IAEItemStack;
+
+
+/**
+ * Unrequested crafting trees of a grid by output, so repeated requests only redo the planning and not the pattern
+ * expansion.
+ *
+ * The cached trees only hold structure and are copied for each job. Everything is dropped as soon as the pattern
+ * version of the grid changes. Only used from the server thread.
+ */
+public final class CraftingTreeCache
+{
+
+	private static final int MAX_TREES = 32;
+
+	private final Map<IAEItemStack, CraftingTreeNode> trees = new LinkedHashMap<IAEItemStack, CraftingTreeNode>( 16, 0.75f, true )
+	{
+
+		private static final long serialVersionUID = 1825631712045627410L;
+
+		@Override
+		protected boolean removeEldestEntry( final Map.Entry<IAEItemStack, CraftingTreeNode> eldest )
+		{
+			return this.size() > MAX_TREES;
+		}
+	};
+
+	private int version = -1;
+
+	/**
+	 * @return a new tree for the job, copied from the cache when the patterns did not change since it was built.
+	 */
+	public CraftingTreeNode getTree( final ICraftingGrid cc, final int patternVersion, final CraftingJob job, final IAEItemStack what )
+	{
+		if( this.version != patternVersion )
+		{
+			this.trees.clear();
+			this.version = patternVersion;
+		}
+
+		final CraftingTreeNode cached = this.trees.get( what );
+
+		if( cached != null )
+		{
+			return new CraftingTreeNode( cached, job, null );
+		}
+
+		final CraftingTreeNode tree = new CraftingTreeNode( cc, job, what, null, -1, 0 );
+
+		// copied before the job touches it, without the job.
+		final IAEItemStack key = what.copy();
+		key.reset();
+		this.trees.put( key, new CraftingTreeNode( tree, null, null ) );
+
+		return tree;
+	}
+}
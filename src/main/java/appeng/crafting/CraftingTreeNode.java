@@ -36,6 +36,7 @@ import appeng.api.networking.crafting.ICraftingPatternDetails;
 import appeng.api.networking.security.BaseActionSource;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IItemList;
+import appeng.helpers.PatternHelper;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 
 
@@ -87,6 +88,25 @@ public class CraftingTreeNode
 		}
 	}
 
+	/**
+	 * Copies the structure of an unrequested tree, without looking up any patterns.
+	 */
+	CraftingTreeNode( final CraftingTreeNode template, final CraftingJob job, final CraftingTreeProcess par )
+	{
+		this.what = template.what.copy();
+		this.parent = par;
+		this.slot = template.slot;
+		this.world = job == null ? null : job.getWorld();
+		this.job = job;
+		this.sim = false;
+		this.canEmit = template.canEmit;
+
+		for( final CraftingTreeProcess pro : template.nodes )
+		{
+			this.nodes.add( new CraftingTreeProcess( pro, job, this ) );
+		}
+	}
+
 	boolean notRecursive( final ICraftingPatternDetails details )
 	{
 		IAEItemStack[] o = details.getCondensedOutputs();
@@ -127,17 +147,16 @@ public class CraftingTreeNode
 		if( this.getSlot() >= 0 && this.parent != null && this.parent.details.isCraftable() )
 		{
 			final Collection<IAEItemStack> itemList;
-			final IItemList<IAEItemStack> inventoryList = inv.getItemList();
 
 			if( this.parent.details.canSubstitute() )
 			{
-				itemList = inventoryList.findFuzzy( this.what, FuzzyMode.IGNORE_ALL );
+				itemList = inv.findFuzzy( this.what, FuzzyMode.IGNORE_ALL );
 			}
 			else
 			{
 				itemList = Lists.newArrayList();
 
-				final IAEItemStack item = inventoryList.findPrecise( this.what );
+				final IAEItemStack item = inv.findPrecise( this.what );
 
 				if( item != null )
 				{
@@ -252,12 +271,20 @@ public class CraftingTreeNode
 		{
 			for( final CraftingTreeProcess pro : this.nodes )
 			{
-				try
+				final long perCraft = pro.getAmountCrafted( this.what ).getStackSize();
+
+				// try everything at once and halve on failure, keeping the last size that worked.
+				long attempt = pro.getTimes( l, perCraft );
+
+				while( pro.possible && l > 0 && attempt > 0 )
 				{
-					while( pro.possible && l > 0 )
+					final CraftingTreeState state = new CraftingTreeState();
+					pro.saveState( state );
+
+					try
 					{
 						final MECraftingInventory subInv = new MECraftingInventory( inv, true, true, true );
-						pro.request( subInv, 1, src );
+						pro.request( subInv, attempt, src );
 
 						this.what.setStackSize( l );
 						final IAEItemStack available = subInv.extractItems( this.what, Actionable.MODULATE, src );
@@ -276,16 +303,19 @@ public class CraftingTreeNode
 							{
 								return available;
 							}
+
+							attempt = Math.min( attempt, pro.getTimes( l, perCraft ) );
 						}
 						else
 						{
 							pro.possible = false; // ;P
 						}
 					}
-				}
-				catch( final CraftBranchFailure fail )
-				{
-					pro.possible = true;
+					catch( final CraftBranchFailure fail )
+					{
+						pro.restoreState( state );
+						attempt /= 2;
+					}
 				}
 			}
 		}
@@ -309,6 +339,56 @@ public class CraftingTreeNode
 		throw new CraftBranchFailure( this.what, l );
 	}
 
+	void saveState( final CraftingTreeState state )
+	{
+		state.putLong( this.bytes );
+		state.putLong( this.missing );
+		state.putLong( this.howManyEmitted );
+		state.putBoolean( this.exhausted );
+		state.putList( this.used );
+
+		for( final CraftingTreeProcess pro : this.nodes )
+		{
+			pro.saveState( state );
+		}
+	}
+
+	void restoreState( final CraftingTreeState state )
+	{
+		this.bytes = (int) state.getLong();
+		this.missing = state.getLong();
+		this.howManyEmitted = state.getLong();
+		this.exhausted = state.getBoolean();
+
+		final IItemList<IAEItemStack> savedUsed = state.getList();
+
+		// hand back anything this node took from the job since the state was saved.
+		for( final IAEItemStack i : this.used )
+		{
+			final IAEItemStack before = savedUsed.findPrecise( i );
+			final long taken = i.getStackSize() - ( before == null ? 0 : before.getStackSize() );
+
+			if( taken > 0 )
+			{
+				final IAEItemStack o = i.copy();
+				o.setStackSize( taken );
+				this.job.refund( o );
+			}
+		}
+
+		this.used.resetStatus();
+
+		for( final IAEItemStack i : savedUsed )
+		{
+			this.used.add( i );
+		}
+
+		for( final CraftingTreeProcess pro : this.nodes )
+		{
+			pro.restoreState( state );
+		}
+	}
+
 	void dive( final CraftingJob job )
 	{
 		if( this.missing > 0 )
@@ -332,6 +412,25 @@ public class CraftingTreeNode
 		return is;
 	}
 
+	/**
+	 * Tests the stored substitutes for every slot up front, so parallel branches find them in the pattern's memo.
+	 */
+	void warmUp( final MECraftingInventory inv ) throws InterruptedException
+	{
+		// recipe matching is slow, keep to the time the job gets per tick.
+		this.job.handlePausing();
+
+		if( this.parent != null && this.parent.details.canSubstitute() && this.parent.details instanceof PatternHelper )
+		{
+			( (PatternHelper) this.parent.details ).warmUp( this.slot, inv.findFuzzy( this.what, FuzzyMode.IGNORE_ALL ), this.world );
+		}
+
+		for( final CraftingTreeProcess pro : this.nodes )
+		{
+			pro.warmUp( inv );
+		}
+	}
+
 	void setSimulate()
 	{
 		this.sim = true;
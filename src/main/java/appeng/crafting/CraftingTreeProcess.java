@@ -19,7 +19,7 @@
 package appeng.crafting;
 
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -47,7 +47,7 @@ public class CraftingTreeProcess
 	private final CraftingTreeNode parent;
 	final ICraftingPatternDetails details;
 	private final CraftingJob job;
-	private final Map<CraftingTreeNode, Long> nodes = new HashMap<CraftingTreeNode, Long>();
+	private final Map<CraftingTreeNode, Long> nodes = new LinkedHashMap<CraftingTreeNode, Long>();
 	private final int depth;
 	boolean possible = true;
 	private World world;
@@ -170,6 +170,25 @@ public class CraftingTreeProcess
 		}
 	}
 
+	/**
+	 * Copies the structure of an unrequested process, see {@link CraftingTreeNode}.
+	 */
+	CraftingTreeProcess( final CraftingTreeProcess template, final CraftingJob job, final CraftingTreeNode craftingTreeNode )
+	{
+		this.parent = craftingTreeNode;
+		this.details = template.details;
+		this.job = job;
+		this.depth = template.depth;
+		this.containerItems = template.containerItems;
+		this.limitQty = template.limitQty;
+		this.fullSimulation = template.fullSimulation;
+
+		for( final Entry<CraftingTreeNode, Long> entry : template.nodes.entrySet() )
+		{
+			this.nodes.put( new CraftingTreeNode( entry.getKey(), job, this ), entry.getValue() );
+		}
+	}
+
 	boolean notRecursive( final ICraftingPatternDetails details )
 	{
 		return this.parent == null || this.parent.notRecursive( details );
@@ -215,7 +234,7 @@ public class CraftingTreeProcess
 				}
 			}
 		}
-		else
+		else if( !this.requestBranches( inv, i, src ) )
 		{
 			// request and remove inputs...
 			for( final Entry<CraftingTreeNode, Long> entry : this.nodes.entrySet() )
@@ -249,6 +268,27 @@ public class CraftingTreeProcess
 		this.crafts += i;
 	}
 
+	/**
+	 * @return true if the inputs were requested in parallel, false if they still have to be requested.
+	 */
+	private boolean requestBranches( final MECraftingInventory inv, final long i, final BaseActionSource src ) throws InterruptedException
+	{
+		if( this.containerItems || this.nodes.size() < 2 || !this.job.canRequestBranches() )
+		{
+			return false;
+		}
+
+		final Map<CraftingTreeNode, Long> requests = new LinkedHashMap<CraftingTreeNode, Long>();
+
+		for( final Entry<CraftingTreeNode, Long> entry : this.nodes.entrySet() )
+		{
+			final IAEItemStack item = entry.getKey().getStack( entry.getValue() );
+			requests.put( entry.getKey(), item.getStackSize() * i );
+		}
+
+		return this.job.requestBranches( inv, requests, src );
+	}
+
 	void dive( final CraftingJob job )
 	{
 		job.addTask( this.getAmountCrafted( this.parent.getStack( 1 ) ), this.crafts, this.details, this.depth );
@@ -286,6 +326,38 @@ public class CraftingTreeProcess
 		throw new IllegalStateException( "Crafting Tree construction failed." );
 	}
 
+	void saveState( final CraftingTreeState state )
+	{
+		state.putLong( this.crafts );
+		state.putLong( this.bytes );
+		state.putBoolean( this.possible );
+
+		for( final CraftingTreeNode pro : this.nodes.keySet() )
+		{
+			pro.saveState( state );
+		}
+	}
+
+	void restoreState( final CraftingTreeState state )
+	{
+		this.crafts = state.getLong();
+		this.bytes = state.getLong();
+		this.possible = state.getBoolean();
+
+		for( final CraftingTreeNode pro : this.nodes.keySet() )
+		{
+			pro.restoreState( state );
+		}
+	}
+
+	void warmUp( final MECraftingInventory inv ) throws InterruptedException
+	{
+		for( final CraftingTreeNode pro : this.nodes.keySet() )
+		{
+			pro.warmUp( inv );
+		}
+	}
+
 	void setSimulate()
 	{
 		this.crafts = 0;
@@ -0,0 +1,80 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.crafting;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import appeng.api.AEApi;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+
+/**
+ * Planning state of a crafting sub tree, captured before a bulk request so it can be rolled back if that request
+ * fails half way through.
+ *
+ * Nodes and processes write and read their fields in the same traversal order.
+ */
+class CraftingTreeState
+{
+
+	private final List<Object> values = new ArrayList<Object>();
+	private int position = 0;
+
+	void putLong( final long value )
+	{
+		this.values.add( value );
+	}
+
+	void putBoolean( final boolean value )
+	{
+		this.values.add( value );
+	}
+
+	void putList( final IItemList<IAEItemStack> list )
+	{
+		final IItemList<IAEItemStack> copy = AEApi.instance().storage().createItemList();
+
+		for( final IAEItemStack is : list )
+		{
+			copy.add( is.copy() );
+		}
+
+		this.values.add( copy );
+	}
+
+	long getLong()
+	{
+		return (Long) this.values.get( this.position++ );
+	}
+
+	boolean getBoolean()
+	{
+		return (Boolean) this.values.get( this.position++ );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	IItemList<IAEItemStack> getList()
+	{
+		return (IItemList<IAEItemStack>) this.values.get( this.position++ );
+	}
+}
@@ -19,8 +19,14 @@
 package appeng.crafting;
 
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import appeng.api.AEApi;
 import appeng.api.config.Actionable;
+import appeng.api.config.FuzzyMode;
 import appeng.api.networking.security.BaseActionSource;
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEMonitor;
@@ -30,6 +36,13 @@ import appeng.api.storage.data.IItemList;
 import appeng.util.inv.ItemListIgnoreCrafting;
 
 
+/**
+ * Inventory used while planning and submitting crafting jobs.
+ *
+ * Inventories stacked on top of another crafting inventory or on a network monitor only hold the items touched
+ * through them, copied on first use. Everything else is read from the layer below, and from the network's cached list
+ * at the bottom, so a branch costs memory for the items it uses rather than for every item of the network.
+ */
 public class MECraftingInventory implements IMEInventory<IAEItemStack>
 {
 
@@ -38,6 +51,14 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 	private final IMEInventory<IAEItemStack> target;
 	private final IItemList<IAEItemStack> localCache;
 
+	// true if localCache holds everything, otherwise it only holds what was touched so far.
+	private final boolean complete;
+	// the layer untouched items are read from.
+	private final MECraftingInventory lower;
+	// the network untouched items are read from, at the bottom of the layers.
+	private final IMEMonitor<IAEItemStack> monitor;
+	private final BaseActionSource src;
+
 	private final boolean logExtracted;
 	private final IItemList<IAEItemStack> extractedCache;
 
@@ -47,6 +68,10 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 	private final boolean logMissing;
 	private final IItemList<IAEItemStack> missingCache;
 
+	// bumped on every change, so callers can tell if a previous lookup may be outdated.
+	private int injections = 0;
+	private int extractions = 0;
+
 	public MECraftingInventory()
 	{
 		this.localCache = new ItemListIgnoreCrafting<>( AEApi.instance().storage().createItemList() );
@@ -58,6 +83,10 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 		this.logMissing = false;
 		this.target = null;
 		this.par = null;
+		this.complete = true;
+		this.lower = null;
+		this.monitor = null;
+		this.src = null;
 	}
 
 	public MECraftingInventory( final MECraftingInventory parent )
@@ -94,7 +123,11 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 			this.injectedCache = null;
 		}
 
-		this.localCache = this.target.getAvailableItems( new ItemListIgnoreCrafting<>( AEApi.instance().storage().createItemList() ) );
+		this.localCache = new ItemListIgnoreCrafting<>( AEApi.instance().storage().createItemList() );
+		this.complete = false;
+		this.lower = parent;
+		this.monitor = null;
+		this.src = null;
 
 		this.par = parent;
 	}
@@ -133,11 +166,12 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 			this.injectedCache = null;
 		}
 
+		// filled from target.getStorageList() as items are asked for.
 		this.localCache = new ItemListIgnoreCrafting<>( AEApi.instance().storage().createItemList() );
-		for( final IAEItemStack is : target.getStorageList() )
-		{
-			this.localCache.add( target.extractItems( is, Actionable.SIMULATE, src ) );
-		}
+		this.complete = false;
+		this.lower = null;
+		this.monitor = target;
+		this.src = src;
 
 		this.par = null;
 	}
@@ -176,7 +210,21 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 			this.injectedCache = null;
 		}
 
-		this.localCache = target.getAvailableItems( AEApi.instance().storage().createItemList() );
+		if( target instanceof MECraftingInventory )
+		{
+			this.localCache = new ItemListIgnoreCrafting<>( AEApi.instance().storage().createItemList() );
+			this.complete = false;
+			this.lower = (MECraftingInventory) target;
+		}
+		else
+		{
+			this.localCache = target.getAvailableItems( AEApi.instance().storage().createItemList() );
+			this.complete = true;
+			this.lower = null;
+		}
+
+		this.monitor = null;
+		this.src = null;
 		this.par = null;
 	}
 
@@ -190,10 +238,15 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 
 		if( mode == Actionable.MODULATE )
 		{
+			this.injections++;
+
 			if( this.logInjections )
 			{
 				this.injectedCache.add( input );
 			}
+
+			// copy what is below first, the injected items add to it.
+			this.getLocal( input );
 			this.localCache.add( input );
 		}
 
@@ -208,7 +261,7 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 			return null;
 		}
 
-		final IAEItemStack list = this.localCache.findPrecise( request );
+		final IAEItemStack list = this.getLocal( request );
 		if( list == null || list.getStackSize() == 0 )
 		{
 			return null;
@@ -218,6 +271,7 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 		{
 			if( mode == Actionable.MODULATE )
 			{
+				this.extractions++;
 				list.decStackSize( request.getStackSize() );
 				if( this.logExtracted )
 				{
@@ -233,6 +287,7 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 
 		if( mode == Actionable.MODULATE )
 		{
+			this.extractions++;
 			list.reset();
 			if( this.logExtracted )
 			{
@@ -246,9 +301,29 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 	@Override
 	public IItemList<IAEItemStack> getAvailableItems( final IItemList<IAEItemStack> out )
 	{
-		for( final IAEItemStack is : this.localCache )
+		if( this.complete )
 		{
-			out.add( is );
+			for( final IAEItemStack is : this.localCache )
+			{
+				out.add( is );
+			}
+
+			return out;
+		}
+
+		final Set<IAEItemStack> types = new HashSet<IAEItemStack>();
+		this.collectTypes( types );
+
+		for( final IAEItemStack type : types )
+		{
+			final long available = this.getAvailable( type );
+
+			if( available > 0 )
+			{
+				final IAEItemStack is = type.copy();
+				is.setStackSize( available );
+				out.add( is );
+			}
 		}
 
 		return out;
@@ -260,11 +335,70 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 		return StorageChannel.ITEMS;
 	}
 
+	/**
+	 * @return the items held by this inventory itself, which is everything only if it is not stacked on another
+	 * inventory or a network.
+	 */
 	public IItemList<IAEItemStack> getItemList()
 	{
 		return this.localCache;
 	}
 
+	/**
+	 * @return how often items were injected, a lookup which came up short can only change once this does
+	 */
+	public int getInjectionCount()
+	{
+		return this.injections;
+	}
+
+	/**
+	 * @return how often items were extracted, a lookup which succeeded can only change once this does
+	 */
+	public int getExtractionCount()
+	{
+		return this.extractions;
+	}
+
+	/**
+	 * @return the item as available in this inventory, or null if it never was
+	 */
+	public IAEItemStack findPrecise( final IAEItemStack what )
+	{
+		return this.getLocal( what );
+	}
+
+	/**
+	 * @return every item of this inventory and the layers below it which fuzzy matches
+	 */
+	public Collection<IAEItemStack> findFuzzy( final IAEItemStack what, final FuzzyMode mode )
+	{
+		if( this.complete )
+		{
+			return this.localCache.findFuzzy( what, mode );
+		}
+
+		final Set<IAEItemStack> types = new HashSet<IAEItemStack>();
+		this.collectFuzzy( what, mode, types );
+
+		if( types.isEmpty() )
+		{
+			return Collections.emptyList();
+		}
+
+		// sorted the same way a full list of this inventory would be.
+		final IItemList<IAEItemStack> found = AEApi.instance().storage().createItemList();
+		for( final IAEItemStack type : types )
+		{
+			final IAEItemStack is = type.copy();
+			is.reset();
+			is.setStackSize( this.getAvailable( type ) );
+			found.add( is );
+		}
+
+		return found.findFuzzy( what, mode );
+	}
+
 	public boolean commit( final BaseActionSource src )
 	{
 		final IItemList<IAEItemStack> added = AEApi.instance().storage().createItemList();
@@ -344,10 +478,97 @@ public class MECraftingInventory implements IMEInventory<IAEItemStack>
 
 	void ignore( final IAEItemStack what )
 	{
-		final IAEItemStack list = this.localCache.findPrecise( what );
+		final IAEItemStack list = this.getLocal( what );
 		if( list != null )
 		{
 			list.setStackSize( 0 );
 		}
 	}
+
+	/**
+	 * @return the entry of this layer for the item, copied from below the first time it is touched.
+	 *
+	 * Synchronized like the other lookups, parallel crafting branches share the layers below their own.
+	 */
+	private synchronized IAEItemStack getLocal( final IAEItemStack what )
+	{
+		final IAEItemStack list = this.localCache.findPrecise( what );
+
+		if( list != null || this.complete )
+		{
+			return list;
+		}
+
+		final IAEItemStack copy = what.copy();
+		copy.reset();
+		copy.setStackSize( this.getAvailableBelow( what ) );
+		this.localCache.add( copy );
+
+		return this.localCache.findPrecise( what );
+	}
+
+	private synchronized long getAvailable( final IAEItemStack what )
+	{
+		final IAEItemStack list = this.localCache.findPrecise( what );
+
+		if( list != null || this.complete )
+		{
+			return list == null ? 0 : list.getStackSize();
+		}
+
+		return this.getAvailableBelow( what );
+	}
+
+	private long getAvailableBelow( final IAEItemStack what )
+	{
+		if( this.lower != null )
+		{
+			// cached in the layer below, so the network is only asked once per item.
+			final IAEItemStack list = this.lower.getLocal( what );
+			return list == null ? 0 : list.getStackSize();
+		}
+
+		final IAEItemStack stored = this.monitor.getStorageList().findPrecise( what );
+		if( stored == null )
+		{
+			return 0;
+		}
+
+		final IAEItemStack available = this.monitor.extractItems( stored, Actionable.SIMULATE, this.src );
+		return available == null ? 0 : available.getStackSize();
+	}
+
+	private synchronized void collectTypes( final Set<IAEItemStack> types )
+	{
+		for( final IAEItemStack is : this.localCache )
+		{
+			types.add( is );
+		}
+
+		if( this.lower != null )
+		{
+			this.lower.collectTypes( types );
+		}
+		else if( this.monitor != null )
+		{
+			for( final IAEItemStack is : this.monitor.getStorageList() )
+			{
+				types.add( is );
+			}
+		}
+	}
+
+	private synchronized void collectFuzzy( final IAEItemStack what, final FuzzyMode mode, final Set<IAEItemStack> types )
+	{
+		types.addAll( this.localCache.findFuzzy( what, mode ) );
+
+		if( this.lower != null )
+		{
+			this.lower.collectFuzzy( what, mode, types );
+		}
+		else if( this.monitor != null )
+		{
+			types.addAll( this.monitor.getStorageList().findFuzzy( what, mode ) );
+		}
+	}
 }
@@ -21,10 +21,12 @@ package appeng.helpers;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.item.Item;
@@ -47,163 +49,85 @@ import appeng.util.item.AEItemStack;
 public class PatternHelper implements ICraftingPatternDetails, Comparable<PatternHelper>
 {
 
+	/**
+	 * Decoded pattern contents, weakly keyed by the identity of the pattern's NBT tag.
+	 */
+	private static final Cache<NBTTagCompound, Decoded> DECODED = CacheBuilder.newBuilder().weakKeys().<NBTTagCompound, Decoded>build();
+	private static int recipeCount = -1;
+
 	private final ItemStack patternItem;
-	private final InventoryCrafting crafting = new InventoryCrafting( new ContainerNull(), 3, 3 );
-	private final InventoryCrafting testFrame = new InventoryCrafting( new ContainerNull(), 3, 3 );
-	private final ItemStack correctOutput;
-	private final IRecipe standardRecipe;
-	private final IAEItemStack[] condensedInputs;
-	private final IAEItemStack[] condensedOutputs;
-	private final IAEItemStack[] inputs;
-	private final IAEItemStack[] outputs;
-	private final boolean isCrafting;
-	private final boolean canSubstitute;
-	private final Set<TestLookup> failCache = new HashSet<TestLookup>();
-	private final Set<TestLookup> passCache = new HashSet<TestLookup>();
 	private final IAEItemStack pattern;
+	private final Decoded decoded;
 	private int priority = 0;
 
 	public PatternHelper( final ItemStack is, final World w )
 	{
-		final NBTTagCompound encodedValue = is.getTagCompound();
-
-		if( encodedValue == null )
-		{
-			throw new IllegalArgumentException( "No pattern here!" );
-		}
-
-		final NBTTagList inTag = encodedValue.getTagList( "in", 10 );
-		final NBTTagList outTag = encodedValue.getTagList( "out", 10 );
-		this.isCrafting = encodedValue.getBoolean( "crafting" );
+		this( is, new Decoded( is.getTagCompound(), w ) );
+	}
 
-		this.canSubstitute = this.isCrafting && encodedValue.getBoolean( "substitute" );
+	private PatternHelper( final ItemStack is, final Decoded decoded )
+	{
 		this.patternItem = is;
 		this.pattern = AEItemStack.create( is );
+		this.decoded = decoded;
+	}
 
-		final List<IAEItemStack> in = new ArrayList<IAEItemStack>();
-		final List<IAEItemStack> out = new ArrayList<IAEItemStack>();
-
-		for( int x = 0; x < inTag.tagCount(); x++ )
-		{
-			final ItemStack gs = new ItemStack( inTag.getCompoundTagAt( x ) );
-
-			this.crafting.setInventorySlotContents( x, gs );
-
-			if(!gs.isEmpty() && (!this.isCrafting || !gs.hasTagCompound()) )
-			{
-				this.markItemAs( x, gs, TestStatus.ACCEPT );
-			}
-
-			in.add( AEApi.instance().storage().createItemStack( gs ) );
-			this.testFrame.setInventorySlotContents( x, gs );
-		}
-
-		if( this.isCrafting )
-		{
-			this.standardRecipe = Platform.findMatchingRecipe( this.crafting, w );
+	/**
+	 * Returns the details for a pattern, reusing the decoded contents as long as its NBT tag and the recipe list are
+	 * unchanged.
+	 *
+	 * @return null if the stack does not contain a valid pattern
+	 */
+	public static PatternHelper getPattern( final ItemStack is, final World w )
+	{
+		final NBTTagCompound encodedValue = is.getTagCompound();
 
-			if( this.standardRecipe != null )
-			{
-				this.correctOutput = this.standardRecipe.getCraftingResult( this.crafting );
-				out.add( AEApi.instance().storage().createItemStack( this.correctOutput ) );
-			}
-			else
-			{
-				throw new IllegalStateException( "No pattern here!" );
-			}
-		}
-		else
+		if( encodedValue == null )
 		{
-			this.standardRecipe = null;
-			this.correctOutput = ItemStack.EMPTY;
-
-			for( int x = 0; x < outTag.tagCount(); x++ )
-			{
-				final ItemStack gs = new ItemStack( outTag.getCompoundTagAt( x ) );
-
-				if (!gs.isEmpty()) {
-					out.add(AEApi.instance().storage().createItemStack(gs));
-				}
-			}
+			return null;
 		}
 
-		this.outputs = out.toArray( new IAEItemStack[out.size()] );
-		this.inputs = in.toArray( new IAEItemStack[in.size()] );
+		final int recipes = CraftingManager.getInstance().getRecipeList().size();
 
-		final Map<IAEItemStack, IAEItemStack> tmpOutputs = new HashMap<IAEItemStack, IAEItemStack>();
-
-		for( final IAEItemStack io : this.outputs )
+		synchronized( DECODED )
 		{
-			if( io == null )
-			{
-				continue;
-			}
-
-			final IAEItemStack g = tmpOutputs.get( io );
-
-			if( g == null )
-			{
-				tmpOutputs.put( io, io.copy() );
-			}
-			else
+			if( recipes != recipeCount )
 			{
-				g.add( io );
+				DECODED.invalidateAll();
+				recipeCount = recipes;
 			}
 		}
 
-		final Map<IAEItemStack, IAEItemStack> tmpInputs = new HashMap<IAEItemStack, IAEItemStack>();
+		Decoded decoded = DECODED.getIfPresent( encodedValue );
 
-		for( final IAEItemStack io : this.inputs )
+		// the tag might have been edited in place since it was decoded.
+		if( decoded == null || !decoded.source.equals( encodedValue ) )
 		{
-			if( io == null )
-			{
-				continue;
-			}
-
-			final IAEItemStack g = tmpInputs.get( io );
-
-			if( g == null )
+			try
 			{
-				tmpInputs.put( io, io.copy() );
+				decoded = new Decoded( encodedValue, w );
 			}
-			else
+			catch( final RuntimeException e )
 			{
-				g.add( io );
+				decoded = new Decoded( encodedValue );
 			}
-		}
 
-		if( tmpOutputs.isEmpty() || tmpInputs.isEmpty() )
-		{
-			throw new IllegalStateException( "No pattern here!" );
-		}
-
-		this.condensedInputs = new IAEItemStack[tmpInputs.size()];
-		int offset = 0;
-
-		for( final IAEItemStack io : tmpInputs.values() )
-		{
-			this.condensedInputs[offset] = io;
-			offset++;
+			DECODED.put( encodedValue, decoded );
 		}
 
-		offset = 0;
-		this.condensedOutputs = new IAEItemStack[tmpOutputs.size()];
-
-		for( final IAEItemStack io : tmpOutputs.values() )
-		{
-			this.condensedOutputs[offset] = io;
-			offset++;
-		}
+		return decoded.valid ? new PatternHelper( is, decoded ) : null;
 	}
 
-	private void markItemAs( final int slotIndex, final ItemStack i, final TestStatus b )
+	/**
+	 * Drops all decoded patterns, needed whenever recipes or item ids may have changed.
+	 */
+	public static void invalidateCache()
 	{
-		if( b == TestStatus.TEST || i.hasTagCompound() )
+		synchronized( DECODED )
 		{
-			return;
+			DECODED.invalidateAll();
+			recipeCount = -1;
 		}
-
-		( b == TestStatus.ACCEPT ? this.passCache : this.failCache ).add( new TestLookup( slotIndex, i ) );
 	}
 
 	@Override
@@ -213,100 +137,77 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 	}
 
 	@Override
-	public synchronized boolean isValidItemForSlot( final int slotIndex, final ItemStack i, final World w )
+	public boolean isValidItemForSlot( final int slotIndex, final ItemStack i, final World w )
 	{
-		if( !this.isCrafting )
+		if( !this.decoded.isCrafting )
 		{
 			throw new IllegalStateException( "Only crafting recipes supported." );
 		}
 
-		final TestStatus result = this.getStatus( slotIndex, i );
-
-		switch( result )
-		{
-			case ACCEPT:
-				return true;
-			case DECLINE:
-				return false;
-			case TEST:
-			default:
-				break;
-		}
+		return this.decoded.isValidItemForSlot( slotIndex, i, w );
+	}
 
-		for( int x = 0; x < this.crafting.getSizeInventory(); x++ )
+	/**
+	 * Tests the given candidates for a slot up front, so calculations only need to look the results up.
+	 */
+	public void warmUp( final int slotIndex, final Iterable<IAEItemStack> candidates, final World w )
+	{
+		if( !this.decoded.isCrafting )
 		{
-			this.testFrame.setInventorySlotContents( x, this.crafting.getStackInSlot( x ) );
+			return;
 		}
 
-		this.testFrame.setInventorySlotContents( slotIndex, i );
-
-		if( this.standardRecipe.matches( this.testFrame, w ) )
+		for( final IAEItemStack candidate : candidates )
 		{
-			final ItemStack testOutput = this.standardRecipe.getCraftingResult( this.testFrame );
+			final ItemStack is = candidate.getItemStack();
 
-			if( Platform.itemComparisons().isSameItem( this.correctOutput, testOutput ) )
+			if( !is.hasTagCompound() )
 			{
-				this.testFrame.setInventorySlotContents( slotIndex, this.crafting.getStackInSlot( slotIndex ) );
-				this.markItemAs( slotIndex, i, TestStatus.ACCEPT );
-				return true;
+				this.decoded.isValidItemForSlot( slotIndex, is, w );
 			}
 		}
-		else
-		{
-			final ItemStack testOutput = CraftingManager.getInstance().findMatchingRecipe( this.testFrame, w );
-
-			if( Platform.itemComparisons().isSameItem( this.correctOutput, testOutput ) )
-			{
-				this.testFrame.setInventorySlotContents( slotIndex, this.crafting.getStackInSlot( slotIndex ) );
-				this.markItemAs( slotIndex, i, TestStatus.ACCEPT );
-				return true;
-			}
-		}
-
-		this.markItemAs( slotIndex, i, TestStatus.DECLINE );
-		return false;
 	}
 
 	@Override
 	public boolean isCraftable()
 	{
-		return this.isCrafting;
+		return this.decoded.isCrafting;
 	}
 
 	@Override
 	public IAEItemStack[] getInputs()
 	{
-		return this.inputs;
+		return this.decoded.inputs;
 	}
 
 	@Override
 	public IAEItemStack[] getCondensedInputs()
 	{
-		return this.condensedInputs;
+		return this.decoded.condensedInputs;
 	}
 
 	@Override
 	public IAEItemStack[] getCondensedOutputs()
 	{
-		return this.condensedOutputs;
+		return this.decoded.condensedOutputs;
 	}
 
 	@Override
 	public IAEItemStack[] getOutputs()
 	{
-		return this.outputs;
+		return this.decoded.outputs;
 	}
 
 	@Override
 	public boolean canSubstitute()
 	{
-		return this.canSubstitute;
+		return this.decoded.canSubstitute;
 	}
 
 	@Override
 	public ItemStack getOutput( final InventoryCrafting craftingInv, final World w )
 	{
-		if( !this.isCrafting )
+		if( !this.decoded.isCrafting )
 		{
 			throw new IllegalStateException( "Only crafting recipes supported." );
 		}
@@ -319,42 +220,14 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 			}
 		}
 
-		if( this.outputs != null && this.outputs.length > 0 )
+		if( this.decoded.outputs != null && this.decoded.outputs.length > 0 )
 		{
-			return this.outputs[0].getItemStack();
+			return this.decoded.outputs[0].getItemStack();
 		}
 
 		return ItemStack.EMPTY;
 	}
 
-	private TestStatus getStatus( final int slotIndex, final ItemStack i )
-	{
-		if (this.crafting.getStackInSlot(slotIndex).isEmpty()) {
-			return i.isEmpty() ? TestStatus.ACCEPT : TestStatus.DECLINE;
-		}
-
-		if (i.isEmpty()) {
-			return TestStatus.DECLINE;
-		}
-
-		if( i.hasTagCompound() )
-		{
-			return TestStatus.TEST;
-		}
-
-		if( this.passCache.contains( new TestLookup( slotIndex, i ) ) )
-		{
-			return TestStatus.ACCEPT;
-		}
-
-		if( this.failCache.contains( new TestLookup( slotIndex, i ) ) )
-		{
-			return TestStatus.DECLINE;
-		}
-
-		return TestStatus.TEST;
-	}
-
 	@Override
 	public int getPriority()
 	{
@@ -405,6 +278,263 @@ public class PatternHelper implements ICraftingPatternDetails, Comparable<Patter
 		ACCEPT, DECLINE, TEST
 	}
 
+	/**
+	 * The parts of a pattern which only depend on its NBT, shared by every {@link PatternHelper} created for it.
+	 */
+	private static final class Decoded
+	{
+
+		private static final ThreadLocal<InventoryCrafting> TEST_FRAME = new ThreadLocal<InventoryCrafting>()
+		{
+			@Override
+			protected InventoryCrafting initialValue()
+			{
+				return new InventoryCrafting( new ContainerNull(), 3, 3 );
+			}
+		};
+
+		private final NBTTagCompound source;
+		private final boolean valid;
+		private final InventoryCrafting crafting = new InventoryCrafting( new ContainerNull(), 3, 3 );
+		private final ItemStack correctOutput;
+		private final IRecipe standardRecipe;
+		private final IAEItemStack[] condensedInputs;
+		private final IAEItemStack[] condensedOutputs;
+		private final IAEItemStack[] inputs;
+		private final IAEItemStack[] outputs;
+		private final boolean isCrafting;
+		private final boolean canSubstitute;
+		/**
+		 * Results of substitution tests, entries are never changed once published.
+		 */
+		private final Map<TestLookup, TestStatus> memo = new ConcurrentHashMap<TestLookup, TestStatus>();
+
+		/**
+		 * Marks a tag which does not hold a valid pattern.
+		 */
+		private Decoded( final NBTTagCompound encodedValue )
+		{
+			this.source = encodedValue.copy();
+			this.valid = false;
+			this.correctOutput = ItemStack.EMPTY;
+			this.standardRecipe = null;
+			this.condensedInputs = null;
+			this.condensedOutputs = null;
+			this.inputs = null;
+			this.outputs = null;
+			this.isCrafting = false;
+			this.canSubstitute = false;
+		}
+
+		private Decoded( final NBTTagCompound encodedValue, final World w )
+		{
+			if( encodedValue == null )
+			{
+				throw new IllegalArgumentException( "No pattern here!" );
+			}
+
+			final NBTTagList inTag = encodedValue.getTagList( "in", 10 );
+			final NBTTagList outTag = encodedValue.getTagList( "out", 10 );
+			this.isCrafting = encodedValue.getBoolean( "crafting" );
+
+			this.canSubstitute = this.isCrafting && encodedValue.getBoolean( "substitute" );
+			this.source = encodedValue.copy();
+			this.valid = true;
+
+			final List<IAEItemStack> in = new ArrayList<IAEItemStack>();
+			final List<IAEItemStack> out = new ArrayList<IAEItemStack>();
+
+			for( int x = 0; x < inTag.tagCount(); x++ )
+			{
+				final ItemStack gs = new ItemStack( inTag.getCompoundTagAt( x ) );
+
+				this.crafting.setInventorySlotContents( x, gs );
+
+				if(!gs.isEmpty() && (!this.isCrafting || !gs.hasTagCompound()) )
+				{
+					this.markItemAs( x, gs, TestStatus.ACCEPT );
+				}
+
+				in.add( AEApi.instance().storage().createItemStack( gs ) );
+			}
+
+			if( this.isCrafting )
+			{
+				this.standardRecipe = Platform.findMatchingRecipe( this.crafting, w );
+
+				if( this.standardRecipe != null )
+				{
+					this.correctOutput = this.standardRecipe.getCraftingResult( this.crafting );
+					out.add( AEApi.instance().storage().createItemStack( this.correctOutput ) );
+				}
+				else
+				{
+					throw new IllegalStateException( "No pattern here!" );
+				}
+			}
+			else
+			{
+				this.standardRecipe = null;
+				this.correctOutput = ItemStack.EMPTY;
+
+				for( int x = 0; x < outTag.tagCount(); x++ )
+				{
+					final ItemStack gs = new ItemStack( outTag.getCompoundTagAt( x ) );
+
+					if (!gs.isEmpty()) {
+						out.add(AEApi.instance().storage().createItemStack(gs));
+					}
+				}
+			}
+
+			this.outputs = out.toArray( new IAEItemStack[out.size()] );
+			this.inputs = in.toArray( new IAEItemStack[in.size()] );
+
+			final Map<IAEItemStack, IAEItemStack> tmpOutputs = new HashMap<IAEItemStack, IAEItemStack>();
+
+			for( final IAEItemStack io : this.outputs )
+			{
+				if( io == null )
+				{
+					continue;
+				}
+
+				final IAEItemStack g = tmpOutputs.get( io );
+
+				if( g == null )
+				{
+					tmpOutputs.put( io, io.copy() );
+				}
+				else
+				{
+					g.add( io );
+				}
+			}
+
+			final Map<IAEItemStack, IAEItemStack> tmpInputs = new HashMap<IAEItemStack, IAEItemStack>();
+
+			for( final IAEItemStack io : this.inputs )
+			{
+				if( io == null )
+				{
+					continue;
+				}
+
+				final IAEItemStack g = tmpInputs.get( io );
+
+				if( g == null )
+				{
+					tmpInputs.put( io, io.copy() );
+				}
+				else
+				{
+					g.add( io );
+				}
+			}
+
+			if( tmpOutputs.isEmpty() || tmpInputs.isEmpty() )
+			{
+				throw new IllegalStateException( "No pattern here!" );
+			}
+
+			this.condensedInputs = new IAEItemStack[tmpInputs.size()];
+			int offset = 0;
+
+			for( final IAEItemStack io : tmpInputs.values() )
+			{
+				this.condensedInputs[offset] = io;
+				offset++;
+			}
+
+			offset = 0;
+			this.condensedOutputs = new IAEItemStack[tmpOutputs.size()];
+
+			for( final IAEItemStack io : tmpOutputs.values() )
+			{
+				this.condensedOutputs[offset] = io;
+				offset++;
+			}
+		}
+
+		private void markItemAs( final int slotIndex, final ItemStack i, final TestStatus b )
+		{
+			if( b == TestStatus.TEST || i.hasTagCompound() )
+			{
+				return;
+			}
+
+			this.memo.putIfAbsent( new TestLookup( slotIndex, i ), b );
+		}
+
+		private boolean isValidItemForSlot( final int slotIndex, final ItemStack i, final World w )
+		{
+			final TestStatus result = this.getStatus( slotIndex, i );
+
+			switch( result )
+			{
+				case ACCEPT:
+					return true;
+				case DECLINE:
+					return false;
+				case TEST:
+				default:
+					break;
+			}
+
+			final InventoryCrafting testFrame = TEST_FRAME.get();
+
+			for( int x = 0; x < this.crafting.getSizeInventory(); x++ )
+			{
+				testFrame.setInventorySlotContents( x, this.crafting.getStackInSlot( x ) );
+			}
+
+			testFrame.setInventorySlotContents( slotIndex, i );
+
+			if( this.standardRecipe.matches( testFrame, w ) )
+			{
+				final ItemStack testOutput = this.standardRecipe.getCraftingResult( testFrame );
+
+				if( Platform.itemComparisons().isSameItem( this.correctOutput, testOutput ) )
+				{
+					this.markItemAs( slotIndex, i, TestStatus.ACCEPT );
+					return true;
+				}
+			}
+			else
+			{
+				final ItemStack testOutput = CraftingManager.getInstance().findMatchingRecipe( testFrame, w );
+
+				if( Platform.itemComparisons().isSameItem( this.correctOutput, testOutput ) )
+				{
+					this.markItemAs( slotIndex, i, TestStatus.ACCEPT );
+					return true;
+				}
+			}
+
+			this.markItemAs( slotIndex, i, TestStatus.DECLINE );
+			return false;
+		}
+
+		private TestStatus getStatus( final int slotIndex, final ItemStack i )
+		{
+			if (this.crafting.getStackInSlot(slotIndex).isEmpty()) {
+				return i.isEmpty() ? TestStatus.ACCEPT : TestStatus.DECLINE;
+			}
+
+			if (i.isEmpty()) {
+				return TestStatus.DECLINE;
+			}
+
+			if( i.hasTagCompound() )
+			{
+				return TestStatus.TEST;
+			}
+
+			final TestStatus known = this.memo.get( new TestLookup( slotIndex, i ) );
+			return known == null ? TestStatus.TEST : known;
+		}
+	}
+
 	private static final class TestLookup
 	{
 
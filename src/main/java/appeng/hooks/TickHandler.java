@@ -51,6 +51,8 @@ import appeng.core.sync.packets.PacketPaintedEntity;
 import appeng.crafting.CraftingJob;
 import appeng.me.Grid;
 import appeng.me.NetworkList;
+import appeng.me.cache.helpers.TickProfiler;
+import appeng.me.storage.CellInventory;
 import appeng.tile.AEBaseTile;
 import appeng.util.IWorldCallable;
 import appeng.util.Platform;
@@ -236,8 +238,13 @@ public class TickHandler
 				g.update();
 			}
 
+			TickProfiler.onServerTick();
+
 			// cross world queue.
 			this.processQueue( this.serverQueue, null );
+
+			// write-behind cell saves.
+			CellInventory.flushPendingSaves();
 		}
 
 		// world synced queue(s)
@@ -43,6 +43,7 @@ import appeng.integration.modules.theoneprobe.part.P2PStateInfoProvider;
 import appeng.integration.modules.theoneprobe.part.PartAccessor;
 import appeng.integration.modules.theoneprobe.part.PowerStateInfoProvider;
 import appeng.integration.modules.theoneprobe.part.StorageMonitorInfoProvider;
+import appeng.integration.modules.theoneprobe.part.TickTimeInfoProvider;
 
 
 public final class PartInfoProvider implements IProbeInfoProvider
@@ -58,8 +59,9 @@ public final class PartInfoProvider implements IProbeInfoProvider
 		final IPartProbInfoProvider storageMonitor = new StorageMonitorInfoProvider();
 		final IPartProbInfoProvider p2p = new P2PStateInfoProvider();
 		final IPartProbInfoProvider names = new CustomNameProvider();
+		final IPartProbInfoProvider tickTime = new TickTimeInfoProvider();
 
-		this.providers = Lists.newArrayList( names, channel, power, p2p, storageMonitor );
+		this.providers = Lists.newArrayList( names, channel, power, p2p, storageMonitor, tickTime );
 	}
 
 	@Override
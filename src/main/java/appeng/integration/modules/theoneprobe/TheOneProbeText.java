@@ -44,7 +44,9 @@ public enum TheOneProbeText
 	CONTAINS,
 	CHANNELS,
 
-	STORED_ENERGY;
+	STORED_ENERGY,
+
+	TICK_TIME;
 
 	private final String root;
 
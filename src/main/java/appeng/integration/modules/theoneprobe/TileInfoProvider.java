@@ -40,6 +40,7 @@ import appeng.integration.modules.theoneprobe.tile.CustomNameProvider;
 import appeng.integration.modules.theoneprobe.tile.ITileProbInfoProvider;
 import appeng.integration.modules.theoneprobe.tile.PowerStateInfoProvider;
 import appeng.integration.modules.theoneprobe.tile.PowerStorageInfoProvider;
+import appeng.integration.modules.theoneprobe.tile.TickTimeInfoProvider;
 import appeng.tile.AEBaseTile;
 
 
@@ -54,8 +55,9 @@ public final class TileInfoProvider implements IProbeInfoProvider
 		final ITileProbInfoProvider craftingBlock = new PowerStateInfoProvider();
 		final ITileProbInfoProvider craftingMonitor = new PowerStorageInfoProvider();
 		final ITileProbInfoProvider names = new CustomNameProvider();
+		final ITileProbInfoProvider tickTime = new TickTimeInfoProvider();
 
-		this.providers = Lists.newArrayList( names, charger, energyCell, craftingBlock, craftingMonitor );
+		this.providers = Lists.newArrayList( names, charger, energyCell, craftingBlock, craftingMonitor, tickTime );
 	}
 
 	@Override
@@ -0,0 +1,52 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.integration.modules.theoneprobe.part;
+
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+
+import mcjty.theoneprobe.api.IProbeHitData;
+import mcjty.theoneprobe.api.IProbeInfo;
+import mcjty.theoneprobe.api.ProbeMode;
+
+import appeng.api.parts.IPart;
+import appeng.integration.modules.theoneprobe.TheOneProbeText;
+import appeng.me.cache.helpers.TickProfiler;
+
+
+public class TickTimeInfoProvider implements IPartProbInfoProvider
+{
+
+	@Override
+	public void addProbeInfo( IPart part, ProbeMode mode, IProbeInfo probeInfo, EntityPlayer player, World world, IBlockState blockState, IProbeHitData data )
+	{
+		if( TickProfiler.isEnabled() )
+		{
+			final long nanos = TickProfiler.getAvgNanos( part.getGridNode() );
+
+			if( nanos >= 0 )
+			{
+				probeInfo.text( String.format( TheOneProbeText.TICK_TIME.getLocal(), nanos / 1000.0 ) );
+			}
+		}
+	}
+
+}
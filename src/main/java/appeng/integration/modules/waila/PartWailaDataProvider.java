@@ -45,6 +45,7 @@ import appeng.integration.modules.waila.part.PartCustomNameProvider;
 import appeng.integration.modules.waila.part.PartStackWailaDataProvider;
 import appeng.integration.modules.waila.part.PowerStateWailaDataProvider;
 import appeng.integration.modules.waila.part.StorageMonitorWailaDataProvider;
+import appeng.integration.modules.waila.part.TickTimeWailaDataProvider;
 import appeng.integration.modules.waila.part.Tracer;
 
 
@@ -83,8 +84,9 @@ public final class PartWailaDataProvider implements IWailaDataProvider
 		final IPartWailaDataProvider p2pState = new P2PStateWailaDataProvider();
 		final IPartWailaDataProvider partStack = new PartStackWailaDataProvider();
 		final IPartWailaDataProvider names = new PartCustomNameProvider();
+		final IPartWailaDataProvider tickTime = new TickTimeWailaDataProvider();
 
-		this.providers = Lists.newArrayList( channel, storageMonitor, powerState, partStack, p2pState, names );
+		this.providers = Lists.newArrayList( channel, storageMonitor, powerState, partStack, p2pState, names, tickTime );
 	}
 
 	@Override
@@ -39,6 +39,7 @@ import appeng.integration.modules.waila.tile.CraftingMonitorWailaDataProvider;
 import appeng.integration.modules.waila.tile.CustomNameProvider;
 import appeng.integration.modules.waila.tile.PowerStateWailaDataProvider;
 import appeng.integration.modules.waila.tile.PowerStorageWailaDataProvider;
+import appeng.integration.modules.waila.tile.TickTimeWailaDataProvider;
 
 
 /**
@@ -65,8 +66,9 @@ public final class TileWailaDataProvider implements IWailaDataProvider
 		final IWailaDataProvider craftingBlock = new PowerStateWailaDataProvider();
 		final IWailaDataProvider craftingMonitor = new CraftingMonitorWailaDataProvider();
 		final IWailaDataProvider names = new CustomNameProvider();
+		final IWailaDataProvider tickTime = new TickTimeWailaDataProvider();
 
-		this.providers = Lists.newArrayList( charger, energyCell, craftingBlock, craftingMonitor, names );
+		this.providers = Lists.newArrayList( charger, energyCell, craftingBlock, craftingMonitor, names, tickTime );
 	}
 
 	@Override
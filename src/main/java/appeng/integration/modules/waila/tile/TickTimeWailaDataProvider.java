@@ -0,0 +1,78 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.integration.modules.waila.tile;
+
+
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import mcp.mobius.waila.api.IWailaConfigHandler;
+import mcp.mobius.waila.api.IWailaDataAccessor;
+
+import appeng.core.localization.WailaText;
+import appeng.integration.modules.waila.BaseWailaDataProvider;
+import appeng.me.cache.helpers.TickProfiler;
+import appeng.me.helpers.IGridProxyable;
+
+
+/**
+ * Tick time provider for WAILA, only sends data while the tick profiler is enabled on the server.
+ */
+public final class TickTimeWailaDataProvider extends BaseWailaDataProvider
+{
+	/**
+	 * Average tick time key used for the transferred {@link net.minecraft.nbt.NBTTagCompound}
+	 */
+	private static final String ID_TICK_TIME = "tickTime";
+
+	@Override
+	public List<String> getWailaBody( final ItemStack itemStack, final List<String> currentToolTip, final IWailaDataAccessor accessor, final IWailaConfigHandler config )
+	{
+		final NBTTagCompound tag = accessor.getNBTData();
+
+		if( tag.hasKey( ID_TICK_TIME ) )
+		{
+			currentToolTip.add( String.format( WailaText.TickTime.getLocal(), tag.getLong( ID_TICK_TIME ) / 1000.0 ) );
+		}
+
+		return currentToolTip;
+	}
+
+	@Override
+	public NBTTagCompound getNBTData( final EntityPlayerMP player, final TileEntity te, final NBTTagCompound tag, final World world, final BlockPos pos )
+	{
+		if( TickProfiler.isEnabled() && te instanceof IGridProxyable )
+		{
+			final long nanos = TickProfiler.getAvgNanos( ( (IGridProxyable) te ).getProxy().getNode() );
+
+			if( nanos >= 0 )
+			{
+				tag.setLong( ID_TICK_TIME, nanos );
+			}
+		}
+
+		return tag;
+	}
+}
@@ -153,7 +153,7 @@ public class ItemEncodedPattern extends AEBaseItem implements ICraftingPatternIt
 	{
 		try
 		{
-			return new PatternHelper( is, w );
+			return PatternHelper.getPattern( is, w );
 		}
 		catch( final Throwable t )
 		{
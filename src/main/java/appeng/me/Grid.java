@@ -38,6 +38,7 @@ import appeng.api.networking.events.MENetworkPostCacheConstruction;
 import appeng.api.util.IReadOnlyCollection;
 import appeng.core.worlddata.WorldData;
 import appeng.hooks.TickHandler;
+import appeng.me.cache.helpers.TickProfiler;
 import appeng.util.ReadOnlyCollection;
 
 
@@ -272,12 +273,23 @@ public class Grid implements IGrid
 
 	public void update()
 	{
+		final boolean profile = TickProfiler.isEnabled();
+
 		for( final IGridCache gc : this.caches.values() )
 		{
 			// are there any nodes left?
 			if( this.pivot != null )
 			{
-				gc.onUpdateTick();
+				if( profile )
+				{
+					final long start = System.nanoTime();
+					gc.onUpdateTick();
+					TickProfiler.recordCache( gc.getClass(), System.nanoTime() - start );
+				}
+				else
+				{
+					gc.onUpdateTick();
+				}
 			}
 		}
 	}
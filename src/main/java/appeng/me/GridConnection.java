@@ -37,6 +37,7 @@ import appeng.api.util.IReadOnlyCollection;
 import appeng.core.AEConfig;
 import appeng.core.AELog;
 import appeng.core.features.AEFeature;
+import appeng.me.cache.PathGridCache;
 import appeng.me.pathfinding.IPathItem;
 import appeng.util.Platform;
 import appeng.util.ReadOnlyCollection;
@@ -121,12 +122,12 @@ public class GridConnection implements IGridConnection, IPathItem
 			}
 		}
 
-		// a connection was destroyed RE-PATH!!
-		final IPathingGrid p = this.sideA.getInternalGrid().getCache( IPathingGrid.class );
-		p.repath();
-
 		this.sideA.addConnection( this );
 		this.sideB.addConnection( this );
+
+		// a connection was created, the pathing decides whether this requires a re-path.
+		final PathGridCache p = this.sideA.getInternalGrid().getCache( IPathingGrid.class );
+		p.onConnectionAdded( this );
 	}
 
 	private boolean isNetworkABetter( final GridNode a, final GridNode b )
@@ -170,9 +171,9 @@ public class GridConnection implements IGridConnection, IPathItem
 	@Override
 	public void destroy()
 	{
-		// a connection was destroyed RE-PATH!!
-		final IPathingGrid p = this.sideA.getInternalGrid().getCache( IPathingGrid.class );
-		p.repath();
+		// a connection was destroyed, the pathing decides whether this requires a re-path.
+		final PathGridCache p = this.sideA.getInternalGrid().getCache( IPathingGrid.class );
+		p.onConnectionRemoved( this );
 
 		this.sideA.removeConnection( this );
 		this.sideB.removeConnection( this );
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -42,6 +43,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 
+import net.minecraft.item.Item;
 import net.minecraft.world.World;
 
 import appeng.api.config.AccessRestriction;
@@ -78,6 +80,8 @@ import appeng.api.storage.data.IItemList;
 import appeng.crafting.CraftingJob;
 import appeng.crafting.CraftingLink;
 import appeng.crafting.CraftingLinkNexus;
+import appeng.crafting.CraftingTreeCache;
+import appeng.crafting.CraftingTreeNode;
 import appeng.crafting.CraftingWatcher;
 import appeng.me.cluster.implementations.CraftingCPUCluster;
 import appeng.me.helpers.GenericInterestManager;
@@ -119,6 +123,13 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 	private final Map<ICraftingPatternDetails, List<ICraftingMedium>> craftingMethods = new HashMap<ICraftingPatternDetails, List<ICraftingMedium>>();
 	private final Map<IAEItemStack, ImmutableList<ICraftingPatternDetails>> craftableItems = new HashMap<IAEItemStack, ImmutableList<ICraftingPatternDetails>>();
 	private final Set<IAEItemStack> emitableItems = new HashSet<IAEItemStack>();
+	// craftable items grouped by item, for lookups which do not match exactly.
+	private final Map<Item, List<IAEItemStack>> craftableByItem = new HashMap<Item, List<IAEItemStack>>();
+	// results of those lookups, replaced whenever the patterns change as crafting jobs read it from their own threads.
+	private final CraftingTreeCache craftingTrees = new CraftingTreeCache();
+	// bumped whenever the patterns or emitable items change.
+	private int patternVersion = 0;
+	private volatile Map<FuzzyLookup, ImmutableList<ICraftingPatternDetails>> fuzzyLookups = new ConcurrentHashMap<FuzzyLookup, ImmutableList<ICraftingPatternDetails>>();
 	private final Map<String, CraftingLinkNexus> craftingLinks = new HashMap<String, CraftingLinkNexus>();
 	private final Multimap<IAEStack, CraftingWatcher> interests = HashMultimap.create();
 	private final GenericInterestManager<CraftingWatcher> interestManager = new GenericInterestManager<CraftingWatcher>( this.interests );
@@ -297,6 +308,22 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 			this.craftableItems.put( e.getKey(), ImmutableList.copyOf( e.getValue() ) );
 		}
 
+		this.craftableByItem.clear();
+		this.fuzzyLookups = new ConcurrentHashMap<FuzzyLookup, ImmutableList<ICraftingPatternDetails>>();
+		this.patternVersion++;
+
+		for( final IAEItemStack ais : this.craftableItems.keySet() )
+		{
+			List<IAEItemStack> candidates = this.craftableByItem.get( ais.getItem() );
+
+			if( candidates == null )
+			{
+				this.craftableByItem.put( ais.getItem(), candidates = new ArrayList<IAEItemStack>( 1 ) );
+			}
+
+			candidates.add( ais );
+		}
+
 		this.storageGrid.postAlterationOfStoredItems( StorageChannel.ITEMS, this.craftableItems.keySet(), new BaseActionSource() );
 	}
 
@@ -476,16 +503,17 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 		{
 			if( details != null && details.isCraftable() )
 			{
-				for( final IAEItemStack ais : this.craftableItems.keySet() )
+				final Map<FuzzyLookup, ImmutableList<ICraftingPatternDetails>> lookups = this.fuzzyLookups;
+				final FuzzyLookup key = new FuzzyLookup( details, slotIndex, whatToCraft );
+				ImmutableList<ICraftingPatternDetails> found = lookups.get( key );
+
+				if( found == null )
 				{
-					if( ais.getItem() == whatToCraft.getItem() && ( !ais.getItem().getHasSubtypes() || ais.getItemDamage() == whatToCraft.getItemDamage() ) )
-					{
-						if( details.isValidItemForSlot( slotIndex, ais.getItemStack(), world ) )
-						{
-							return this.craftableItems.get( ais );
-						}
-					}
+					found = this.findCraftingFor( whatToCraft, details, slotIndex, world );
+					lookups.put( key.copy(), found );
 				}
+
+				return found;
 			}
 
 			return ImmutableSet.of();
@@ -494,6 +522,36 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 		return res;
 	}
 
+	private ImmutableList<ICraftingPatternDetails> findCraftingFor( final IAEItemStack whatToCraft, final ICraftingPatternDetails details, final int slotIndex, final World world )
+	{
+		final List<IAEItemStack> candidates = this.craftableByItem.get( whatToCraft.getItem() );
+
+		if( candidates != null )
+		{
+			for( final IAEItemStack ais : candidates )
+			{
+				if( !ais.getItem().getHasSubtypes() || ais.getItemDamage() == whatToCraft.getItemDamage() )
+				{
+					if( details.isValidItemForSlot( slotIndex, ais.getItemStack(), world ) )
+					{
+						final ImmutableList<ICraftingPatternDetails> res = this.craftableItems.get( ais );
+						return res == null ? ImmutableList.of() : res;
+					}
+				}
+			}
+		}
+
+		return ImmutableList.of();
+	}
+
+	/**
+	 * @return the crafting tree for a new job, the pattern lookups are only done once per item and pattern set.
+	 */
+	public CraftingTreeNode getCraftingTree( final CraftingJob job, final IAEItemStack what )
+	{
+		return this.craftingTrees.getTree( this, this.patternVersion, job, what );
+	}
+
 	@Override
 	public Future<ICraftingJob> beginCraftingJob( final World world, final IGrid grid, final BaseActionSource actionSrc, final IAEItemStack slotItem, final ICraftingCallback cb )
 	{
@@ -665,4 +723,45 @@ public class CraftingGridCache implements ICraftingGrid, ICraftingProviderHelper
 			// no..
 		}
 	}
+
+	/**
+	 * A pattern slot asking for an item which is not craftable as it is.
+	 */
+	private static final class FuzzyLookup
+	{
+
+		private final ICraftingPatternDetails details;
+		private final int slotIndex;
+		private final IAEItemStack whatToCraft;
+
+		private FuzzyLookup( final ICraftingPatternDetails details, final int slotIndex, final IAEItemStack whatToCraft )
+		{
+			this.details = details;
+			this.slotIndex = slotIndex;
+			this.whatToCraft = whatToCraft;
+		}
+
+		private FuzzyLookup copy()
+		{
+			return new FuzzyLookup( this.details, this.slotIndex, this.whatToCraft.copy() );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ( this.details.hashCode() * 31 + this.slotIndex ) * 31 + this.whatToCraft.hashCode();
+		}
+
+		@Override
+		public boolean equals( final Object obj )
+		{
+			if( !( obj instanceof FuzzyLookup ) )
+			{
+				return false;
+			}
+
+			final FuzzyLookup other = (FuzzyLookup) obj;
+			return this.details.equals( other.details ) && this.slotIndex == other.slotIndex && this.whatToCraft.equals( other.whatToCraft );
+		}
+	}
 }
@@ -50,9 +50,11 @@ import appeng.api.storage.data.IAEFluidStack;
 import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
 import appeng.me.helpers.GenericInterestManager;
 import appeng.me.storage.ItemWatcher;
 import appeng.me.storage.NetworkInventoryHandler;
+import appeng.me.storage.StorageResidencyIndex;
 
 
 public class GridStorageCache implements IStorageGrid
@@ -68,10 +70,16 @@ public class GridStorageCache implements IStorageGrid
 	private final HashMap<IGridNode, IStackWatcher> watchers = new HashMap<IGridNode, IStackWatcher>();
 	private NetworkInventoryHandler<IAEItemStack> myItemNetwork;
 	private NetworkInventoryHandler<IAEFluidStack> myFluidNetwork;
+	private final StorageResidencyIndex<IAEItemStack> itemResidency;
+	private final StorageResidencyIndex<IAEFluidStack> fluidResidency;
 
 	public GridStorageCache( final IGrid g )
 	{
 		this.myGrid = g;
+
+		final boolean indexed = AEConfig.instance() == null || AEConfig.instance().isStorageResidencyIndex();
+		this.itemResidency = indexed ? new StorageResidencyIndex<IAEItemStack>() : null;
+		this.fluidResidency = indexed ? new StorageResidencyIndex<IAEFluidStack>() : null;
 	}
 
 	@Override
@@ -160,6 +168,7 @@ public class GridStorageCache implements IStorageGrid
 		{
 			this.inactiveCellProviders.remove( cc );
 			this.activeCellProviders.add( cc );
+			this.clearResidency();
 
 			BaseActionSource actionSrc = new BaseActionSource();
 			if( cc instanceof IActionHost )
@@ -187,6 +196,7 @@ public class GridStorageCache implements IStorageGrid
 		{
 			this.activeCellProviders.remove( cc );
 			this.inactiveCellProviders.add( cc );
+			this.clearResidency();
 
 			BaseActionSource actionSrc = new BaseActionSource();
 
@@ -214,6 +224,7 @@ public class GridStorageCache implements IStorageGrid
 	{
 		this.myItemNetwork = null;
 		this.myFluidNetwork = null;
+		this.clearResidency();
 
 		final LinkedList<ICellProvider> ll = new LinkedList();
 		ll.addAll( this.inactiveCellProviders );
@@ -254,6 +265,15 @@ public class GridStorageCache implements IStorageGrid
 		tracker.applyChanges();
 	}
 
+	private void clearResidency()
+	{
+		if( this.itemResidency != null )
+		{
+			this.itemResidency.clear();
+			this.fluidResidency.clear();
+		}
+	}
+
 	private void postChangesToNetwork( final StorageChannel chan, final int upOrDown, final IItemList availableItems, final BaseActionSource src )
 	{
 		switch( chan )
@@ -284,7 +304,7 @@ public class GridStorageCache implements IStorageGrid
 		switch( chan )
 		{
 			case FLUIDS:
-				this.myFluidNetwork = new NetworkInventoryHandler<IAEFluidStack>( StorageChannel.FLUIDS, security );
+				this.myFluidNetwork = new NetworkInventoryHandler<IAEFluidStack>( StorageChannel.FLUIDS, security, this.fluidResidency );
 				for( final ICellProvider cc : this.activeCellProviders )
 				{
 					for( final IMEInventoryHandler<IAEFluidStack> h : cc.getCellArray( chan ) )
@@ -294,7 +314,7 @@ public class GridStorageCache implements IStorageGrid
 				}
 				break;
 			case ITEMS:
-				this.myItemNetwork = new NetworkInventoryHandler<IAEItemStack>( StorageChannel.ITEMS, security );
+				this.myItemNetwork = new NetworkInventoryHandler<IAEItemStack>( StorageChannel.ITEMS, security, this.itemResidency );
 				for( final ICellProvider cc : this.activeCellProviders )
 				{
 					for( final IMEInventoryHandler<IAEItemStack> h : cc.getCellArray( chan ) )
@@ -319,12 +339,23 @@ public class GridStorageCache implements IStorageGrid
 	@Override
 	public void postAlterationOfStoredItems( final StorageChannel chan, final Iterable<? extends IAEStack> input, final BaseActionSource src )
 	{
+		// changes made outside of the network inventory can not be attributed to a handler.
 		if( chan == StorageChannel.ITEMS )
 		{
+			if( this.itemResidency != null && !this.itemMonitor.isBusy() )
+			{
+				this.itemResidency.invalidate( input );
+			}
+
 			this.itemMonitor.postChange( true, (Iterable<IAEItemStack>) input, src );
 		}
 		else if( chan == StorageChannel.FLUIDS )
 		{
+			if( this.fluidResidency != null && !this.fluidMonitor.isBusy() )
+			{
+				this.fluidResidency.invalidate( input );
+			}
+
 			this.fluidMonitor.postChange( true, (Iterable<IAEFluidStack>) input, src );
 		}
 	}
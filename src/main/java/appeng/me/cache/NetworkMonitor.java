@@ -41,8 +41,12 @@ import appeng.api.storage.IMEInventoryHandler;
 import appeng.api.storage.IMEMonitor;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.StorageChannel;
+import appeng.api.storage.data.IAEItemStack;
 import appeng.api.storage.data.IAEStack;
 import appeng.api.storage.data.IItemList;
+import appeng.core.AEConfig;
+import appeng.me.cache.helpers.StorageListUpdater;
+import appeng.me.cache.helpers.TerminalUpdateBroadcaster;
 import appeng.me.storage.ItemWatcher;
 
 
@@ -51,6 +55,12 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 	@Nonnull
 	private static final Deque<NetworkMonitor<?>> GLOBAL_DEPTH = Lists.newLinkedList();
 
+	/**
+	 * Compares the incrementally maintained list against a full rebuild after every change. Very expensive, only
+	 * intended for tests and debugging.
+	 */
+	private static boolean verifyIncrementalList = Boolean.getBoolean( "appeng.verifyIncrementalStorageList" );
+
 	@Nonnull
 	private final GridStorageCache myGridCache;
 	@Nonnull
@@ -60,8 +70,13 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 	@Nonnull
 	private final Map<IMEMonitorHandlerReceiver<T>, Object> listeners;
 
+	private final boolean incremental;
+
+	@Nullable
+	private TerminalUpdateBroadcaster terminalBroadcaster;
+
 	private boolean sendEvent = false;
-	private boolean hasChanged = false;
+	private boolean hasChanged = true;
 	@Nonnegative
 	private int localDepthSemaphore = 0;
 
@@ -71,6 +86,40 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 		this.myChannel = chan;
 		this.cachedList = (IItemList<T>) chan.createList();
 		this.listeners = new HashMap<IMEMonitorHandlerReceiver<T>, Object>();
+		this.incremental = AEConfig.instance() != null && AEConfig.instance().isIncrementalStorageList();
+	}
+
+	/**
+	 * Enables or disables the consistency check of the incrementally maintained storage list.
+	 *
+	 * When enabled, every change applied to the cached list is followed by a full rebuild and a mismatch will throw an
+	 * {@link IllegalStateException}.
+	 *
+	 * @param verify true to compare the cached list against a full rebuild after each change.
+	 */
+	public static void setVerifyIncrementalList( final boolean verify )
+	{
+		verifyIncrementalList = verify;
+	}
+
+	/**
+	 * @return the update stream shared by all terminals on this grid, null for anything but items.
+	 */
+	@Nullable
+	@SuppressWarnings( "unchecked" )
+	public TerminalUpdateBroadcaster getTerminalBroadcaster()
+	{
+		if( this.myChannel != StorageChannel.ITEMS )
+		{
+			return null;
+		}
+
+		if( this.terminalBroadcaster == null )
+		{
+			this.terminalBroadcaster = new TerminalUpdateBroadcaster( (IMEMonitor<IAEItemStack>) this );
+		}
+
+		return this.terminalBroadcaster;
 	}
 
 	@Override
@@ -101,6 +150,11 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 		{
 			this.monitorDifference( request.copy(), leftover, true, src );
 		}
+		else
+		{
+			// nested operations are never posted, so the cached list can no longer be trusted.
+			this.hasChanged = true;
+		}
 
 		return leftover;
 	}
@@ -165,10 +219,91 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 		{
 			this.monitorDifference( input.copy(), leftover, false, src );
 		}
+		else
+		{
+			// nested operations are never posted, so the cached list can no longer be trusted.
+			this.hasChanged = true;
+		}
 
 		return leftover;
 	}
 
+	@Override
+	public IItemList<T> injectItemsBulk( final Iterable<T> input, final Actionable mode, final BaseActionSource src )
+	{
+		final IItemList<T> leftovers = this.getChannel().createList();
+
+		if( mode == Actionable.SIMULATE )
+		{
+			for( final T stack : input )
+			{
+				leftovers.add( this.getHandler().injectItems( stack, mode, src ) );
+			}
+
+			return leftovers;
+		}
+
+		final IItemList<T> changes = this.getChannel().createList();
+
+		localDepthSemaphore++;
+		for( final T stack : input )
+		{
+			final T leftover = this.getHandler().injectItems( stack, mode, src );
+			final T diff = stack.copy();
+
+			if( leftover != null )
+			{
+				diff.decStackSize( leftover.getStackSize() );
+			}
+
+			changes.add( diff );
+			leftovers.add( leftover );
+		}
+		localDepthSemaphore--;
+
+		this.postBulkDifference( changes, src );
+
+		return leftovers;
+	}
+
+	@Override
+	public IItemList<T> extractItemsBulk( final Iterable<T> requests, final Actionable mode, final BaseActionSource src )
+	{
+		final IItemList<T> extracted = this.getChannel().createList();
+
+		if( mode == Actionable.SIMULATE )
+		{
+			for( final T request : requests )
+			{
+				extracted.add( this.getHandler().extractItems( request, mode, src ) );
+			}
+
+			return extracted;
+		}
+
+		final IItemList<T> changes = this.getChannel().createList();
+
+		localDepthSemaphore++;
+		for( final T request : requests )
+		{
+			final T result = this.getHandler().extractItems( request, mode, src );
+
+			if( result != null )
+			{
+				final T diff = result.copy();
+				diff.setStackSize( -result.getStackSize() );
+
+				changes.add( diff );
+				extracted.add( result );
+			}
+		}
+		localDepthSemaphore--;
+
+		this.postBulkDifference( changes, src );
+
+		return extracted;
+	}
+
 	@Override
 	public boolean isPrioritized( final T input )
 	{
@@ -228,9 +363,24 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 		return leftOvers;
 	}
 
+	/**
+	 * Posts the differences collected by a bulk operation as a single change set.
+	 */
+	private void postBulkDifference( final IItemList<T> changes, final BaseActionSource src )
+	{
+		if( localDepthSemaphore != 0 )
+		{
+			// nested operations are never posted, so the cached list can no longer be trusted.
+			this.hasChanged = true;
+		}
+		else if( !changes.isEmpty() )
+		{
+			this.postChangesToListeners( changes, src );
+		}
+	}
+
 	private void notifyListenersOfChange( final Iterable<T> diff, final BaseActionSource src )
 	{
-		this.hasChanged = true;
 		final Iterator<Entry<IMEMonitorHandlerReceiver<T>, Object>> i = this.getListeners();
 
 		while( i.hasNext() )
@@ -248,6 +398,14 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 		}
 	}
 
+	/**
+	 * @return true while an operation of this monitor is running, any change reported meanwhile is caused by it.
+	 */
+	boolean isBusy()
+	{
+		return this.localDepthSemaphore > 0;
+	}
+
 	private void postChangesToListeners( final Iterable<T> changes, final BaseActionSource src )
 	{
 		this.postChange( true, changes, src );
@@ -257,6 +415,12 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 	{
 		if( localDepthSemaphore > 0 || GLOBAL_DEPTH.contains( this ) )
 		{
+			if( GLOBAL_DEPTH.contains( this ) )
+			{
+				// changes caused while notifying listeners are dropped.
+				this.hasChanged = true;
+			}
+
 			return;
 		}
 
@@ -265,6 +429,15 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 
 		this.sendEvent = true;
 
+		if( this.incremental )
+		{
+			this.updateCachedList( add, changes );
+		}
+		else
+		{
+			this.hasChanged = true;
+		}
+
 		this.notifyListenersOfChange( changes, src );
 
 		for( final T changedItem : changes )
@@ -303,6 +476,11 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 			}
 		}
 
+		if( this.incremental && verifyIncrementalList && !this.hasChanged )
+		{
+			this.verifyCachedList();
+		}
+
 		final NetworkMonitor<?> last = GLOBAL_DEPTH.pop();
 		localDepthSemaphore--;
 
@@ -312,6 +490,24 @@ public class NetworkMonitor<T extends IAEStack<T>> implements IMEMonitor<T>
 		}
 	}
 
+	/**
+	 * Applies the posted differences to the cached list, instead of rebuilding it from every cell on the next read.
+	 *
+	 * Anything which can not be expressed as a plain change of the stored amount falls back to a full rebuild.
+	 */
+	private void updateCachedList( final boolean add, final Iterable<T> changes )
+	{
+		if( !this.hasChanged && !StorageListUpdater.applyChanges( this.cachedList, add, changes ) )
+		{
+			this.hasChanged = true;
+		}
+	}
+
+	private void verifyCachedList()
+	{
+		StorageListUpdater.verify( this.cachedList, this.getAvailableItems( this.myChannel.createList() ) );
+	}
+
 	void forceUpdate()
 	{
 		this.hasChanged = true;
@@ -75,6 +75,14 @@ public class PathGridCache implements IPathingGrid
 	private int lastChannels = 0;
 	private HashSet<IPathItem> semiOpen = new HashSet<IPathItem>();
 
+	/**
+	 * Everything reached by the last full path, null while it is not usable for incremental updates.
+	 */
+	private Set<IPathItem> routed = null;
+	private final Set<IGridNode> pendingNodes = new HashSet<IGridNode>();
+	private final Set<IGridNode> releasedNodes = new HashSet<IGridNode>();
+	private final Set<IPathItem> pendingFinalize = new HashSet<IPathItem>();
+
 	public PathGridCache( final IGrid g )
 	{
 		this.myGrid = g;
@@ -88,6 +96,13 @@ public class PathGridCache implements IPathingGrid
 			this.recalcController();
 		}
 
+		this.releasedNodes.clear();
+
+		if( !this.updateNetwork )
+		{
+			this.applyIncrementalChanges();
+		}
+
 		if( this.updateNetwork )
 		{
 			if( !this.booting )
@@ -139,6 +154,7 @@ public class PathGridCache implements IPathingGrid
 				this.ticksUntilReady = 20 + Math.max( 0, nodes / 100 - 20 );
 				final HashSet<IPathItem> closedList = new HashSet<IPathItem>();
 				this.semiOpen = new HashSet<IPathItem>();
+				this.routed = closedList;
 
 				// myGrid.getPivot().beginVisit( new AdHocChannelUpdater( 0 )
 				// );
@@ -219,7 +235,11 @@ public class PathGridCache implements IPathingGrid
 			this.blockDense.remove( gridNode );
 		}
 
-		this.repath();
+		// leaves already released by onConnectionRemoved
+		if( !this.releasedNodes.remove( gridNode ) )
+		{
+			this.repath();
+		}
 	}
 
 	@Override
@@ -243,7 +263,149 @@ public class PathGridCache implements IPathingGrid
 			this.blockDense.add( gridNode );
 		}
 
-		this.repath();
+		// wait for its connection, a single new leaf can be pathed without a repath.
+		if( this.isIncrementalReady() && this.isLeafCandidate( gridNode ) )
+		{
+			this.pendingNodes.add( gridNode );
+		}
+		else
+		{
+			this.repath();
+		}
+	}
+
+	/**
+	 * Called once a new connection is attached to both of its nodes.
+	 */
+	public void onConnectionAdded( final GridConnection connection )
+	{
+		final GridNode a = (GridNode) connection.a();
+		final GridNode b = (GridNode) connection.b();
+		final GridNode leaf = this.pendingNodes.contains( a ) ? a : b;
+		final GridNode parent = leaf == a ? b : a;
+
+		final boolean newLeaf = this.pendingNodes.contains( leaf ) && !this.pendingNodes.contains( parent ) && leaf.getConnections().size() == 1;
+
+		if( !this.isIncrementalReady() || !newLeaf || !this.routed.contains( parent ) )
+		{
+			this.repath();
+			return;
+		}
+
+		this.pendingNodes.remove( leaf );
+
+		final List<IPathItem> open = new LinkedList<IPathItem>();
+		open.add( connection );
+		this.routed.add( connection );
+		connection.setControllerRoute( parent, true );
+
+		final PathSegment segment = new PathSegment( this, open, this.semiOpen, this.routed );
+		while( !segment.step() )
+		{
+			// only the connection and the leaf itself are new.
+		}
+
+		for( IPathItem pi = leaf; pi != null; pi = pi.getControllerRoute() )
+		{
+			this.pendingFinalize.add( pi );
+		}
+	}
+
+	/**
+	 * Called before a connection is detached from its nodes.
+	 */
+	public void onConnectionRemoved( final GridConnection connection )
+	{
+		final GridNode a = (GridNode) connection.a();
+		final GridNode b = (GridNode) connection.b();
+		final GridNode leaf = a.getConnections().size() == 1 ? a : b;
+		final GridNode parent = leaf == a ? b : a;
+
+		final boolean isLeaf = leaf.getConnections().size() == 1 && parent.getConnections().size() > 1 && this.isLeafCandidate( leaf );
+		final boolean routedFromParent = this.routed != null && this.routed.contains( connection ) && connection.getControllerRoute() == parent;
+
+		// counts of paths changed this tick are not finalized yet.
+		if( !this.isIncrementalReady() || !this.pendingFinalize.isEmpty() || !isLeaf || !routedFromParent )
+		{
+			this.repath();
+			return;
+		}
+
+		final int channels = connection.getUsedChannels();
+
+		if( channels > 0 )
+		{
+			// a device without a channel might be able to use the freed one.
+			if( this.getChannelsInUse() < this.requireChannels.size() )
+			{
+				this.repath();
+				return;
+			}
+
+			int length = 1;
+			for( IPathItem pi = connection; pi != null; pi = pi.getControllerRoute() )
+			{
+				pi.incrementChannelCount( -channels );
+				this.pendingFinalize.add( pi );
+				length++;
+			}
+
+			this.pendingFinalize.remove( connection );
+			this.setChannelsByBlocks( this.getChannelsByBlocks() - channels * length );
+
+			if( leaf.getFlags().contains( GridFlags.REQUIRE_CHANNEL ) )
+			{
+				this.setChannelsInUse( this.getChannelsInUse() - 1 );
+			}
+		}
+
+		this.routed.remove( connection );
+		this.routed.remove( leaf );
+		this.releasedNodes.add( leaf );
+	}
+
+	private boolean isIncrementalReady()
+	{
+		if( this.routed == null || this.updateNetwork || this.recalculateControllerNextTick || !this.active.isEmpty() || this.ticksUntilReady > 0 )
+		{
+			return false;
+		}
+
+		return this.controllerState == ControllerState.CONTROLLER_ONLINE && AEConfig.instance().isIncrementalChannels();
+	}
+
+	private boolean isLeafCandidate( final IGridNode node )
+	{
+		if( node.getMachine() instanceof TileController )
+		{
+			return false;
+		}
+
+		final EnumSet<GridFlags> flags = node.getGridBlock().getFlags();
+		return !flags.contains( GridFlags.MULTIBLOCK ) && !flags.contains( GridFlags.COMPRESSED_CHANNEL ) && !flags.contains(
+				GridFlags.CANNOT_CARRY ) && !flags.contains( GridFlags.CANNOT_CARRY_COMPRESSED );
+	}
+
+	private void applyIncrementalChanges()
+	{
+		// nodes which joined without ending up as a single new leaf need a full repath.
+		if( !this.pendingNodes.isEmpty() )
+		{
+			this.repath();
+			return;
+		}
+
+		if( !this.pendingFinalize.isEmpty() )
+		{
+			for( final IPathItem pi : this.pendingFinalize )
+			{
+				pi.finalizeChannels();
+			}
+
+			this.pendingFinalize.clear();
+			this.setChannelPowerUsage( this.getChannelsByBlocks() / 128.0 );
+			this.achievementPost();
+		}
 	}
 
 	@Override
@@ -414,6 +576,9 @@ public class PathGridCache implements IPathingGrid
 	{
 		// clean up...
 		this.active.clear();
+		this.routed = null;
+		this.pendingNodes.clear();
+		this.pendingFinalize.clear();
 
 		this.setChannelsByBlocks( 0 );
 		this.updateNetwork = true;
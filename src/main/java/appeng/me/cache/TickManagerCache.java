@@ -19,8 +19,9 @@
 package appeng.me.cache;
 
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.PriorityQueue;
+import java.util.List;
 
 import net.minecraft.crash.CrashReport;
 import net.minecraft.crash.CrashReportCategory;
@@ -34,7 +35,9 @@ import appeng.api.networking.ticking.IGridTickable;
 import appeng.api.networking.ticking.ITickManager;
 import appeng.api.networking.ticking.TickRateModulation;
 import appeng.api.networking.ticking.TickingRequest;
+import appeng.me.cache.helpers.TickProfiler;
 import appeng.me.cache.helpers.TickTracker;
+import appeng.me.cache.helpers.TickWheel;
 
 
 public class TickManagerCache implements ITickManager
@@ -44,7 +47,8 @@ public class TickManagerCache implements ITickManager
 	private final HashMap<IGridNode, TickTracker> alertable = new HashMap<IGridNode, TickTracker>();
 	private final HashMap<IGridNode, TickTracker> sleeping = new HashMap<IGridNode, TickTracker>();
 	private final HashMap<IGridNode, TickTracker> awake = new HashMap<IGridNode, TickTracker>();
-	private final PriorityQueue<TickTracker> upcomingTicks = new PriorityQueue<TickTracker>();
+	private final TickWheel upcomingTicks = new TickWheel();
+	private final List<TickTracker> dueTicks = new ArrayList<TickTracker>();
 	private long currentTick = 0;
 
 	public TickManagerCache( final IGrid g )
@@ -59,12 +63,7 @@ public class TickManagerCache implements ITickManager
 
 	public long getAvgNanoTime( final IGridNode node )
 	{
-		TickTracker tt = this.awake.get( node );
-
-		if( tt == null )
-		{
-			tt = this.sleeping.get( node );
-		}
+		final TickTracker tt = this.getTracker( node );
 
 		if( tt == null )
 		{
@@ -74,6 +73,21 @@ public class TickManagerCache implements ITickManager
 		return tt.getAvgNanos();
 	}
 
+	public TickTracker getTracker( final IGridNode node )
+	{
+		final TickTracker tt = this.awake.get( node );
+		return tt == null ? this.sleeping.get( node ) : tt;
+	}
+
+	/**
+	 * Adds all trackers of this grid, awake or sleeping, to the given list.
+	 */
+	public void collectTrackers( final List<TickTracker> out )
+	{
+		out.addAll( this.awake.values() );
+		out.addAll( this.sleeping.values() );
+	}
+
 	@Override
 	public void onUpdateTick()
 	{
@@ -81,47 +95,55 @@ public class TickManagerCache implements ITickManager
 		try
 		{
 			this.currentTick++;
-			while( !this.upcomingTicks.isEmpty() )
+			this.upcomingTicks.pollDue( this.currentTick, this.dueTicks );
+
+			for( int x = 0; x < this.dueTicks.size(); x++ )
 			{
-				tt = this.upcomingTicks.peek();
+				tt = this.dueTicks.get( x );
+
+				// removed, put to sleep or alerted since it was polled.
+				if( this.awake.get( tt.getNode() ) != tt || this.upcomingTicks.isScheduled( tt ) )
+				{
+					continue;
+				}
+
 				final int diff = (int) ( this.currentTick - tt.getLastTick() );
-				if( diff >= tt.getCurrentRate() )
+				final long start = System.nanoTime();
+				final TickRateModulation mod = tt.getGridTickable().tickingRequest( tt.getNode(), diff );
+				final long elapsed = System.nanoTime() - start;
+				tt.addTickTime( elapsed );
+
+				if( TickProfiler.isEnabled() )
 				{
-					// remove tt..
-					this.upcomingTicks.poll();
-					final TickRateModulation mod = tt.getGridTickable().tickingRequest( tt.getNode(), diff );
-
-					switch( mod )
-					{
-						case FASTER:
-							tt.setRate( tt.getCurrentRate() - 2 );
-							break;
-						case IDLE:
-							tt.setRate( tt.getRequest().maxTickRate );
-							break;
-						case SAME:
-							break;
-						case SLEEP:
-							this.sleepDevice( tt.getNode() );
-							break;
-						case SLOWER:
-							tt.setRate( tt.getCurrentRate() + 1 );
-							break;
-						case URGENT:
-							tt.setRate( 0 );
-							break;
-						default:
-							break;
-					}
-
-					if( this.awake.containsKey( tt.getNode() ) )
-					{
-						this.addToQueue( tt );
-					}
+					TickProfiler.recordMachine( tt, elapsed );
 				}
-				else
+
+				switch( mod )
+				{
+					case FASTER:
+						tt.setRate( tt.getCurrentRate() - 2 );
+						break;
+					case IDLE:
+						tt.setRate( tt.getRequest().maxTickRate );
+						break;
+					case SAME:
+						break;
+					case SLEEP:
+						this.sleepDevice( tt.getNode() );
+						break;
+					case SLOWER:
+						tt.setRate( tt.getCurrentRate() + 1 );
+						break;
+					case URGENT:
+						tt.setRate( 0 );
+						break;
+					default:
+						break;
+				}
+
+				if( this.awake.get( tt.getNode() ) == tt && !this.upcomingTicks.isScheduled( tt ) )
 				{
-					return; // done!
+					this.addToQueue( tt );
 				}
 			}
 		}
@@ -132,12 +154,22 @@ public class TickManagerCache implements ITickManager
 			tt.addEntityCrashInfo( crashreportcategory );
 			throw new ReportedException( crashreport );
 		}
+		finally
+		{
+			this.dueTicks.clear();
+		}
 	}
 
 	private void addToQueue( final TickTracker tt )
 	{
 		tt.setLastTick( this.currentTick );
-		this.upcomingTicks.add( tt );
+		this.schedule( tt );
+	}
+
+	private void schedule( final TickTracker tt )
+	{
+		// anything already overdue runs on the next tick.
+		this.upcomingTicks.schedule( tt, Math.max( tt.getNextTick(), this.currentTick + 1 ) );
 	}
 
 	@Override
@@ -146,8 +178,17 @@ public class TickManagerCache implements ITickManager
 		if( machine instanceof IGridTickable )
 		{
 			this.alertable.remove( gridNode );
-			this.sleeping.remove( gridNode );
-			this.awake.remove( gridNode );
+
+			TickTracker tt = this.awake.remove( gridNode );
+			if( tt == null )
+			{
+				tt = this.sleeping.remove( gridNode );
+			}
+
+			if( tt != null )
+			{
+				this.upcomingTicks.cancel( tt );
+			}
 		}
 	}
 
@@ -159,7 +200,7 @@ public class TickManagerCache implements ITickManager
 			final TickingRequest tr = ( (IGridTickable) machine ).getTickingRequest( gridNode );
 			if( tr != null )
 			{
-				final TickTracker tt = new TickTracker( tr, gridNode, (IGridTickable) machine, this.currentTick, this );
+				final TickTracker tt = new TickTracker( tr, gridNode, (IGridTickable) machine, this.currentTick );
 
 				if( tr.canBeAlerted )
 				{
@@ -216,9 +257,8 @@ public class TickManagerCache implements ITickManager
 		tt.setLastTick( tt.getLastTick() - tt.getRequest().maxTickRate );
 		tt.setCurrentRate( tt.getRequest().minTickRate );
 
-		// prevent dupes and tick build up.
-		this.upcomingTicks.remove( tt );
-		this.upcomingTicks.add( tt );
+		// rescheduling also prevents dupes and tick build up.
+		this.schedule( tt );
 
 		return true;
 	}
@@ -231,6 +271,7 @@ public class TickManagerCache implements ITickManager
 			final TickTracker gt = this.awake.get( node );
 			this.awake.remove( node );
 			this.sleeping.put( node, gt );
+			this.upcomingTicks.cancel( gt );
 
 			return true;
 		}
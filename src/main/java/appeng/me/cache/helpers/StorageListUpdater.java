@@ -0,0 +1,126 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.me.cache.helpers;
+
+
+import appeng.api.storage.data.IAEStack;
+import appeng.api.storage.data.IItemList;
+
+
+/**
+ * Keeps a storage list in sync with the network by applying the posted differences to it, instead of rebuilding it
+ * from every cell.
+ */
+public final class StorageListUpdater
+{
+
+	private StorageListUpdater()
+	{
+	}
+
+	/**
+	 * Applies the differences to the list. The list is left partially updated when this fails.
+	 *
+	 * @param list list to update
+	 * @param add true if the changes were added, false if they were removed
+	 * @param changes posted differences
+	 *
+	 * @return false if a change can not be expressed as a plain change of the stored amount, the list has to be rebuilt.
+	 */
+	public static <T extends IAEStack<T>> boolean applyChanges( final IItemList<T> list, final boolean add, final Iterable<T> changes )
+	{
+		for( final T changedItem : changes )
+		{
+			if( changedItem == null )
+			{
+				continue;
+			}
+
+			if( changedItem.isCraftable() || changedItem.getCountRequestable() != 0 )
+			{
+				return false;
+			}
+
+			final long delta = add ? changedItem.getStackSize() : -changedItem.getStackSize();
+
+			if( delta == 0 )
+			{
+				continue;
+			}
+
+			final T entry = list.findPrecise( changedItem );
+
+			if( entry != null )
+			{
+				entry.incStackSize( delta );
+
+				if( entry.getStackSize() < 0 )
+				{
+					return false;
+				}
+			}
+			else if( delta > 0 )
+			{
+				list.addStorage( changedItem );
+			}
+			else
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Compares an incrementally maintained list against a full rebuild.
+	 *
+	 * @param cached incrementally maintained list
+	 * @param rebuilt list freshly built from the storage
+	 *
+	 * @throws IllegalStateException if any stored amount or craftable state differs
+	 */
+	public static <T extends IAEStack<T>> void verify( final IItemList<T> cached, final IItemList<T> rebuilt )
+	{
+		for( final T expected : rebuilt )
+		{
+			verifyEntry( expected, cached.findPrecise( expected ) );
+		}
+
+		for( final T entry : cached )
+		{
+			verifyEntry( rebuilt.findPrecise( entry ), entry );
+		}
+	}
+
+	private static <T extends IAEStack<T>> void verifyEntry( final T expected, final T cached )
+	{
+		final long expectedSize = expected == null ? 0 : expected.getStackSize();
+		final long cachedSize = cached == null ? 0 : cached.getStackSize();
+		final boolean expectedCraftable = expected != null && expected.isCraftable();
+		final boolean cachedCraftable = cached != null && cached.isCraftable();
+
+		if( expectedSize != cachedSize || expectedCraftable != cachedCraftable )
+		{
+			final T stack = expected != null ? expected : cached;
+			throw new IllegalStateException( String.format( "Incremental storage list out of sync for %s: expected %d (craftable: %b), cached %d (craftable: %b)", stack, expectedSize, expectedCraftable, cachedSize, cachedCraftable ) );
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.me.cache.helpers;
+
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import appeng.api.AEApi;
+import appeng.api.networking.security.BaseActionSource;
+import appeng.api.storage.IBaseMonitor;
+import appeng.api.storage.IMEMonitor;
+import appeng.api.storage.IMEMonitorHandlerReceiver;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.core.AELog;
+import appeng.core.sync.network.NetworkHandler;
+import appeng.core.sync.packets.PacketMEInventoryUpdate;
+import appeng.util.item.ItemPacketDictionary;
+
+
+/**
+ * Sends the item updates of one grid to every player with a terminal open on it.
+ *
+ * Changes are collected once and each batch is encoded into packets a single time, which are then sent to all
+ * subscribed players. Players who just subscribed, or all of them after a list update, are sent a full list that is
+ * also encoded once for everyone waiting on it. All players share one {@link ItemPacketDictionary} session, which is
+ * replaced once nobody is subscribed or it grew too large, so types that are gone do not stay in it forever.
+ */
+public class TerminalUpdateBroadcaster implements IMEMonitorHandlerReceiver<IAEItemStack>
+{
+
+	// types a session may number, or twice the stored types for larger networks.
+	private static final int MAX_DICTIONARY_SIZE = 32768;
+
+	private final IMEMonitor<IAEItemStack> monitor;
+	private ItemPacketDictionary dictionary = new ItemPacketDictionary();
+	private final IItemList<IAEItemStack> pending = AEApi.instance().storage().createItemList();
+
+	// false until the player has been sent the full list.
+	private final Map<EntityPlayerMP, Boolean> subscribers = new LinkedHashMap<EntityPlayerMP, Boolean>();
+	private boolean listening = false;
+
+	public TerminalUpdateBroadcaster( final IMEMonitor<IAEItemStack> monitor )
+	{
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Queues the full list for the player, it is sent with the next {@link #flush()}.
+	 */
+	public void subscribe( final EntityPlayerMP player )
+	{
+		this.subscribers.put( player, false );
+
+		if( !this.listening )
+		{
+			this.pending.resetStatus();
+			this.monitor.addListener( this, null );
+			this.listening = true;
+		}
+	}
+
+	public void unsubscribe( final EntityPlayerMP player )
+	{
+		this.subscribers.remove( player );
+
+		if( this.subscribers.isEmpty() )
+		{
+			this.dictionary = new ItemPacketDictionary();
+
+			if( this.listening )
+			{
+				this.monitor.removeListener( this );
+				this.listening = false;
+			}
+		}
+	}
+
+	/**
+	 * Sends everything collected since the last call, does nothing if there is nothing new.
+	 */
+	public void flush()
+	{
+		if( this.subscribers.isEmpty() )
+		{
+			return;
+		}
+
+		try
+		{
+			final IItemList<IAEItemStack> monitorCache = this.monitor.getStorageList();
+
+			if( this.dictionary.size() > Math.max( MAX_DICTIONARY_SIZE, monitorCache.size() * 2 ) )
+			{
+				// a new session starts over on the clients as well, so everyone gets the full list again.
+				this.dictionary = new ItemPacketDictionary();
+				this.onListUpdate();
+			}
+
+			if( !this.pending.isEmpty() )
+			{
+				final List<PacketMEInventoryUpdate> packets = new ArrayList<PacketMEInventoryUpdate>();
+				PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate( this.dictionary );
+				packets.add( piu );
+
+				for( final IAEItemStack is : this.pending )
+				{
+					IAEItemStack send = monitorCache.findPrecise( is );
+					if( send == null )
+					{
+						send = is.copy();
+						send.setStackSize( 0 );
+					}
+
+					try
+					{
+						piu.appendItem( send );
+					}
+					catch( final BufferOverflowException boe )
+					{
+						piu = new PacketMEInventoryUpdate( this.dictionary );
+						packets.add( piu );
+						piu.appendItem( send );
+					}
+				}
+
+				this.pending.resetStatus();
+				this.send( packets, true );
+			}
+
+			if( this.subscribers.containsValue( false ) )
+			{
+				final List<PacketMEInventoryUpdate> packets = new ArrayList<PacketMEInventoryUpdate>();
+				PacketMEInventoryUpdate piu = new PacketMEInventoryUpdate( this.dictionary );
+				packets.add( piu );
+
+				for( final IAEItemStack send : monitorCache )
+				{
+					try
+					{
+						piu.appendDefinition( send );
+					}
+					catch( final BufferOverflowException boe )
+					{
+						piu = new PacketMEInventoryUpdate( this.dictionary );
+						packets.add( piu );
+						piu.appendDefinition( send );
+					}
+				}
+
+				// the new players only know what is stored right now.
+				this.dictionary.retainKnown( monitorCache );
+				this.send( packets, false );
+
+				for( final Map.Entry<EntityPlayerMP, Boolean> e : this.subscribers.entrySet() )
+				{
+					e.setValue( true );
+				}
+			}
+		}
+		catch( final IOException e )
+		{
+			AELog.debug( e );
+		}
+	}
+
+	private void send( final List<PacketMEInventoryUpdate> packets, final boolean synced )
+	{
+		for( final Map.Entry<EntityPlayerMP, Boolean> e : this.subscribers.entrySet() )
+		{
+			if( e.getValue() == synced )
+			{
+				for( final PacketMEInventoryUpdate piu : packets )
+				{
+					NetworkHandler.instance().sendTo( piu, e.getKey() );
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean isValid( final Object verificationToken )
+	{
+		if( this.subscribers.isEmpty() )
+		{
+			this.listening = false;
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public void postChange( final IBaseMonitor<IAEItemStack> monitor, final Iterable<IAEItemStack> change, final BaseActionSource actionSource )
+	{
+		for( final IAEItemStack is : change )
+		{
+			this.pending.add( is );
+		}
+	}
+
+	@Override
+	public void onListUpdate()
+	{
+		this.pending.resetStatus();
+
+		for( final Map.Entry<EntityPlayerMP, Boolean> e : this.subscribers.entrySet() )
+		{
+			e.setValue( false );
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.me.cache.helpers;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Rolling histogram of tick durations in nanoseconds, bucketed by powers of two.
+ *
+ * Old samples fade out by halving every bucket once per {@link TickProfiler} decay period, so the figures follow the
+ * recent behaviour of a device instead of its whole lifetime.
+ */
+public class TickHistogram
+{
+
+	private static final int BUCKETS = 40;
+
+	private final long[] buckets = new long[BUCKETS];
+	private long count;
+	private long total;
+	private long max;
+	private long epoch;
+	private int generation;
+
+	TickHistogram( final long epoch, final int generation )
+	{
+		this.epoch = epoch;
+		this.generation = generation;
+	}
+
+	void record( final long nanos )
+	{
+		final long value = Math.max( 0, nanos );
+
+		this.buckets[bucketOf( value )]++;
+		this.count++;
+		this.total += value;
+		this.max = Math.max( this.max, value );
+	}
+
+	/**
+	 * Brings the histogram up to the given decay period, halving it once for every period missed and dropping it
+	 * entirely after a reset.
+	 */
+	void sync( final long epoch, final int generation )
+	{
+		if( this.generation != generation )
+		{
+			this.clear();
+			this.generation = generation;
+			this.epoch = epoch;
+			return;
+		}
+
+		final long missed = epoch - this.epoch;
+
+		if( missed <= 0 )
+		{
+			return;
+		}
+
+		this.epoch = epoch;
+
+		if( missed >= 63 )
+		{
+			this.clear();
+			return;
+		}
+
+		final int shift = (int) missed;
+
+		this.count = 0;
+		for( int x = 0; x < BUCKETS; x++ )
+		{
+			this.buckets[x] >>= shift;
+			this.count += this.buckets[x];
+		}
+
+		this.total >>= shift;
+		this.max = this.count == 0 ? 0 : this.max;
+	}
+
+	private void clear()
+	{
+		Arrays.fill( this.buckets, 0 );
+		this.count = 0;
+		this.total = 0;
+		this.max = 0;
+	}
+
+	private static int bucketOf( final long nanos )
+	{
+		return Math.min( BUCKETS - 1, 63 - Long.numberOfLeadingZeros( nanos | 1 ) );
+	}
+
+	public long getCount()
+	{
+		return this.count;
+	}
+
+	public long getTotalNanos()
+	{
+		return this.total;
+	}
+
+	public long getMaxNanos()
+	{
+		return this.max;
+	}
+
+	public long getAvgNanos()
+	{
+		return this.count == 0 ? 0 : this.total / this.count;
+	}
+
+	/**
+	 * @return upper bound of the bucket containing the given percentile, 0 when empty.
+	 */
+	public long getPercentileNanos( final double percentile )
+	{
+		if( this.count == 0 )
+		{
+			return 0;
+		}
+
+		final long rank = (long) Math.ceil( this.count * Math.min( 1.0, Math.max( 0.0, percentile ) ) );
+		long seen = 0;
+
+		for( int x = 0; x < BUCKETS; x++ )
+		{
+			seen += this.buckets[x];
+
+			if( seen >= rank && this.buckets[x] > 0 )
+			{
+				return Math.min( this.max, ( 2L << x ) - 1 );
+			}
+		}
+
+		return this.max;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.me.cache.helpers;
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import appeng.api.networking.IGrid;
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.ticking.ITickManager;
+import appeng.me.cache.TickManagerCache;
+
+
+/**
+ * Opt-in timing of grid ticks, toggled through the /ae2 command.
+ *
+ * Keeps a {@link TickHistogram} per ticking node, per machine class and per grid cache class. All of it is only
+ * touched from the server thread.
+ */
+public final class TickProfiler
+{
+
+	/**
+	 * Server ticks between halving all histograms.
+	 */
+	private static final int DECAY_PERIOD = 20 * 60;
+
+	private static final Map<Class<?>, TickHistogram> MACHINES = new HashMap<Class<?>, TickHistogram>();
+	private static final Map<Class<?>, TickHistogram> CACHES = new HashMap<Class<?>, TickHistogram>();
+
+	private static volatile boolean enabled = false;
+	private static long ticks = 0;
+	private static long epoch = 0;
+	private static int generation = 0;
+
+	private TickProfiler()
+	{
+	}
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public static void setEnabled( final boolean enabled )
+	{
+		TickProfiler.enabled = enabled;
+	}
+
+	/**
+	 * Drops everything recorded so far, per node histograms are cleared the next time they are touched.
+	 */
+	public static void reset()
+	{
+		generation++;
+		MACHINES.clear();
+		CACHES.clear();
+	}
+
+	public static void onServerTick()
+	{
+		if( enabled && ++ticks % DECAY_PERIOD == 0 )
+		{
+			epoch++;
+		}
+	}
+
+	public static void recordMachine( final TickTracker tt, final long nanos )
+	{
+		if( tt.profile == null )
+		{
+			tt.profile = new TickHistogram( epoch, generation );
+		}
+
+		record( tt.profile, nanos );
+		record( getHistogram( MACHINES, tt.getGridTickable().getClass() ), nanos );
+	}
+
+	public static void recordCache( final Class<?> cache, final long nanos )
+	{
+		record( getHistogram( CACHES, cache ), nanos );
+	}
+
+	/**
+	 * @return the histogram of the tracked node, or null if it has not been ticked while profiling.
+	 */
+	public static TickHistogram getProfile( final TickTracker tt )
+	{
+		if( tt.profile != null )
+		{
+			tt.profile.sync( epoch, generation );
+		}
+
+		return tt.profile;
+	}
+
+	public static Map<Class<?>, TickHistogram> getMachineTimes()
+	{
+		return synced( MACHINES );
+	}
+
+	public static Map<Class<?>, TickHistogram> getCacheTimes()
+	{
+		return synced( CACHES );
+	}
+
+	/**
+	 * Average tick time of a node for the probe tooltips, preferring the profiled histogram over the last few ticks.
+	 *
+	 * @return average in nanoseconds or -1 if the node is not ticking.
+	 */
+	public static long getAvgNanos( final IGridNode node )
+	{
+		final IGrid grid = node == null ? null : node.getGrid();
+
+		if( grid == null )
+		{
+			return -1;
+		}
+
+		final ITickManager tm = grid.getCache( ITickManager.class );
+
+		if( !( tm instanceof TickManagerCache ) )
+		{
+			return -1;
+		}
+
+		final TickTracker tt = ( (TickManagerCache) tm ).getTracker( node );
+
+		if( tt == null )
+		{
+			return -1;
+		}
+
+		final TickHistogram h = getProfile( tt );
+		return h != null && h.getCount() > 0 ? h.getAvgNanos() : tt.getAvgNanos();
+	}
+
+	private static void record( final TickHistogram h, final long nanos )
+	{
+		h.sync( epoch, generation );
+		h.record( nanos );
+	}
+
+	private static TickHistogram getHistogram( final Map<Class<?>, TickHistogram> map, final Class<?> c )
+	{
+		TickHistogram h = map.get( c );
+
+		if( h == null )
+		{
+			map.put( c, h = new TickHistogram( epoch, generation ) );
+		}
+
+		return h;
+	}
+
+	private static Map<Class<?>, TickHistogram> synced( final Map<Class<?>, TickHistogram> map )
+	{
+		for( final TickHistogram h : map.values() )
+		{
+			h.sync( epoch, generation );
+		}
+
+		return Collections.unmodifiableMap( map );
+	}
+}
@@ -19,44 +19,68 @@
 package appeng.me.cache.helpers;
 
 
-import javax.annotation.Nonnull;
-
 import net.minecraft.crash.CrashReportCategory;
 
 import appeng.api.networking.IGridNode;
 import appeng.api.networking.ticking.IGridTickable;
 import appeng.api.networking.ticking.TickingRequest;
 import appeng.api.util.DimensionalCoord;
-import appeng.me.cache.TickManagerCache;
 import appeng.parts.AEBasePart;
 
 
-public class TickTracker implements Comparable<TickTracker>
+public class TickTracker
 {
 
 	private final TickingRequest request;
 	private final IGridTickable gt;
 	private final IGridNode node;
-	private final TickManagerCache host;
 
-	private final long LastFiveTicksTime = 0;
+	private final long[] lastFiveTicksTime = new long[5];
+	private long lastFiveTicksTotal = 0;
+	private int nextSample = 0;
+	private int samples = 0;
 
 	private long lastTick;
 	private int currentRate;
 
-	public TickTracker( final TickingRequest req, final IGridNode node, final IGridTickable gt, final long currentTick, final TickManagerCache tickManagerCache )
+	// position in the TickWheel
+	long dueTick;
+	int slot = -1;
+	TickTracker prev;
+	TickTracker next;
+
+	// only set once ticked while the TickProfiler is enabled
+	TickHistogram profile;
+
+	public TickTracker( final TickingRequest req, final IGridNode node, final IGridTickable gt, final long currentTick )
 	{
 		this.request = req;
 		this.gt = gt;
 		this.node = node;
 		this.setCurrentRate( ( req.minTickRate + req.maxTickRate ) / 2 );
 		this.setLastTick( currentTick );
-		this.host = tickManagerCache;
 	}
 
 	public long getAvgNanos()
 	{
-		return( this.LastFiveTicksTime / 5 );
+		return this.samples == 0 ? 0 : this.lastFiveTicksTotal / this.samples;
+	}
+
+	public void addTickTime( final long nanos )
+	{
+		this.lastFiveTicksTotal += nanos - this.lastFiveTicksTime[this.nextSample];
+		this.lastFiveTicksTime[this.nextSample] = nanos;
+		this.nextSample = ( this.nextSample + 1 ) % this.lastFiveTicksTime.length;
+
+		if( this.samples < this.lastFiveTicksTime.length )
+		{
+			this.samples++;
+		}
+	}
+
+	public long getNextTick()
+	{
+		return this.getLastTick() + this.getCurrentRate();
 	}
 
 	public void setRate( final int rate )
@@ -74,14 +98,6 @@ public class TickTracker implements Comparable<TickTracker>
 		}
 	}
 
-	@Override
-	public int compareTo( @Nonnull final TickTracker t )
-	{
-		final int nextTick = (int) ( ( this.getLastTick() - this.host.getCurrentTick() ) + this.getCurrentRate() );
-		final int ts_nextTick = (int) ( ( t.getLastTick() - this.host.getCurrentTick() ) + t.getCurrentRate() );
-		return nextTick - ts_nextTick;
-	}
-
 	public void addEntityCrashInfo( final CrashReportCategory crashreportcategory )
 	{
 		if( this.getGridTickable() instanceof AEBasePart )
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.cache.helpers;
+
+
+import java.util.List;
+
+
+/**
+ * Hashed timing wheel of {@link TickTracker}s keyed by the absolute tick they are due at.
+ *
+ * Scheduling and cancelling are constant time, trackers are linked directly into the slot of their due tick. Trackers
+ * due more than one revolution ahead simply stay in their slot until their tick comes around.
+ */
+public class TickWheel
+{
+
+	private static final int SLOTS = 256;
+	private static final int MASK = SLOTS - 1;
+
+	private final TickTracker[] heads = new TickTracker[SLOTS];
+	private final TickTracker[] tails = new TickTracker[SLOTS];
+
+	public void schedule( final TickTracker tt, final long dueTick )
+	{
+		this.cancel( tt );
+
+		final int slot = (int) ( dueTick & MASK );
+
+		tt.dueTick = dueTick;
+		tt.slot = slot;
+		tt.prev = this.tails[slot];
+		tt.next = null;
+
+		if( this.tails[slot] == null )
+		{
+			this.heads[slot] = tt;
+		}
+		else
+		{
+			this.tails[slot].next = tt;
+		}
+
+		this.tails[slot] = tt;
+	}
+
+	public void cancel( final TickTracker tt )
+	{
+		final int slot = tt.slot;
+
+		if( slot < 0 )
+		{
+			return;
+		}
+
+		if( tt.prev == null )
+		{
+			this.heads[slot] = tt.next;
+		}
+		else
+		{
+			tt.prev.next = tt.next;
+		}
+
+		if( tt.next == null )
+		{
+			this.tails[slot] = tt.prev;
+		}
+		else
+		{
+			tt.next.prev = tt.prev;
+		}
+
+		tt.prev = null;
+		tt.next = null;
+		tt.slot = -1;
+	}
+
+	public boolean isScheduled( final TickTracker tt )
+	{
+		return tt.slot >= 0;
+	}
+
+	/**
+	 * Removes every tracker due at or before the given tick from its slot and adds it to the output, in the order they
+	 * were scheduled.
+	 */
+	public void pollDue( final long tick, final List<TickTracker> out )
+	{
+		TickTracker tt = this.heads[(int) ( tick & MASK )];
+
+		while( tt != null )
+		{
+			final TickTracker next = tt.next;
+
+			if( tt.dueTick <= tick )
+			{
+				this.cancel( tt );
+				out.add( tt );
+			}
+
+			tt = next;
+		}
+	}
+}
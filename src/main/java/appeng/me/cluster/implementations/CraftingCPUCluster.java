@@ -19,15 +19,19 @@
 package appeng.me.cluster.implementations;
 
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
 import net.minecraft.inventory.InventoryCrafting;
 import net.minecraft.item.ItemStack;
@@ -89,6 +93,8 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 	private final int[] usedOps = new int[3];
 	private final Map<ICraftingPatternDetails, TaskProgress> tasks = new HashMap<ICraftingPatternDetails, TaskProgress>();
 	// INSTANCE sate
+	// mediums which reported busy during the current tick.
+	private final Set<ICraftingMedium> busyMediums = Sets.newIdentityHashSet();
 	private final LinkedList<TileCraftingTile> tiles = new LinkedList<TileCraftingTile>();
 	private final LinkedList<TileCraftingTile> storage = new LinkedList<TileCraftingTile>();
 	private final LinkedList<TileCraftingMonitorTile> status = new LinkedList<TileCraftingMonitorTile>();
@@ -490,6 +496,27 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 		return null;
 	}
 
+	/**
+	 * Only repeats the input check when the inventory changed in a way which can flip the last result.
+	 */
+	private boolean canCraft( final ICraftingPatternDetails details, final TaskProgress progress )
+	{
+		final int injections = this.inventory.getInjectionCount();
+		final int extractions = this.inventory.getExtractionCount();
+
+		if( progress.checked && ( progress.canCraft ? progress.extractions == extractions : progress.injections == injections ) )
+		{
+			return progress.canCraft;
+		}
+
+		progress.canCraft = this.canCraft( details, details.getCondensedInputs() );
+		progress.injections = injections;
+		progress.extractions = extractions;
+		progress.checked = true;
+
+		return progress.canCraft;
+	}
+
 	private boolean canCraft( final ICraftingPatternDetails details, final IAEItemStack[] condensedInputs )
 	{
 		for( IAEItemStack g : condensedInputs )
@@ -603,6 +630,7 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 			return;
 		}
 
+		this.busyMediums.clear();
 		this.remainingOperations = this.accelerator + 1 - ( this.usedOps[0] + this.usedOps[1] + this.usedOps[2] );
 		final int started = this.remainingOperations;
 
@@ -641,7 +669,7 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 
 			final ICraftingPatternDetails details = e.getKey();
 
-			if( this.canCraft( details, details.getCondensedInputs() ) )
+			if( this.canCraft( details, e.getValue() ) )
 			{
 				InventoryCrafting ic = null;
 
@@ -652,7 +680,7 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 						continue;
 					}
 
-					if( !m.isBusy() )
+					if( !this.isBusy( m ) )
 					{
 						if( ic == null )
 						{
@@ -800,6 +828,25 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 		}
 	}
 
+	/**
+	 * Mediums do not become idle again during the tick, so each one is only asked until it reports busy.
+	 */
+	private boolean isBusy( final ICraftingMedium m )
+	{
+		if( this.busyMediums.contains( m ) )
+		{
+			return true;
+		}
+
+		if( m.isBusy() )
+		{
+			this.busyMediums.add( m );
+			return true;
+		}
+
+		return false;
+	}
+
 	private void storeItems()
 	{
 		final IGrid g = this.getGrid();
@@ -812,6 +859,8 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 		final IStorageGrid sg = g.getCache( IStorageGrid.class );
 		final IMEInventory<IAEItemStack> ii = sg.getItemInventory();
 
+		final List<IAEItemStack> toStore = new ArrayList<>();
+
 		for( IAEItemStack is : this.inventory.getItemList() )
 		{
 			is = this.inventory.extractItems( is.copy(), Actionable.MODULATE, this.machineSrc );
@@ -819,10 +868,13 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 			if( is != null )
 			{
 				this.postChange( is, this.machineSrc );
-				is = ii.injectItems( is, Actionable.MODULATE, this.machineSrc );
+				toStore.add( is );
 			}
+		}
 
-			if( is != null )
+		if( !toStore.isEmpty() )
+		{
+			for( final IAEItemStack is : ii.injectItemsBulk( toStore, Actionable.MODULATE, this.machineSrc ) )
 			{
 				this.inventory.injectItems( is, Actionable.MODULATE, this.machineSrc );
 			}
@@ -1338,5 +1390,11 @@ public final class CraftingCPUCluster implements IAECluster, ICraftingCPU
 	private static class TaskProgress
 	{
 		private long value;
+
+		// last input check, with the inventory counters it was made at.
+		private boolean checked;
+		private boolean canCraft;
+		private int injections;
+		private int extractions;
 	}
 }
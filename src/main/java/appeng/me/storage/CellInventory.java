@@ -20,6 +20,9 @@ package appeng.me.storage;
 
 
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
@@ -58,15 +61,43 @@ public class CellInventory implements ICellInventory
 	private static final String ITEM_PRE_FORMATTED_SLOT = "PF#";
 	private static final String ITEM_PRE_FORMATTED_NAME = "PN";
 	private static final String ITEM_PRE_FORMATTED_FUZZY = "FP";
+	private static final int MAX_ITEM_TYPES = 63;
 	private static final HashSet<Integer> BLACK_LIST = new HashSet<Integer>();
-	private static String[] itemSlots;
-	private static String[] itemSlotCount;
+	private static final String[] itemSlots = new String[MAX_ITEM_TYPES];
+	private static final String[] itemSlotCount = new String[MAX_ITEM_TYPES];
+
+	/**
+	 * Cells waiting for their write-behind save, guarded by itself.
+	 */
+	private static final Set<CellInventory> PENDING_SAVES = new HashSet<CellInventory>();
+
+	static
+	{
+		for( int x = 0; x < MAX_ITEM_TYPES; x++ )
+		{
+			itemSlots[x] = ITEM_SLOT + x;
+			itemSlotCount[x] = ITEM_SLOT_COUNT + x;
+		}
+	}
 	private final NBTTagCompound tagCompound;
 	private final ISaveProvider container;
-	private int maxItemTypes = 63;
+	private int maxItemTypes = MAX_ITEM_TYPES;
 	private short storedItems = 0;
 	private int storedItemCount = 0;
 	private IItemList<IAEItemStack> cellItems;
+
+	/**
+	 * Stable NBT slot of each stored type, so adding or removing a type never shifts any other slot.
+	 */
+	private final IAEItemStack[] slotStacks = new IAEItemStack[MAX_ITEM_TYPES];
+	private final Map<IAEItemStack, Integer> slotByStack = new IdentityHashMap<IAEItemStack, Integer>();
+
+	/**
+	 * One bit per slot, slots whose stack has to be written or removed and slots whose count has changed.
+	 */
+	private long dirtyStackSlots = 0;
+	private long dirtyCountSlots = 0;
+	private boolean savePending = false;
 	private ItemStack i = ItemStack.EMPTY;
 	private IStorageCell cellType;
 
@@ -78,18 +109,6 @@ public class CellInventory implements ICellInventory
 
 	private CellInventory( final ItemStack o, final ISaveProvider container ) throws AppEngException
 	{
-		if( itemSlots == null )
-		{
-			itemSlots = new String[this.maxItemTypes];
-			itemSlotCount = new String[this.maxItemTypes];
-
-			for( int x = 0; x < this.maxItemTypes; x++ )
-			{
-				itemSlots[x] = ITEM_SLOT + x;
-				itemSlotCount[x] = ITEM_SLOT_COUNT + x;
-			}
-		}
-
 		if (o.isEmpty()) {
 			throw new AppEngException("ItemStack was used as a cell, but was not a cell!");
 		}
@@ -114,9 +133,9 @@ public class CellInventory implements ICellInventory
 			throw new AppEngException( "ItemStack was used as a cell, but was not a cell!" );
 		}
 
-		if( this.maxItemTypes > 63 )
+		if( this.maxItemTypes > MAX_ITEM_TYPES )
 		{
-			this.maxItemTypes = 63;
+			this.maxItemTypes = MAX_ITEM_TYPES;
 		}
 		if( this.maxItemTypes < 1 )
 		{
@@ -179,6 +198,32 @@ public class CellInventory implements ICellInventory
 		return false;
 	}
 
+	/**
+	 * Writes the changes of all cells which are waiting for their write-behind save into their NBT.
+	 *
+	 * Called once per server tick and before a cell container saves or hands out its cells.
+	 */
+	public static void flushPendingSaves()
+	{
+		final CellInventory[] pending;
+
+		synchronized( PENDING_SAVES )
+		{
+			if( PENDING_SAVES.isEmpty() )
+			{
+				return;
+			}
+
+			pending = PENDING_SAVES.toArray( new CellInventory[PENDING_SAVES.size()] );
+			PENDING_SAVES.clear();
+		}
+
+		for( final CellInventory cell : pending )
+		{
+			cell.saveChanges();
+		}
+	}
+
 	public static void addBasicBlackList( final int itemID, final int meta )
 	{
 		BLACK_LIST.add( ( meta << Platform.DEF_OFFSET ) | itemID );
@@ -210,24 +255,15 @@ public class CellInventory implements ICellInventory
 			return null;
 		}
 
-		if( isBlackListed( input ) || this.cellType.isBlackListed( this.i, input ) )
+		if( !this.canStore( input ) )
 		{
 			return input;
 		}
 
 		final ItemStack sharedItemStack = input.getItemStack();
 
-		if( CellInventory.isStorageCell( sharedItemStack ) )
-		{
-			final IMEInventory meInventory = getCell( sharedItemStack, null );
-			if( meInventory != null && !this.isEmpty( meInventory ) )
-			{
-				return input;
-			}
-		}
-
 		final IAEItemStack l = this.getCellItems().findPrecise( input );
-		if( l != null )
+		if( l != null && l.getStackSize() > 0 )
 		{
 			final long remainingItemSlots = this.getRemainingItemCount();
 			if( remainingItemSlots < 0 )
@@ -243,7 +279,7 @@ public class CellInventory implements ICellInventory
 				{
 					l.setStackSize( l.getStackSize() + remainingItemSlots );
 					this.updateItemCount( remainingItemSlots );
-					this.saveChanges();
+					this.markCountDirty( l );
 				}
 				return r;
 			}
@@ -253,7 +289,7 @@ public class CellInventory implements ICellInventory
 				{
 					l.setStackSize( l.getStackSize() + input.getStackSize() );
 					this.updateItemCount( input.getStackSize() );
-					this.saveChanges();
+					this.markCountDirty( l );
 				}
 				return null;
 			}
@@ -276,7 +312,7 @@ public class CellInventory implements ICellInventory
 						this.cellItems.add( AEItemStack.create( toWrite ) );
 						this.updateItemCount( toWrite.getCount() );
 
-						this.saveChanges();
+						this.assignSlot( this.cellItems.findPrecise( input ) );
 					}
 					return AEItemStack.create( toReturn );
 				}
@@ -285,7 +321,7 @@ public class CellInventory implements ICellInventory
 				{
 					this.updateItemCount( input.getStackSize() );
 					this.cellItems.add( input );
-					this.saveChanges();
+					this.assignSlot( this.cellItems.findPrecise( input ) );
 				}
 
 				return null;
@@ -295,6 +331,91 @@ public class CellInventory implements ICellInventory
 		return input;
 	}
 
+	/**
+	 * Simulated bulk insertions account for the bytes and types used by the stacks before them, so the result matches
+	 * what inserting all of them would do.
+	 */
+	@Override
+	public IItemList<IAEItemStack> injectItemsBulk( final Iterable<IAEItemStack> input, final Actionable mode, final BaseActionSource src )
+	{
+		if( mode == Actionable.MODULATE )
+		{
+			return ICellInventory.super.injectItemsBulk( input, mode, src );
+		}
+
+		final IItemList<IAEItemStack> leftovers = this.getChannel().createList();
+		final IItemList<IAEItemStack> added = this.getChannel().createList();
+		long count = this.getStoredItemCount();
+		long types = this.getStoredItemTypes();
+
+		for( final IAEItemStack stack : input )
+		{
+			if( stack == null || stack.getStackSize() == 0 )
+			{
+				continue;
+			}
+
+			long fits = 0;
+
+			if( this.canStore( stack ) )
+			{
+				final IAEItemStack l = this.getCellItems().findPrecise( stack );
+				final boolean known = ( l != null && l.getStackSize() > 0 ) || added.findPrecise( stack ) != null;
+
+				if( known )
+				{
+					fits = this.getRemainingItemCount( count, types );
+				}
+				else if( this.canHoldNewItem( count, types ) )
+				{
+					fits = this.getRemainingItemCount( count, types ) - this.getBytesPerType() * 8;
+				}
+
+				fits = Math.max( 0, Math.min( fits, stack.getStackSize() ) );
+
+				if( fits > 0 )
+				{
+					final IAEItemStack stored = stack.copy();
+					stored.setStackSize( fits );
+					added.add( stored );
+
+					count += fits;
+					types += known ? 0 : 1;
+				}
+			}
+
+			if( fits < stack.getStackSize() )
+			{
+				final IAEItemStack r = stack.copy();
+				r.setStackSize( stack.getStackSize() - fits );
+				leftovers.add( r );
+			}
+		}
+
+		return leftovers;
+	}
+
+	private boolean canStore( final IAEItemStack input )
+	{
+		if( isBlackListed( input ) || this.cellType.isBlackListed( this.i, input ) )
+		{
+			return false;
+		}
+
+		final ItemStack sharedItemStack = input.getItemStack();
+
+		if( CellInventory.isStorageCell( sharedItemStack ) )
+		{
+			final IMEInventory meInventory = getCell( sharedItemStack, null );
+			if( meInventory != null && !this.isEmpty( meInventory ) )
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	@Override
 	public IAEItemStack extractItems( final IAEItemStack request, final Actionable mode, final BaseActionSource src )
 	{
@@ -319,7 +440,7 @@ public class CellInventory implements ICellInventory
 				{
 					this.updateItemCount( -l.getStackSize() );
 					l.setStackSize( 0 );
-					this.saveChanges();
+					this.releaseSlot( l );
 				}
 			}
 			else
@@ -329,7 +450,7 @@ public class CellInventory implements ICellInventory
 				{
 					l.setStackSize( l.getStackSize() - size );
 					this.updateItemCount( -size );
-					this.saveChanges();
+					this.markCountDirty( l );
 				}
 			}
 		}
@@ -341,7 +462,7 @@ public class CellInventory implements ICellInventory
 	{
 		if( this.cellItems == null )
 		{
-			this.cellItems = AEApi.instance().storage().createItemList();
+			this.cellItems = this.createItemList();
 			this.loadCellItems();
 		}
 
@@ -351,51 +472,127 @@ public class CellInventory implements ICellInventory
 	private void updateItemCount( final long delta )
 	{
 		this.storedItemCount += delta;
-		this.tagCompound.setInteger( ITEM_COUNT_TAG, this.storedItemCount );
 	}
 
-	void saveChanges()
+	private void assignSlot( final IAEItemStack stack )
 	{
-		// cellItems.clean();
-		int itemCount = 0;
+		if( stack == null || this.slotByStack.containsKey( stack ) )
+		{
+			this.markCountDirty( stack );
+			return;
+		}
 
-		// add new pretty stuff...
-		int x = 0;
-		for( final IAEItemStack v : this.cellItems )
+		for( int x = 0; x < MAX_ITEM_TYPES; x++ )
 		{
-			itemCount += v.getStackSize();
+			if( this.slotStacks[x] == null )
+			{
+				this.slotStacks[x] = stack;
+				this.slotByStack.put( stack, x );
+				this.storedItems++;
+				this.dirtyStackSlots |= 1L << x;
+				this.dirtyCountSlots |= 1L << x;
+				this.queueSave();
+				return;
+			}
+		}
+
+		throw new IllegalStateException( "Storage cell has no free slot left for " + stack );
+	}
 
-			final NBTBase c = this.tagCompound.getTag( itemSlots[x] );
-			if( c instanceof NBTTagCompound )
+	private void releaseSlot( final IAEItemStack stack )
+	{
+		final Integer slot = this.slotByStack.remove( stack );
+
+		if( slot != null )
+		{
+			this.slotStacks[slot] = null;
+			this.storedItems--;
+			this.dirtyStackSlots |= 1L << slot;
+			this.dirtyCountSlots &= ~( 1L << slot );
+		}
+
+		this.queueSave();
+	}
+
+	private void markCountDirty( final IAEItemStack stack )
+	{
+		final Integer slot = stack == null ? null : this.slotByStack.get( stack );
+
+		if( slot != null )
+		{
+			this.dirtyCountSlots |= 1L << slot;
+		}
+
+		this.queueSave();
+	}
+
+	/**
+	 * Defers writing the changes until the next {@link #flushPendingSaves()}, cells without a container are written
+	 * right away as nothing would ever flush them.
+	 */
+	private void queueSave()
+	{
+		if( this.container == null )
+		{
+			this.saveChanges();
+			return;
+		}
+
+		if( !this.savePending )
+		{
+			this.savePending = true;
+
+			synchronized( PENDING_SAVES )
 			{
-				v.writeToNBT( (NBTTagCompound) c );
+				PENDING_SAVES.add( this );
 			}
-			else
+
+			this.container.saveChanges( this );
+		}
+	}
+
+	void saveChanges()
+	{
+		this.savePending = false;
+
+		for( int x = 0; x < MAX_ITEM_TYPES && ( this.dirtyStackSlots | this.dirtyCountSlots ) != 0; x++ )
+		{
+			final long bit = 1L << x;
+			final IAEItemStack v = this.slotStacks[x];
+
+			if( ( this.dirtyStackSlots & bit ) != 0 )
 			{
-				final NBTTagCompound g = new NBTTagCompound();
-				v.writeToNBT( g );
-				this.tagCompound.setTag( itemSlots[x], g );
+				if( v == null )
+				{
+					this.tagCompound.removeTag( itemSlots[x] );
+					this.tagCompound.removeTag( itemSlotCount[x] );
+				}
+				else
+				{
+					final NBTBase c = this.tagCompound.getTag( itemSlots[x] );
+					if( c instanceof NBTTagCompound )
+					{
+						v.writeToNBT( (NBTTagCompound) c );
+					}
+					else
+					{
+						final NBTTagCompound g = new NBTTagCompound();
+						v.writeToNBT( g );
+						this.tagCompound.setTag( itemSlots[x], g );
+					}
+				}
 			}
 
-			/*
-			 * NBTBase tagSlotCount = tagCompound.getTag( itemSlotCount[x] ); if ( tagSlotCount instanceof
-			 * NBTTagInt ) ((NBTTagInt) tagSlotCount).data = (int) v.getStackSize(); else
-			 */
-			this.tagCompound.setInteger( itemSlotCount[x], (int) v.getStackSize() );
+			if( v != null && ( this.dirtyCountSlots & bit ) != 0 )
+			{
+				this.tagCompound.setInteger( itemSlotCount[x], (int) v.getStackSize() );
+			}
 
-			x++;
+			this.dirtyStackSlots &= ~bit;
+			this.dirtyCountSlots &= ~bit;
 		}
 
-		// NBTBase tagType = tagCompound.getTag( ITEM_TYPE_TAG );
-		// NBTBase tagCount = tagCompound.getTag( ITEM_COUNT_TAG );
-		final short oldStoredItems = this.storedItems;
-
-		/*
-		 * if ( tagType instanceof NBTTagShort ) ((NBTTagShort) tagType).data = storedItems = (short) cellItems.size();
-		 * else
-		 */
-		this.storedItems = (short) this.cellItems.size();
-		if( this.cellItems.isEmpty() )
+		if( this.storedItems == 0 )
 		{
 			this.tagCompound.removeTag( ITEM_TYPE_TAG );
 		}
@@ -404,29 +601,13 @@ public class CellInventory implements ICellInventory
 			this.tagCompound.setShort( ITEM_TYPE_TAG, this.storedItems );
 		}
 
-		/*
-		 * if ( tagCount instanceof NBTTagInt ) ((NBTTagInt) tagCount).data = storedItemCount = itemCount; else
-		 */
-		this.storedItemCount = itemCount;
-		if( itemCount == 0 )
+		if( this.storedItemCount == 0 )
 		{
 			this.tagCompound.removeTag( ITEM_COUNT_TAG );
 		}
 		else
 		{
-			this.tagCompound.setInteger( ITEM_COUNT_TAG, itemCount );
-		}
-
-		// clean any old crusty stuff...
-		for( ; x < oldStoredItems && x < this.maxItemTypes; x++ )
-		{
-			this.tagCompound.removeTag( itemSlots[x] );
-			this.tagCompound.removeTag( itemSlotCount[x] );
-		}
-
-		if( this.container != null )
-		{
-			this.container.saveChanges( this );
+			this.tagCompound.setInteger( ITEM_COUNT_TAG, this.storedItemCount );
 		}
 	}
 
@@ -434,24 +615,72 @@ public class CellInventory implements ICellInventory
 	{
 		if( this.cellItems == null )
 		{
-			this.cellItems = AEApi.instance().storage().createItemList();
+			this.cellItems = this.createItemList();
 		}
 
 		this.cellItems.resetStatus(); // clears totals and stuff.
+		this.slotByStack.clear();
 
-		final int types = (int) this.getStoredItemTypes();
+		final int storedTypes = this.tagCompound.getShort( ITEM_TYPE_TAG );
+		short types = 0;
+		int itemCount = 0;
 
-		for( int slot = 0; slot < types; slot++ )
+		// slots are stable, so removed types leave gaps behind.
+		for( int slot = 0; slot < MAX_ITEM_TYPES; slot++ )
 		{
+			this.slotStacks[slot] = null;
+
+			if( !this.tagCompound.hasKey( itemSlots[slot] ) )
+			{
+				continue;
+			}
+
+			if( types >= storedTypes )
+			{
+				// left behind by an earlier write with more types, remove it with the next save.
+				this.dirtyStackSlots |= 1L << slot;
+				continue;
+			}
+
 			NBTTagCompound compoundTag = this.tagCompound.getCompoundTag( itemSlots[slot] );
 			int stackSize = this.tagCompound.getInteger( itemSlotCount[slot] );
-			loadCellItem( compoundTag, stackSize );
+			final IAEItemStack loaded = loadCellItem( compoundTag, stackSize );
+
+			if( loaded == null || this.slotByStack.containsKey( loaded ) )
+			{
+				// unloadable or duplicate entry, drop it with the next save.
+				this.dirtyStackSlots |= 1L << slot;
+
+				if( loaded != null )
+				{
+					this.dirtyCountSlots |= 1L << this.slotByStack.get( loaded );
+				}
+				continue;
+			}
+
+			this.slotStacks[slot] = loaded;
+			this.slotByStack.put( loaded, slot );
+			types++;
+		}
+
+		for( final IAEItemStack v : this.cellItems )
+		{
+			itemCount += v.getStackSize();
 		}
 
-		// cellItems.clean();
+		this.storedItems = types;
+		this.storedItemCount = itemCount;
+	}
+
+	/**
+	 * @return a new list for the items stored in this cell
+	 */
+	protected IItemList<IAEItemStack> createItemList()
+	{
+		return AEApi.instance().storage().createItemList();
 	}
 
-	private void loadCellItem( NBTTagCompound compoundTag, int stackSize )
+	private IAEItemStack loadCellItem( NBTTagCompound compoundTag, int stackSize )
 	{
 
 		// Now load the item stack
@@ -461,7 +690,7 @@ public class CellInventory implements ICellInventory
 			t = new ItemStack( compoundTag );
 			if (t.isEmpty()) {
 				AELog.warn("Removing item " + compoundTag + " from storage cell because the associated item type couldn't be found.");
-				return;
+				return null;
 			}
 		}
 		catch( Throwable ex )
@@ -469,7 +698,7 @@ public class CellInventory implements ICellInventory
 			if( AEConfig.instance().isRemoveCrashingItemsOnLoad() )
 			{
 				AELog.warn( ex, "Removing item " + compoundTag + " from storage cell because loading the ItemStack crashed." );
-				return;
+				return null;
 			}
 			throw ex;
 		}
@@ -480,18 +709,22 @@ public class CellInventory implements ICellInventory
 		{
 			try
 			{
-				this.cellItems.add( AEItemStack.create( t ) );
+				final IAEItemStack loaded = AEItemStack.create( t );
+				this.cellItems.add( loaded );
+				return this.cellItems.findPrecise( loaded );
 			}
 			catch( Throwable ex )
 			{
 				if( AEConfig.instance().isRemoveCrashingItemsOnLoad() )
 				{
 					AELog.warn( ex, "Removing item " + t + " from storage cell because processing the loaded item crashed." );
-					return;
+					return null;
 				}
 				throw ex;
 			}
 		}
+
+		return null;
 	}
 
 	@Override
@@ -550,9 +783,14 @@ public class CellInventory implements ICellInventory
 	@Override
 	public boolean canHoldNewItem()
 	{
-		final long bytesFree = this.getFreeBytes();
-		return ( bytesFree > this.getBytesPerType() || ( bytesFree == this.getBytesPerType() && this.getUnusedItemCount() > 0 ) ) && this
-				.getRemainingItemTypes() > 0;
+		return this.canHoldNewItem( this.getStoredItemCount(), this.getStoredItemTypes() );
+	}
+
+	private boolean canHoldNewItem( final long count, final long types )
+	{
+		final long bytesFree = this.getFreeBytes( count, types );
+		return ( bytesFree > this.getBytesPerType() || ( bytesFree == this.getBytesPerType() && getUnusedItemCount( count ) > 0 ) ) && this
+				.getRemainingItemTypes( count, types ) > 0;
 	}
 
 	@Override
@@ -564,14 +802,24 @@ public class CellInventory implements ICellInventory
 	@Override
 	public long getFreeBytes()
 	{
-		return this.getTotalBytes() - this.getUsedBytes();
+		return this.getFreeBytes( this.getStoredItemCount(), this.getStoredItemTypes() );
+	}
+
+	private long getFreeBytes( final long count, final long types )
+	{
+		return this.getTotalBytes() - this.getUsedBytes( count, types );
 	}
 
 	@Override
 	public long getUsedBytes()
 	{
-		final long bytesForItemCount = ( this.getStoredItemCount() + this.getUnusedItemCount() ) / 8;
-		return this.getStoredItemTypes() * this.getBytesPerType() + bytesForItemCount;
+		return this.getUsedBytes( this.getStoredItemCount(), this.getStoredItemTypes() );
+	}
+
+	private long getUsedBytes( final long count, final long types )
+	{
+		final long bytesForItemCount = ( count + getUnusedItemCount( count ) ) / 8;
+		return types * this.getBytesPerType() + bytesForItemCount;
 	}
 
 	@Override
@@ -595,22 +843,37 @@ public class CellInventory implements ICellInventory
 	@Override
 	public long getRemainingItemTypes()
 	{
-		final long basedOnStorage = this.getFreeBytes() / this.getBytesPerType();
-		final long baseOnTotal = this.getTotalItemTypes() - this.getStoredItemTypes();
+		return this.getRemainingItemTypes( this.getStoredItemCount(), this.getStoredItemTypes() );
+	}
+
+	private long getRemainingItemTypes( final long count, final long types )
+	{
+		final long basedOnStorage = this.getFreeBytes( count, types ) / this.getBytesPerType();
+		final long baseOnTotal = this.getTotalItemTypes() - types;
 		return basedOnStorage > baseOnTotal ? baseOnTotal : basedOnStorage;
 	}
 
 	@Override
 	public long getRemainingItemCount()
 	{
-		final long remaining = this.getFreeBytes() * 8 + this.getUnusedItemCount();
+		return this.getRemainingItemCount( this.getStoredItemCount(), this.getStoredItemTypes() );
+	}
+
+	private long getRemainingItemCount( final long count, final long types )
+	{
+		final long remaining = this.getFreeBytes( count, types ) * 8 + getUnusedItemCount( count );
 		return remaining > 0 ? remaining : 0;
 	}
 
 	@Override
 	public int getUnusedItemCount()
 	{
-		final int div = (int) ( this.getStoredItemCount() % 8 );
+		return getUnusedItemCount( this.getStoredItemCount() );
+	}
+
+	private static int getUnusedItemCount( final long count )
+	{
+		final int div = (int) ( count % 8 );
 
 		if( div == 0 )
 		{
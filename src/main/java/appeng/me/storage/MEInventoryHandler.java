@@ -19,6 +19,9 @@
 package appeng.me.storage;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import appeng.api.config.AccessRestriction;
 import appeng.api.config.Actionable;
 import appeng.api.config.IncludeExclude;
@@ -106,6 +109,41 @@ public class MEInventoryHandler<T extends IAEStack<T>> implements IMEInventoryHa
 		return this.internal.injectItems( input, type, src );
 	}
 
+	/**
+	 * Simulations go to the wrapped inventory as a whole, so it can account for the stacks together. Real insertions
+	 * still go through {@link #injectItems} one by one.
+	 */
+	@Override
+	public IItemList<T> injectItemsBulk( final Iterable<T> input, final Actionable type, final BaseActionSource src )
+	{
+		if( type == Actionable.MODULATE )
+		{
+			return IMEInventoryHandler.super.injectItemsBulk( input, type, src );
+		}
+
+		final IItemList<T> leftovers = this.getChannel().createList();
+		final List<T> accepted = new ArrayList<T>();
+
+		for( final T stack : input )
+		{
+			if( this.canAccept( stack ) )
+			{
+				accepted.add( stack );
+			}
+			else
+			{
+				leftovers.add( stack );
+			}
+		}
+
+		for( final T stack : this.internal.injectItemsBulk( accepted, type, src ) )
+		{
+			leftovers.add( stack );
+		}
+
+		return leftovers;
+	}
+
 	@Override
 	public T extractItems( final T request, final Actionable type, final BaseActionSource src )
 	{
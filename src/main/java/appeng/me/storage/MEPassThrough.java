@@ -57,6 +57,18 @@ public class MEPassThrough<T extends IAEStack<T>> implements IMEInventoryHandler
 		return this.internal.injectItems( input, type, src );
 	}
 
+	@Override
+	public IItemList<T> injectItemsBulk( final Iterable<T> input, final Actionable type, final BaseActionSource src )
+	{
+		// only simulations are passed on as a whole, real insertions still go through injectItems.
+		if( type == Actionable.SIMULATE )
+		{
+			return this.internal.injectItemsBulk( input, type, src );
+		}
+
+		return IMEInventoryHandler.super.injectItemsBulk( input, type, src );
+	}
+
 	@Override
 	public T extractItems( final T request, final Actionable type, final BaseActionSource src )
 	{
@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NavigableMap;
+import java.util.Set;
 import java.util.TreeMap;
 
 import appeng.api.config.AccessRestriction;
@@ -55,13 +56,20 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 	private final StorageChannel myChannel;
 	private final SecurityCache security;
 	private final NavigableMap<Integer, List<IMEInventoryHandler<T>>> priorityInventory;
+	private final StorageResidencyIndex<T> residency;
 	private int myPass = 0;
 
 	public NetworkInventoryHandler( final StorageChannel chan, final SecurityCache security )
+	{
+		this( chan, security, null );
+	}
+
+	public NetworkInventoryHandler( final StorageChannel chan, final SecurityCache security, final StorageResidencyIndex<T> residency )
 	{
 		this.myChannel = chan;
 		this.security = security;
 		this.priorityInventory = new TreeMap<>( PRIORITY_SORTER );
+		this.residency = residency;
 	}
 
 	public void addNewStorage( final IMEInventoryHandler<T> h )
@@ -90,6 +98,9 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 			return input;
 		}
 
+		final T template = input.copy();
+		final Set<IMEInventoryHandler<T>> holders = this.residency == null ? null : this.getHolders( template, src );
+
 		for( final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values() )
 		{
 			Iterator<IMEInventoryHandler<T>> ii = invList.iterator();
@@ -97,9 +108,9 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 			{
 				final IMEInventoryHandler<T> inv = ii.next();
 
-				if( inv.validForPass( 1 ) && inv.canAccept( input ) && ( inv.isPrioritized( input ) || inv.extractItems( input, Actionable.SIMULATE, src ) != null ) )
+				if( inv.validForPass( 1 ) && inv.canAccept( input ) && ( inv.isPrioritized( input ) || this.holds( inv, input, holders, src ) ) )
 				{
-					input = inv.injectItems( input, type, src );
+					input = this.injectInto( inv, template, input, type, src );
 				}
 			}
 
@@ -114,7 +125,7 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 
 				if( inv.validForPass( 2 ) && inv.canAccept( input ) && !inv.isPrioritized( input ) )
 				{
-					input = inv.injectItems( input, type, src );
+					input = this.injectInto( inv, template, input, type, src );
 				}
 			}
 		}
@@ -124,6 +135,57 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 		return input;
 	}
 
+	private T injectInto( final IMEInventoryHandler<T> inv, final T template, final T input, final Actionable type, final BaseActionSource src )
+	{
+		final long size = input.getStackSize();
+		final T remaining = inv.injectItems( input, type, src );
+
+		if( this.residency != null && type == Actionable.MODULATE && ( remaining == null || remaining.getStackSize() < size ) )
+		{
+			this.residency.addHolder( template, inv );
+		}
+
+		return remaining;
+	}
+
+	private boolean holds( final IMEInventoryHandler<T> inv, final T input, final Set<IMEInventoryHandler<T>> holders, final BaseActionSource src )
+	{
+		if( holders != null )
+		{
+			return holders.contains( inv );
+		}
+
+		return inv.extractItems( input, Actionable.SIMULATE, src ) != null;
+	}
+
+	/**
+	 * Looks up the handlers already holding the type, probing every handler once if it is not indexed yet.
+	 */
+	private Set<IMEInventoryHandler<T>> getHolders( final T template, final BaseActionSource src )
+	{
+		Set<IMEInventoryHandler<T>> holders = this.residency.getHolders( template );
+
+		if( holders == null )
+		{
+			holders = StorageResidencyIndex.newHolderSet();
+
+			for( final List<IMEInventoryHandler<T>> invList : this.priorityInventory.values() )
+			{
+				for( final IMEInventoryHandler<T> inv : invList )
+				{
+					if( inv.validForPass( 1 ) && inv.canAccept( template ) && inv.extractItems( template, Actionable.SIMULATE, src ) != null )
+					{
+						holders.add( inv );
+					}
+				}
+			}
+
+			this.residency.setHolders( template, holders );
+		}
+
+		return holders;
+	}
+
 	private boolean diveList( final NetworkInventoryHandler<T> networkInventoryHandler, final Actionable type )
 	{
 		final LinkedList cDepth = this.getDepth( type );
@@ -226,7 +288,15 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 				final IMEInventoryHandler<T> inv = ii.next();
 
 				request.setStackSize( req - output.getStackSize() );
-				output.add( inv.extractItems( request, mode, src ) );
+				final T extracted = inv.extractItems( request, mode, src );
+
+				// a handler which could not satisfy the request, or was just emptied by it, no longer holds this type.
+				if( this.residency != null && mode == Actionable.MODULATE && ( extracted == null || extracted.getStackSize() < request.getStackSize() || this.isEmptied( inv, request, src ) ) )
+				{
+					this.residency.removeHolder( request, inv );
+				}
+
+				output.add( extracted );
 			}
 		}
 
@@ -240,6 +310,13 @@ public class NetworkInventoryHandler<T extends IAEStack<T>> implements IMEInvent
 		return output;
 	}
 
+	private boolean isEmptied( final IMEInventoryHandler<T> inv, final T type, final BaseActionSource src )
+	{
+		final T probe = type.copy();
+		probe.setStackSize( 1 );
+		return inv.extractItems( probe, Actionable.SIMULATE, src ) == null;
+	}
+
 	@Override
 	public IItemList<T> getAvailableItems( IItemList out )
 	{
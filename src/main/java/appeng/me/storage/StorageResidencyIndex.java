@@ -0,0 +1,105 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2014, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.me.storage;
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import appeng.api.storage.IMEInventoryHandler;
+import appeng.api.storage.data.IAEStack;
+
+
+/**
+ * Remembers which inventory handlers of a network currently hold a given type.
+ *
+ * Entries are created on demand by probing the handlers once, kept up to date by the network inventory itself and
+ * dropped whenever the grid reports a change it can not attribute to a handler.
+ */
+public class StorageResidencyIndex<T extends IAEStack<T>>
+{
+
+	private final Map<T, Set<IMEInventoryHandler<T>>> holders = new HashMap<>();
+
+	/**
+	 * @return a copy of the handlers known to hold the type, or null if the type is not indexed yet.
+	 */
+	public synchronized Set<IMEInventoryHandler<T>> getHolders( final T type )
+	{
+		final Set<IMEInventoryHandler<T>> set = this.holders.get( type );
+
+		if( set == null )
+		{
+			return null;
+		}
+
+		final Set<IMEInventoryHandler<T>> copy = newHolderSet();
+		copy.addAll( set );
+		return copy;
+	}
+
+	public synchronized void setHolders( final T type, final Set<IMEInventoryHandler<T>> handlers )
+	{
+		final Set<IMEInventoryHandler<T>> set = newHolderSet();
+		set.addAll( handlers );
+		this.holders.put( type.copy(), set );
+	}
+
+	public synchronized void addHolder( final T type, final IMEInventoryHandler<T> handler )
+	{
+		final Set<IMEInventoryHandler<T>> set = this.holders.get( type );
+
+		// unknown types are probed on their next insertion anyway.
+		if( set != null )
+		{
+			set.add( handler );
+		}
+	}
+
+	public synchronized void removeHolder( final T type, final IMEInventoryHandler<T> handler )
+	{
+		final Set<IMEInventoryHandler<T>> set = this.holders.get( type );
+
+		if( set != null )
+		{
+			set.remove( handler );
+		}
+	}
+
+	public synchronized void invalidate( final Iterable<? extends IAEStack> types )
+	{
+		for( final IAEStack type : types )
+		{
+			this.holders.remove( type );
+		}
+	}
+
+	public synchronized void clear()
+	{
+		this.holders.clear();
+	}
+
+	static <T extends IAEStack<T>> Set<IMEInventoryHandler<T>> newHolderSet()
+	{
+		return Collections.newSetFromMap( new IdentityHashMap<IMEInventoryHandler<T>, Boolean>() );
+	}
+}
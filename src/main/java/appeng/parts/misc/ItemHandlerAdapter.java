@@ -20,14 +20,13 @@ package appeng.parts.misc;
 
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import javax.annotation.Nullable;
-
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.EnumFacing;
 import net.minecraftforge.common.capabilities.ICapabilityProvider;
@@ -38,6 +37,7 @@ import appeng.api.config.Actionable;
 import appeng.api.networking.security.BaseActionSource;
 import appeng.api.networking.storage.IBaseMonitor;
 import appeng.api.networking.ticking.TickRateModulation;
+import appeng.api.storage.IItemHandlerChangeCounter;
 import appeng.api.storage.IMEInventory;
 import appeng.api.storage.IMEMonitorHandlerReceiver;
 import appeng.api.storage.StorageChannel;
@@ -72,6 +72,23 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 
 	private IAEItemStack[] cachedAeStacks = new IAEItemStack[0];
 
+	/**
+	 * Slots modified by our own inject/extract, only these have to be compared against the cache afterwards.
+	 */
+	private final BitSet touchedSlots = new BitSet();
+
+	/**
+	 * Number of slot changes made by our own inject/extract since the cache was last updated.
+	 */
+	private int touchedChanges;
+
+	/**
+	 * Change count of the handler when the cache was last known to be in sync, if it provides one.
+	 */
+	private long cachedChangeCount;
+
+	private boolean hasCachedChangeCount = false;
+
 	ItemHandlerAdapter( IItemHandler itemHandler, ICapabilityProvider provider, EnumFacing facing )
 	{
 		this.itemHandler = itemHandler;
@@ -88,10 +105,19 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 		int slotCount = itemHandler.getSlots();
 		boolean simulate = ( type == Actionable.SIMULATE );
 
+		final boolean inSync = !simulate && this.isCacheInSync();
+
 		// This uses a brute force approach and tries to jam it in every slot the inventory exposes.
 		for( int i = 0; i < slotCount && !remaining.isEmpty(); i++ )
 		{
+			final int before = remaining.getCount();
 			remaining = itemHandler.insertItem( i, remaining, simulate );
+
+			if( !simulate && remaining.getCount() != before )
+			{
+				this.touchedSlots.set( i );
+				this.touchedChanges++;
+			}
 		}
 
 		// At this point, we still have some items left...
@@ -103,7 +129,7 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 
 		if( type == Actionable.MODULATE )
 		{
-			this.onTick( orgInput );
+			this.onTouchedSlots( inSync );
 		}
 
 		return AEItemStack.create( remaining );
@@ -120,6 +146,7 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 		ItemStack gathered = ItemStack.EMPTY;
 
 		final boolean simulate = ( mode == Actionable.SIMULATE );
+		final boolean inSync = !simulate && this.isCacheInSync();
 
 		try
 		{
@@ -152,6 +179,12 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 						}
 
 						// We're just gonna use the first stack we get our hands on as the template for the rest
+						if( !simulate )
+						{
+							this.touchedSlots.set( i );
+							this.touchedChanges++;
+						}
+
 						if( gathered.isEmpty() )
 						{
 							gathered = extracted;
@@ -179,7 +212,7 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 
 		if (!gathered.isEmpty()) {
 			if (mode == Actionable.MODULATE) {
-				this.onTick( gathered );
+				this.onTouchedSlots( inSync );
 			}
 
 			return AEItemStack.create(gathered);
@@ -192,52 +225,35 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 	public TickRateModulation onTick()
 	{
 		IItemHandler handler = provider.getCapability( CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, facing );
-		if (handler == null){
-			this.itemHandler = NULL_HANDLER;
-		} else {
+		if( handler == null )
+		{
+			handler = NULL_HANDLER;
+		}
+
+		if( handler != this.itemHandler )
+		{
 			this.itemHandler = handler;
+			this.hasCachedChangeCount = false;
 		}
 
-		return onTick( null );
-	}
+		// Nothing can have changed since the last scan
+		if( this.isCacheInSync() )
+		{
+			return TickRateModulation.SLOWER;
+		}
+
+		final boolean counted = this.itemHandler instanceof IItemHandlerChangeCounter;
+		final long changeCount = counted ? ( (IItemHandlerChangeCounter) this.itemHandler ).getChangeCount() : 0;
 
-	public TickRateModulation onTick(@Nullable ItemStack expectedChange)
-	{
 		LinkedList<IAEItemStack> changes = new LinkedList<>();
 
 		int slots = itemHandler.getSlots();
 
-		// Make room for new slots
-		if( slots > cachedStacks.length )
-		{
-			cachedStacks = Arrays.copyOf( cachedStacks, slots );
-			for (int i = 0; i<cachedStacks.length; i++){
-				if (cachedStacks[i] == null)
-					cachedStacks[i] = ItemStack.EMPTY;
-			}
-			cachedAeStacks = Arrays.copyOf( cachedAeStacks, slots );
-		}
+		this.ensureCacheSize( slots );
 
 		for( int slot = 0; slot < slots; slot++ )
 		{
-			// Save the old stuff
-			ItemStack oldIS = cachedStacks[slot];
-			IAEItemStack oldAeIS = cachedAeStacks[slot];
-
-			ItemStack newIS = itemHandler.getStackInSlot( slot );
-
-			// if we're expecting a change, make sure it's the expected one, else we leave it til the next onTick
-			if ( expectedChange == null || Platform.itemComparisons().isSameItem( newIS, expectedChange ) || Platform.itemComparisons().isSameItem(oldIS, expectedChange ))
-			{
-				if( this.isDifferent( newIS, oldIS ) )
-				{
-					addItemChange( slot, oldAeIS, newIS, changes );
-				}
-				else if( !newIS.isEmpty() && !oldIS.isEmpty() )
-				{
-					addPossibleStackSizeChange( slot, oldAeIS, newIS, changes );
-				}
-			}
+			this.compareSlot( slot, changes );
 		}
 
 		// Handle cases where the number of slots actually is lower now than before
@@ -259,6 +275,9 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 			cachedAeStacks = Arrays.copyOf( cachedAeStacks, slots );
 		}
 
+		this.cachedChangeCount = changeCount;
+		this.hasCachedChangeCount = counted;
+
 		if( !changes.isEmpty() )
 		{
 			this.postDifference( changes );
@@ -270,6 +289,88 @@ class ItemHandlerAdapter implements IMEInventory<IAEItemStack>, IBaseMonitor<IAE
 		}
 	}
 
+	/**
+	 * Updates the cache for the slots modified by the last inject/extract and posts the difference, instead of
+	 * rescanning the whole inventory.
+	 *
+	 * @param wasInSync whether the cache matched the handler before the operation.
+	 */
+	private void onTouchedSlots( final boolean wasInSync )
+	{
+		final LinkedList<IAEItemStack> changes = new LinkedList<>();
+		final int slots = itemHandler.getSlots();
+
+		this.ensureCacheSize( slots );
+
+		for( int slot = this.touchedSlots.nextSetBit( 0 ); slot >= 0 && slot < slots; slot = this.touchedSlots.nextSetBit( slot + 1 ) )
+		{
+			this.compareSlot( slot, changes );
+		}
+
+		this.touchedSlots.clear();
+
+		final int ownChanges = this.touchedChanges;
+		this.touchedChanges = 0;
+
+		// Only valid if the handler counted exactly our own changes, anything else (like an aggregate slot following
+		// the touched ones) has to be picked up by the next full scan.
+		final long changeCount = wasInSync ? ( (IItemHandlerChangeCounter) this.itemHandler ).getChangeCount() : 0;
+		if( wasInSync && changeCount - this.cachedChangeCount == ownChanges )
+		{
+			this.cachedChangeCount = changeCount;
+		}
+		else
+		{
+			this.hasCachedChangeCount = false;
+		}
+
+		if( !changes.isEmpty() )
+		{
+			this.postDifference( changes );
+		}
+	}
+
+	private boolean isCacheInSync()
+	{
+		return this.hasCachedChangeCount && this.itemHandler instanceof IItemHandlerChangeCounter && ( (IItemHandlerChangeCounter) this.itemHandler )
+				.getChangeCount() == this.cachedChangeCount;
+	}
+
+	private void ensureCacheSize( final int slots )
+	{
+		// Make room for new slots
+		if( slots > cachedStacks.length )
+		{
+			cachedStacks = Arrays.copyOf( cachedStacks, slots );
+			for( int i = 0; i < cachedStacks.length; i++ )
+			{
+				if( cachedStacks[i] == null )
+				{
+					cachedStacks[i] = ItemStack.EMPTY;
+				}
+			}
+			cachedAeStacks = Arrays.copyOf( cachedAeStacks, slots );
+		}
+	}
+
+	private void compareSlot( final int slot, final List<IAEItemStack> changes )
+	{
+		// Save the old stuff
+		ItemStack oldIS = cachedStacks[slot];
+		IAEItemStack oldAeIS = cachedAeStacks[slot];
+
+		ItemStack newIS = itemHandler.getStackInSlot( slot );
+
+		if( this.isDifferent( newIS, oldIS ) )
+		{
+			addItemChange( slot, oldAeIS, newIS, changes );
+		}
+		else if( !newIS.isEmpty() && !oldIS.isEmpty() )
+		{
+			addPossibleStackSizeChange( slot, oldAeIS, newIS, changes );
+		}
+	}
+
 	private void addItemChange( int slot, IAEItemStack oldAeIS, ItemStack newIS, List<IAEItemStack> changes )
 	{
 		// Completely different item
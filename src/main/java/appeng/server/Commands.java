@@ -20,12 +20,13 @@ package appeng.server;
 
 
 import appeng.server.subcommands.ChunkLogger;
+import appeng.server.subcommands.Profiler;
 import appeng.server.subcommands.Supporters;
 
 
 public enum Commands
 {
-	Chunklogger( 4, new ChunkLogger() ), Supporters( 0, new Supporters() );
+	Chunklogger( 4, new ChunkLogger() ), Supporters( 0, new Supporters() ), Profiler( 4, new Profiler() );
 
 	public final int level;
 	public final ISubCommand command;
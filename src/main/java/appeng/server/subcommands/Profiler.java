@@ -0,0 +1,239 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.server.subcommands;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.util.text.TextComponentTranslation;
+
+import appeng.api.networking.IGridNode;
+import appeng.api.networking.ticking.ITickManager;
+import appeng.api.util.DimensionalCoord;
+import appeng.hooks.TickHandler;
+import appeng.me.Grid;
+import appeng.me.cache.TickManagerCache;
+import appeng.me.cache.helpers.TickHistogram;
+import appeng.me.cache.helpers.TickProfiler;
+import appeng.me.cache.helpers.TickTracker;
+import appeng.server.ISubCommand;
+
+
+public class Profiler implements ISubCommand
+{
+
+	private static final int DEFAULT_LIMIT = 5;
+
+	@Override
+	public String getHelp( final MinecraftServer srv )
+	{
+		return "commands.ae2.Profiler";
+	}
+
+	@Override
+	public void call( final MinecraftServer srv, final String[] data, final ICommandSender sender )
+	{
+		final String action = data.length > 1 ? data[1].toLowerCase( Locale.ENGLISH ) : "top";
+		final int limit = this.getLimit( data );
+
+		if( "on".equals( action ) )
+		{
+			TickProfiler.setEnabled( true );
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerOn" ) );
+		}
+		else if( "off".equals( action ) )
+		{
+			TickProfiler.setEnabled( false );
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerOff" ) );
+		}
+		else if( "reset".equals( action ) )
+		{
+			TickProfiler.reset();
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerReset" ) );
+		}
+		else if( "classes".equals( action ) )
+		{
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerMachines" ) );
+			this.sendClasses( sender, TickProfiler.getMachineTimes(), limit );
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerCaches" ) );
+			this.sendClasses( sender, TickProfiler.getCacheTimes(), limit );
+		}
+		else
+		{
+			this.sendTopDevices( sender, limit );
+		}
+	}
+
+	private int getLimit( final String[] data )
+	{
+		if( data.length > 2 )
+		{
+			try
+			{
+				return Math.max( 1, Integer.parseInt( data[2] ) );
+			}
+			catch( final NumberFormatException ignored )
+			{
+			}
+		}
+
+		return DEFAULT_LIMIT;
+	}
+
+	private void sendTopDevices( final ICommandSender sender, final int limit )
+	{
+		if( !TickProfiler.isEnabled() )
+		{
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerDisabled" ) );
+			return;
+		}
+
+		final List<GridSummary> grids = new ArrayList<GridSummary>();
+
+		for( final Grid g : TickHandler.INSTANCE.getGridList() )
+		{
+			final ITickManager tm = g.getCache( ITickManager.class );
+
+			if( tm instanceof TickManagerCache )
+			{
+				final GridSummary summary = new GridSummary( g );
+				final List<TickTracker> trackers = new ArrayList<TickTracker>();
+				( (TickManagerCache) tm ).collectTrackers( trackers );
+
+				for( final TickTracker tt : trackers )
+				{
+					final TickHistogram h = TickProfiler.getProfile( tt );
+
+					if( h != null && h.getCount() > 0 )
+					{
+						summary.devices.add( new DeviceSample( tt, h ) );
+						summary.totalNanos += h.getTotalNanos();
+					}
+				}
+
+				if( !summary.devices.isEmpty() )
+				{
+					grids.add( summary );
+				}
+			}
+		}
+
+		if( grids.isEmpty() )
+		{
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerEmpty" ) );
+			return;
+		}
+
+		Collections.sort( grids, new Comparator<GridSummary>()
+		{
+			@Override
+			public int compare( final GridSummary a, final GridSummary b )
+			{
+				return Long.compare( b.totalNanos, a.totalNanos );
+			}
+		} );
+
+		for( final GridSummary summary : grids.subList( 0, Math.min( limit, grids.size() ) ) )
+		{
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerGrid", this.getLocation( summary.grid.getPivot() ), summary.devices.size(), formatMicros( summary.totalNanos ) ) );
+
+			Collections.sort( summary.devices, new Comparator<DeviceSample>()
+			{
+				@Override
+				public int compare( final DeviceSample a, final DeviceSample b )
+				{
+					return Long.compare( b.histogram.getAvgNanos(), a.histogram.getAvgNanos() );
+				}
+			} );
+
+			for( final DeviceSample sample : summary.devices.subList( 0, Math.min( limit, summary.devices.size() ) ) )
+			{
+				final TickHistogram h = sample.histogram;
+				sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerDevice", sample.tracker.getGridTickable().getClass().getSimpleName(), this.getLocation( sample.tracker.getNode() ), formatMicros( h.getAvgNanos() ), formatMicros( h.getPercentileNanos( 0.95 ) ), formatMicros( h.getMaxNanos() ), h.getCount() ) );
+			}
+		}
+	}
+
+	private void sendClasses( final ICommandSender sender, final Map<Class<?>, TickHistogram> times, final int limit )
+	{
+		final List<Map.Entry<Class<?>, TickHistogram>> entries = new ArrayList<Map.Entry<Class<?>, TickHistogram>>( times.entrySet() );
+
+		Collections.sort( entries, new Comparator<Map.Entry<Class<?>, TickHistogram>>()
+		{
+			@Override
+			public int compare( final Map.Entry<Class<?>, TickHistogram> a, final Map.Entry<Class<?>, TickHistogram> b )
+			{
+				return Long.compare( b.getValue().getTotalNanos(), a.getValue().getTotalNanos() );
+			}
+		} );
+
+		for( final Map.Entry<Class<?>, TickHistogram> e : entries.subList( 0, Math.min( limit, entries.size() ) ) )
+		{
+			final TickHistogram h = e.getValue();
+			sender.sendMessage( new TextComponentTranslation( "commands.ae2.ProfilerClass", e.getKey().getSimpleName(), formatMicros( h.getAvgNanos() ), formatMicros( h.getPercentileNanos( 0.95 ) ), formatMicros( h.getMaxNanos() ), h.getCount() ) );
+		}
+	}
+
+	private ITextComponent getLocation( final IGridNode node )
+	{
+		final DimensionalCoord dc = node == null ? null : node.getGridBlock().getLocation();
+		return dc == null ? new TextComponentTranslation( "commands.ae2.ProfilerUnknownLocation" ) : new TextComponentString( dc.toString() );
+	}
+
+	private static String formatMicros( final long nanos )
+	{
+		return String.format( Locale.ENGLISH, "%.1fus", nanos / 1000.0 );
+	}
+
+	private static class GridSummary
+	{
+
+		private final Grid grid;
+		private final List<DeviceSample> devices = new ArrayList<DeviceSample>();
+		private long totalNanos;
+
+		private GridSummary( final Grid grid )
+		{
+			this.grid = grid;
+		}
+	}
+
+	private static class DeviceSample
+	{
+
+		private final TickTracker tracker;
+		private final TickHistogram histogram;
+
+		private DeviceSample( final TickTracker tracker, final TickHistogram histogram )
+		{
+			this.tracker = tracker;
+			this.histogram = histogram;
+		}
+	}
+}
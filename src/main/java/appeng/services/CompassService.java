@@ -22,12 +22,12 @@ package appeng.services;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nonnull;
 
@@ -43,6 +43,7 @@ import appeng.api.AEApi;
 import appeng.api.util.DimensionalCoord;
 import appeng.services.compass.CompassReader;
 import appeng.services.compass.ICompassCallback;
+import appeng.services.compass.SkyStoneSnapshot;
 import appeng.util.Platform;
 
 
@@ -58,7 +59,10 @@ public final class CompassService
 	 */
 	private final File worldCompassFolder;
 
-	private int jobSize;
+	// regions each reader keeps open while no job is queued.
+	private static final int IDLE_OPEN_REGIONS = 4;
+
+	private final AtomicInteger jobSize = new AtomicInteger();
 
 	public CompassService( @Nonnull final File worldCompassFolder, @Nonnull final ThreadFactory factory )
 	{
@@ -66,12 +70,11 @@ public final class CompassService
 
 		this.worldCompassFolder = worldCompassFolder;
 		this.executor = Executors.newSingleThreadExecutor( factory );
-		this.jobSize = 0;
 	}
 
 	public Future<?> getCompassDirection( final DimensionalCoord coord, final int maxRange, final ICompassCallback cc )
 	{
-		this.jobSize++;
+		this.jobSize.incrementAndGet();
 		return this.executor.submit( new CMDirectionRequest( coord, maxRange, cc ) );
 	}
 
@@ -83,78 +86,64 @@ public final class CompassService
 	@SubscribeEvent
 	public void unloadWorld( final WorldEvent.Unload event )
 	{
-		if( Platform.isServer() && this.worldSet.containsKey( event.getWorld() ) )
+		if( Platform.isServer() && !this.executor.isShutdown() )
 		{
-			final CompassReader compassReader = this.worldSet.remove( event.getWorld() );
+			final World world = event.getWorld();
+
+			// the readers are only touched from the compass thread.
+			this.executor.submit( () ->
+			{
+				final CompassReader compassReader = this.worldSet.remove( world );
 
-			compassReader.close();
+				if( compassReader != null )
+				{
+					compassReader.close();
+				}
+			} );
 		}
 	}
 
 	private int jobSize()
 	{
-		return this.jobSize;
+		return this.jobSize.get();
 	}
 
+	/**
+	 * Closes most regions once nothing is queued, they stay open between jobs otherwise.
+	 */
 	private void cleanUp()
 	{
 		for( final CompassReader cr : this.worldSet.values() )
 		{
-			cr.close();
+			cr.trim( IDLE_OPEN_REGIONS );
 		}
 	}
 
 	public void updateArea( final World w, final int chunkX, final int chunkZ )
 	{
-		final int x = chunkX << 4;
-		final int z = chunkZ << 4;
-
-		this.updateArea( w, x, CHUNK_SIZE, z );
-		this.updateArea( w, x, CHUNK_SIZE + 32, z );
-		this.updateArea( w, x, CHUNK_SIZE + 64, z );
-		this.updateArea( w, x, CHUNK_SIZE + 96, z );
-
-		this.updateArea( w, x, CHUNK_SIZE + 128, z );
-		this.updateArea( w, x, CHUNK_SIZE + 160, z );
-		this.updateArea( w, x, CHUNK_SIZE + 192, z );
-		this.updateArea( w, x, CHUNK_SIZE + 224, z );
+		// all eight 32 block slabs of the chunk.
+		this.updateArea( w, chunkX, chunkZ, 0, 8 );
 	}
 
 	public Future<?> updateArea( final World w, final int x, final int y, final int z )
 	{
-		this.jobSize++;
-
-		final int cx = x >> 4;
 		final int cdy = y >> 5;
-		final int cz = z >> 4;
 
-		final int low_y = cdy << 5;
-		final int hi_y = low_y + 32;
+		return this.updateArea( w, x >> 4, z >> 4, cdy, cdy + 1 );
+	}
 
-		// lower level...
-		final Chunk c = w.getChunkFromChunkCoords( cx, cz );
+	/**
+	 * Copies the chunk right away and searches it for sky stone on the compass thread.
+	 */
+	private Future<?> updateArea( final World w, final int cx, final int cz, final int fromDoubleChunkY, final int toDoubleChunkY )
+	{
+		this.jobSize.incrementAndGet();
 
-		Optional<Block> maybeBlock = AEApi.instance().definitions().blocks().skyStoneBlock().maybeBlock();
-		if( maybeBlock.isPresent() )
-		{
-			Block skyStoneBlock = maybeBlock.get();
-			for( int i = 0; i < CHUNK_SIZE; i++ )
-			{
-				for( int j = 0; j < CHUNK_SIZE; j++ )
-				{
-					for( int k = low_y; k < hi_y; k++ )
-					{
-						final Block blk = c.getBlockState( i, k, j ).getBlock();
-						if( blk == skyStoneBlock )
-						{
-							return this.executor.submit( new CMUpdatePost( w, cx, cz, cdy, true ) );
-						}
-					}
-				}
-			}
-		}
+		final Chunk c = w.getChunkFromChunkCoords( cx, cz );
+		final Block skyStone = AEApi.instance().definitions().blocks().skyStoneBlock().maybeBlock().orElse( null );
+		final SkyStoneSnapshot snapshot = SkyStoneSnapshot.capture( c, skyStone, fromDoubleChunkY << 1, toDoubleChunkY << 1 );
 
-		return this.executor.submit( new CMUpdatePost( w, cx, cz, cdy, false ) );
+		return this.executor.submit( new CMUpdatePost( w, cx, cz, fromDoubleChunkY, toDoubleChunkY, snapshot ) );
 	}
 
 	public void kill()
@@ -164,7 +153,7 @@ public final class CompassService
 		try
 		{
 			this.executor.awaitTermination( 6, TimeUnit.MINUTES );
-			this.jobSize = 0;
+			this.jobSize.set( 0 );
 
 			for( final CompassReader cr : this.worldSet.values() )
 			{
@@ -215,27 +204,33 @@ public final class CompassService
 
 		public final int chunkX;
 		public final int chunkZ;
-		public final int doubleChunkY; // 32 blocks instead of 16.
-		public final boolean value;
+		public final int fromDoubleChunkY; // 32 blocks instead of 16.
+		public final int toDoubleChunkY;
+		public final SkyStoneSnapshot snapshot;
 
-		public CMUpdatePost( final World w, final int cx, final int cz, final int dcy, final boolean val )
+		public CMUpdatePost( final World w, final int cx, final int cz, final int fromDcy, final int toDcy, final SkyStoneSnapshot snapshot )
 		{
 			this.world = w;
 			this.chunkX = cx;
-			this.doubleChunkY = dcy;
+			this.fromDoubleChunkY = fromDcy;
+			this.toDoubleChunkY = toDcy;
 			this.chunkZ = cz;
-			this.value = val;
+			this.snapshot = snapshot;
 		}
 
 		@Override
 		public void run()
 		{
-			CompassService.this.jobSize--;
+			CompassService.this.jobSize.decrementAndGet();
 
 			final CompassReader cr = CompassService.this.getReader( this.world );
-			cr.setHasBeacon( this.chunkX, this.chunkZ, this.doubleChunkY, this.value );
 
-			if( CompassService.this.jobSize() < 2 )
+			for( int dcy = this.fromDoubleChunkY; dcy < this.toDoubleChunkY; dcy++ )
+			{
+				cr.setHasBeacon( this.chunkX, this.chunkZ, dcy, this.snapshot.hasSkyStone( dcy ) );
+			}
+
+			if( CompassService.this.jobSize() == 0 )
 			{
 				CompassService.this.cleanUp();
 			}
@@ -259,7 +254,7 @@ public final class CompassService
 		@Override
 		public void run()
 		{
-			CompassService.this.jobSize--;
+			CompassService.this.jobSize.decrementAndGet();
 
 			final int cx = this.coord.x >> 4;
 			final int cz = this.coord.z >> 4;
@@ -271,7 +266,7 @@ public final class CompassService
 			{
 				this.callback.calculatedDirection( true, true, -999, 0 );
 
-				if( CompassService.this.jobSize() < 2 )
+				if( CompassService.this.jobSize() == 0 )
 				{
 					CompassService.this.cleanUp();
 				}
@@ -279,85 +274,38 @@ public final class CompassService
 				return;
 			}
 
-			// spiral outward...
-			for( int offset = 1; offset < this.maxRange; offset++ )
-			{
-				final int minX = cx - offset;
-				final int minZ = cz - offset;
-				final int maxX = cx + offset;
-				final int maxZ = cz + offset;
-
-				int closest = Integer.MAX_VALUE;
-				int chosen_x = cx;
-				int chosen_z = cz;
+			// closest ring with sky stone, then the closest chunk on it.
+			int closest = Integer.MAX_VALUE;
+			int chosen_x = cx;
+			int chosen_z = cz;
 
-				for( int z = minZ; z <= maxZ; z++ )
+			for( final int[] c : cr.getClosestRing( cx, cz, this.maxRange ) )
+			{
+				final int closeness = CompassService.this.dist( cx, cz, c[0], c[1] );
+				if( closeness < closest )
 				{
-					if( cr.hasBeacon( minX, z ) )
-					{
-						final int closeness = CompassService.this.dist( cx, cz, minX, z );
-						if( closeness < closest )
-						{
-							closest = closeness;
-							chosen_x = minX;
-							chosen_z = z;
-						}
-					}
-
-					if( cr.hasBeacon( maxX, z ) )
-					{
-						final int closeness = CompassService.this.dist( cx, cz, maxX, z );
-						if( closeness < closest )
-						{
-							closest = closeness;
-							chosen_x = maxX;
-							chosen_z = z;
-						}
-					}
+					closest = closeness;
+					chosen_x = c[0];
+					chosen_z = c[1];
 				}
+			}
 
-				for( int x = minX + 1; x < maxX; x++ )
-				{
-					if( cr.hasBeacon( x, minZ ) )
-					{
-						final int closeness = CompassService.this.dist( cx, cz, x, minZ );
-						if( closeness < closest )
-						{
-							closest = closeness;
-							chosen_x = x;
-							chosen_z = minZ;
-						}
-					}
-
-					if( cr.hasBeacon( x, maxZ ) )
-					{
-						final int closeness = CompassService.this.dist( cx, cz, x, maxZ );
-						if( closeness < closest )
-						{
-							closest = closeness;
-							chosen_x = x;
-							chosen_z = maxZ;
-						}
-					}
-				}
+			if( closest < Integer.MAX_VALUE )
+			{
+				this.callback.calculatedDirection( true, false, CompassService.this.rad( cx, cz, chosen_x, chosen_z ), CompassService.this.dist( cx, cz, chosen_x, chosen_z ) );
 
-				if( closest < Integer.MAX_VALUE )
+				if( CompassService.this.jobSize() == 0 )
 				{
-					this.callback.calculatedDirection( true, false, CompassService.this.rad( cx, cz, chosen_x, chosen_z ), CompassService.this.dist( cx, cz, chosen_x, chosen_z ) );
-
-					if( CompassService.this.jobSize() < 2 )
-					{
-						CompassService.this.cleanUp();
-					}
-
-					return;
+					CompassService.this.cleanUp();
 				}
+
+				return;
 			}
 
 			// didn't find shit...
 			this.callback.calculatedDirection( false, true, -999, 999 );
 
-			if( CompassService.this.jobSize() < 2 )
+			if( CompassService.this.jobSize() == 0 )
 			{
 				CompassService.this.cleanUp();
 			}
@@ -20,8 +20,14 @@ package appeng.services.compass;
 
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 import javax.annotation.Nonnull;
 
@@ -30,7 +36,10 @@ import com.google.common.base.Preconditions;
 
 public final class CompassReader
 {
-	private final Map<Long, CompassRegion> regions = new HashMap<Long, CompassRegion>( 100 );
+	private static final int MAX_OPEN_REGIONS = 16;
+
+	// in access order, so the least recently used regions are closed first.
+	private final Map<Long, CompassRegion> regions = new LinkedHashMap<Long, CompassRegion>( 32, 0.75f, true );
 	private final int dimensionId;
 	private final File worldCompassFolder;
 
@@ -53,6 +62,20 @@ public final class CompassReader
 		this.regions.clear();
 	}
 
+	/**
+	 * Closes the least recently used regions until at most the given number is left open.
+	 */
+	public void trim( final int keep )
+	{
+		final Iterator<CompassRegion> it = this.regions.values().iterator();
+
+		while( this.regions.size() > keep && it.hasNext() )
+		{
+			it.next().close();
+			it.remove();
+		}
+	}
+
 	public void setHasBeacon( final int cx, final int cz, final int cdy, final boolean hasBeacon )
 	{
 		final CompassRegion r = this.getRegion( cx, cz );
@@ -67,6 +90,83 @@ public final class CompassReader
 		return r.hasBeacon( cx, cz );
 	}
 
+	/**
+	 * Finds the closest ring of chunks around the given one that contains sky stone, like searching outwards ring by
+	 * ring would, but only descends into the parts of each region which contain any.
+	 *
+	 * @return the chunks with sky stone on that ring as {x, z}, in the order a ring is walked; empty if there are none
+	 * closer than the range
+	 */
+	public List<int[]> getClosestRing( final int cx, final int cz, final int maxRange )
+	{
+		final PriorityQueue<Area> queue = new PriorityQueue<Area>();
+
+		for( int rx = ( cx - maxRange ) >> 10; rx <= ( cx + maxRange ) >> 10; rx++ )
+		{
+			for( int rz = ( cz - maxRange ) >> 10; rz <= ( cz + maxRange ) >> 10; rz++ )
+			{
+				final CompassRegion region = this.getRegion( rx << 10, rz << 10 );
+
+				if( region.getCount() > 0 )
+				{
+					this.offer( queue, new Area( region, CompassRegion.SIZE, 0, 0, cx, cz ), maxRange );
+				}
+			}
+		}
+
+		final List<int[]> found = new ArrayList<int[]>();
+		int ring = -1;
+
+		while( !queue.isEmpty() )
+		{
+			final Area area = queue.poll();
+
+			if( ring >= 0 && area.distance > ring )
+			{
+				break;
+			}
+
+			if( area.size == 1 )
+			{
+				ring = area.distance;
+				found.add( new int[] { area.getLowX(), area.getLowZ() } );
+				continue;
+			}
+
+			final int childSize = area.size == CompassRegion.SIZE ? CompassRegion.COARSE : area.size == CompassRegion.COARSE ? CompassRegion.FINE : 1;
+			final int perSide = area.size / childSize;
+
+			for( int x = 0; x < perSide; x++ )
+			{
+				for( int z = 0; z < perSide; z++ )
+				{
+					final int bx = area.bx * perSide + x;
+					final int bz = area.bz * perSide + z;
+
+					if( area.region.getCount( childSize, bx, bz ) > 0 )
+					{
+						this.offer( queue, new Area( area.region, childSize, bx, bz, cx, cz ), maxRange );
+					}
+				}
+			}
+		}
+
+		if( ring > 0 )
+		{
+			Collections.sort( found, new RingOrder( cx - ring, cx + ring, cz - ring ) );
+		}
+
+		return found;
+	}
+
+	private void offer( final PriorityQueue<Area> queue, final Area area, final int maxRange )
+	{
+		if( area.distance < maxRange )
+		{
+			queue.add( area );
+		}
+	}
+
 	private CompassRegion getRegion( final int cx, final int cz )
 	{
 		long pos = cx >> 10;
@@ -79,8 +179,87 @@ public final class CompassReader
 		{
 			cr = new CompassRegion( cx, cz, this.dimensionId, this.worldCompassFolder );
 			this.regions.put( pos, cr );
+			this.trim( MAX_OPEN_REGIONS );
 		}
 
 		return cr;
 	}
+
+	/**
+	 * Square of chunks within a region, ordered by its ring distance from the searched chunk.
+	 */
+	private static final class Area implements Comparable<Area>
+	{
+		private final CompassRegion region;
+		private final int size;
+		private final int bx;
+		private final int bz;
+		private final int distance;
+
+		private Area( final CompassRegion region, final int size, final int bx, final int bz, final int cx, final int cz )
+		{
+			this.region = region;
+			this.size = size;
+			this.bx = bx;
+			this.bz = bz;
+
+			final int lowX = this.getLowX();
+			final int lowZ = this.getLowZ();
+			this.distance = Math.max( gap( cx, lowX, lowX + size - 1 ), gap( cz, lowZ, lowZ + size - 1 ) );
+		}
+
+		private int getLowX()
+		{
+			return this.region.getLowX() + this.bx * this.size;
+		}
+
+		private int getLowZ()
+		{
+			return this.region.getLowZ() + this.bz * this.size;
+		}
+
+		private static int gap( final int c, final int low, final int high )
+		{
+			return c < low ? low - c : c > high ? c - high : 0;
+		}
+
+		@Override
+		public int compareTo( final Area o )
+		{
+			return Integer.compare( this.distance, o.distance );
+		}
+	}
+
+	/**
+	 * Walks a ring column by column along its left and right edge first, then along the top and bottom edge.
+	 */
+	private static final class RingOrder implements Comparator<int[]>
+	{
+		private final int minX;
+		private final int maxX;
+		private final int minZ;
+
+		private RingOrder( final int minX, final int maxX, final int minZ )
+		{
+			this.minX = minX;
+			this.maxX = maxX;
+			this.minZ = minZ;
+		}
+
+		@Override
+		public int compare( final int[] a, final int[] b )
+		{
+			return Long.compare( this.key( a ), this.key( b ) );
+		}
+
+		private long key( final int[] c )
+		{
+			if( c[0] == this.minX || c[0] == this.maxX )
+			{
+				return ( (long) c[1] << 1 ) + ( c[0] == this.minX ? 0 : 1 );
+			}
+
+			return ( 1L << 40 ) + ( (long) c[0] << 1 ) + ( c[1] == this.minZ ? 0 : 1 );
+		}
+	}
 }
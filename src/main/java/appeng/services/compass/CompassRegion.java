@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 import javax.annotation.Nonnull;
 
@@ -33,6 +34,10 @@ import appeng.core.worlddata.MeteorDataNameEncoder;
 
 public final class CompassRegion
 {
+	static final int SIZE = 0x400;
+	static final int COARSE = 64;
+	static final int FINE = 8;
+
 	private final int lowX;
 	private final int lowZ;
 	private final int world;
@@ -43,6 +48,11 @@ public final class CompassRegion
 	private RandomAccessFile raf = null;
 	private ByteBuffer buffer;
 
+	// chunks with sky stone per 64x64 and 8x8 chunk block, built when the file is opened.
+	private final int[] coarseCount = new int[( SIZE / COARSE ) * ( SIZE / COARSE )];
+	private final int[] fineCount = new int[( SIZE / FINE ) * ( SIZE / FINE )];
+	private int totalCount = 0;
+
 	public CompassRegion( final int cx, final int cz, final int worldID, @Nonnull final File worldCompassFolder )
 	{
 		Preconditions.checkNotNull( worldCompassFolder );
@@ -71,6 +81,10 @@ public final class CompassRegion
 				this.raf.close();
 				this.raf = null;
 				this.hasFile = false;
+
+				Arrays.fill( this.coarseCount, 0 );
+				Arrays.fill( this.fineCount, 0 );
+				this.totalCount = 0;
 			}
 		}
 		catch( final Throwable t )
@@ -120,6 +134,11 @@ public final class CompassRegion
 			if( originalVal != val )
 			{
 				this.write( cx, cz, val );
+
+				if( ( originalVal == 0 ) != ( val == 0 ) )
+				{
+					this.count( cx, cz, val == 0 ? -1 : 1 );
+				}
 			}
 		}
 	}
@@ -157,6 +176,17 @@ public final class CompassRegion
 				final FileChannel fc = this.raf.getChannel();
 				this.buffer = fc.map( FileChannel.MapMode.READ_WRITE, 0, 0x400 * 0x400 );// fc.size() );
 				this.hasFile = true;
+
+				for( int cz = 0; cz < SIZE; cz++ )
+				{
+					for( int cx = 0; cx < SIZE; cx++ )
+					{
+						if( this.read( cx, cz ) != 0 )
+						{
+							this.count( cx, cz, 1 );
+						}
+					}
+				}
 			}
 			catch( final Throwable t )
 			{
@@ -165,6 +195,49 @@ public final class CompassRegion
 		}
 	}
 
+	int getLowX()
+	{
+		return this.lowX;
+	}
+
+	int getLowZ()
+	{
+		return this.lowZ;
+	}
+
+	/**
+	 * @return number of chunks with sky stone in the whole region
+	 */
+	int getCount()
+	{
+		return this.totalCount;
+	}
+
+	/**
+	 * @return number of chunks with sky stone in the block of the given size and index within the region
+	 */
+	int getCount( final int blockSize, final int bx, final int bz )
+	{
+		if( blockSize == COARSE )
+		{
+			return this.coarseCount[bx + bz * ( SIZE / COARSE )];
+		}
+
+		if( blockSize == FINE )
+		{
+			return this.fineCount[bx + bz * ( SIZE / FINE )];
+		}
+
+		return this.hasBeacon( this.lowX + bx, this.lowZ + bz ) ? 1 : 0;
+	}
+
+	private void count( final int cx, final int cz, final int diff )
+	{
+		this.coarseCount[cx / COARSE + ( cz / COARSE ) * ( SIZE / COARSE )] += diff;
+		this.fineCount[cx / FINE + ( cz / FINE ) * ( SIZE / FINE )] += diff;
+		this.totalCount += diff;
+	}
+
 	private File getFile()
 	{
 		final String fileName = this.encoder.encode( this.world, this.lowX, this.lowZ );
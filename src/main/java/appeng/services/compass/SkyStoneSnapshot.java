@@ -0,0 +1,233 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.services.compass;
+
+
+import java.lang.reflect.Field;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.BitArray;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IBlockStatePalette;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import appeng.core.AELog;
+
+
+/**
+ * Copy of the block sections of a chunk, taken on the server thread so the compass thread can look for sky stone.
+ *
+ * Sections whose palette does not contain sky stone are never copied. Sections using the global palette are copied
+ * as they are and only scanned on the compass thread.
+ */
+public final class SkyStoneSnapshot
+{
+	private static final int SECTIONS = 16;
+	private static final int SECTION_VOLUME = 16 * 16 * 16;
+	private static final int MAX_LOCAL_PALETTE_BITS = 8;
+
+	// MCP and SRG names of the private BlockStateContainer fields in Minecraft 1.11.2.
+	private static final Field STORAGE = findField( "storage", "field_186021_b" );
+	private static final Field PALETTE = findField( "palette", "field_186022_c" );
+	private static final Field BITS = findField( "bits", "field_186024_e" );
+
+	// null for sections which can not contain sky stone.
+	private final Section[] sections = new Section[SECTIONS];
+
+	private SkyStoneSnapshot()
+	{
+	}
+
+	/**
+	 * @param fromSection first section to copy, inclusive
+	 * @param toSection last section to copy, exclusive
+	 */
+	public static SkyStoneSnapshot capture( final Chunk chunk, @Nullable final Block skyStone, final int fromSection, final int toSection )
+	{
+		final SkyStoneSnapshot snapshot = new SkyStoneSnapshot();
+
+		if( skyStone == null )
+		{
+			return snapshot;
+		}
+
+		final ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+
+		for( int y = Math.max( 0, fromSection ); y < Math.min( SECTIONS, toSection ); y++ )
+		{
+			final ExtendedBlockStorage section = storage[y];
+
+			if( section != Chunk.NULL_BLOCK_STORAGE && !section.isEmpty() )
+			{
+				snapshot.sections[y] = capture( section, skyStone );
+			}
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * @return true if there is sky stone in the 32 blocks high slab, as used by {@link CompassReader}
+	 */
+	public boolean hasSkyStone( final int doubleChunkY )
+	{
+		return this.hasSkyStoneInSection( doubleChunkY << 1 ) || this.hasSkyStoneInSection( ( doubleChunkY << 1 ) + 1 );
+	}
+
+	private boolean hasSkyStoneInSection( final int y )
+	{
+		return y >= 0 && y < SECTIONS && this.sections[y] != null && this.sections[y].hasSkyStone();
+	}
+
+	@Nullable
+	private static Section capture( final ExtendedBlockStorage section, final Block skyStone )
+	{
+		final BlockStateContainer container = section.getData();
+
+		if( STORAGE != null && PALETTE != null && BITS != null )
+		{
+			try
+			{
+				final int bits = BITS.getInt( container );
+				final IBlockStatePalette palette = (IBlockStatePalette) PALETTE.get( container );
+				final BitSet matches = new BitSet();
+
+				if( bits <= MAX_LOCAL_PALETTE_BITS )
+				{
+					for( int id = 0; id < 1 << bits; id++ )
+					{
+						final IBlockState state = palette.getBlockState( id );
+
+						if( state != null && state.getBlock() == skyStone )
+						{
+							matches.set( id );
+						}
+					}
+
+					if( matches.isEmpty() )
+					{
+						return null;
+					}
+				}
+				else
+				{
+					for( final IBlockState state : skyStone.getBlockState().getValidStates() )
+					{
+						matches.set( Block.BLOCK_STATE_IDS.get( state ) );
+					}
+				}
+
+				final BitArray data = (BitArray) STORAGE.get( container );
+				return new Section( data.getBackingLongArray().clone(), bits, matches );
+			}
+			catch( final IllegalAccessException e )
+			{
+				AELog.debug( e );
+			}
+		}
+
+		// no access to the palette, look at every block right away.
+		for( int i = 0; i < SECTION_VOLUME; i++ )
+		{
+			if( container.get( i & 15, i >> 8, ( i >> 4 ) & 15 ).getBlock() == skyStone )
+			{
+				return new Section( null, 0, null );
+			}
+		}
+
+		return null;
+	}
+
+	@Nullable
+	private static Field findField( final String name, final String srgName )
+	{
+		for( final String n : new String[] { name, srgName } )
+		{
+			try
+			{
+				final Field f = BlockStateContainer.class.getDeclaredField( n );
+				f.setAccessible( true );
+				return f;
+			}
+			catch( final Throwable t )
+			{
+				// try the next name.
+			}
+		}
+
+		AELog.warn( "BlockStateContainer.%s is not accessible, sky stone is searched on the server thread.", name );
+		return null;
+	}
+
+	private static final class Section
+	{
+		// null if the section is already known to contain sky stone.
+		private final long[] data;
+		private final int bits;
+		private final BitSet matches;
+
+		private Section( final long[] data, final int bits, final BitSet matches )
+		{
+			this.data = data;
+			this.bits = bits;
+			this.matches = matches;
+		}
+
+		private boolean hasSkyStone()
+		{
+			if( this.data == null )
+			{
+				return true;
+			}
+
+			final long mask = ( 1L << this.bits ) - 1;
+
+			for( int i = 0; i < SECTION_VOLUME; i++ )
+			{
+				// same layout as BitArray.
+				final long bitIndex = (long) i * this.bits;
+				final int start = (int) ( bitIndex >> 6 );
+				final int end = (int) ( ( (long) ( i + 1 ) * this.bits - 1 ) >> 6 );
+				final int offset = (int) ( bitIndex & 63 );
+
+				final long value;
+				if( start == end )
+				{
+					value = this.data[start] >>> offset & mask;
+				}
+				else
+				{
+					value = ( this.data[start] >>> offset | this.data[end] << ( 64 - offset ) ) & mask;
+				}
+
+				if( this.matches.get( (int) value ) )
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
@@ -81,6 +81,7 @@ import appeng.api.util.IConfigManager;
 import appeng.capabilities.Capabilities;
 import appeng.helpers.IPriorityHost;
 import appeng.me.GridAccessException;
+import appeng.me.storage.CellInventory;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.tile.TileEvent;
 import appeng.tile.events.TileEventType;
@@ -458,6 +459,7 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, ITerminal
 	@TileEvent( TileEventType.WORLD_NBT_WRITE )
 	public void writeToNBT_TileChest( final NBTTagCompound data )
 	{
+		CellInventory.flushPendingSaves();
 		this.config.writeToNBT( data );
 		data.setInteger( "priority", this.priority );
 		data.setByte( "paintedColor", (byte) this.paintedColor.ordinal() );
@@ -505,6 +507,9 @@ public class TileChest extends AENetworkPowerTile implements IMEChest, ITerminal
 	{
 		if( slot == 1 )
 		{
+			// the removed cell has to carry its latest contents.
+			CellInventory.flushPendingSaves();
+
 			this.itemCell = null;
 			this.fluidCell = null;
 			this.isCached = false; // recalculate the storage cell.
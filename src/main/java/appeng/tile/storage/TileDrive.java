@@ -53,6 +53,7 @@ import appeng.api.util.DimensionalCoord;
 import appeng.core.AELog;
 import appeng.helpers.IPriorityHost;
 import appeng.me.GridAccessException;
+import appeng.me.storage.CellInventory;
 import appeng.me.storage.DriveWatcher;
 import appeng.me.storage.MEInventoryHandler;
 import appeng.tile.TileEvent;
@@ -218,6 +219,7 @@ public class TileDrive extends AENetworkInvTile implements IChestOrDrive, IPrior
 	@TileEvent( TileEventType.WORLD_NBT_WRITE )
 	public void writeToNBT_TileDrive( final NBTTagCompound data )
 	{
+		CellInventory.flushPendingSaves();
 		data.setInteger( "priority", this.priority );
 	}
 
@@ -295,6 +297,9 @@ public class TileDrive extends AENetworkInvTile implements IChestOrDrive, IPrior
 	@Override
 	public void onChangeInventory( final IInventory inv, final int slot, final InvOperation mc, final ItemStack removed, final ItemStack added )
 	{
+		// the removed cell has to carry its latest contents.
+		CellInventory.flushPendingSaves();
+
 		if( this.isCached )
 		{
 			this.isCached = false; // recalculate the storage cell.
@@ -19,6 +19,7 @@
 package appeng.tile.storage;
 
 
+import java.util.ArrayList;
 import java.util.List;
 
 import net.minecraft.block.Block;
@@ -33,6 +34,7 @@ import appeng.api.AEApi;
 import appeng.api.config.Actionable;
 import appeng.api.config.FullnessMode;
 import appeng.api.config.OperationMode;
+import appeng.api.config.PowerMultiplier;
 import appeng.api.config.RedstoneMode;
 import appeng.api.config.Settings;
 import appeng.api.config.Upgrades;
@@ -57,6 +59,7 @@ import appeng.api.util.AECableType;
 import appeng.api.util.AEPartLocation;
 import appeng.api.util.DimensionalCoord;
 import appeng.api.util.IConfigManager;
+import appeng.core.AELog;
 import appeng.core.settings.TickRates;
 import appeng.helpers.Reflected;
 import appeng.me.GridAccessException;
@@ -424,49 +427,70 @@ public class TileIOPort extends AENetworkInvTile implements IUpgradeableHost, IC
 		{
 			didStuff = false;
 
+			// plan the whole move first, so both sides only see a single bulk operation.
+			final IItemList<IAEStack> wanted = chan.createList();
+			long planned = 0;
+
 			for( final IAEStack s : myList )
 			{
 				final long totalStackSize = s.getStackSize();
-				if( totalStackSize > 0 )
+				if( totalStackSize > 0 && planned < itemsToMove )
 				{
-					final IAEStack stack = destination.injectItems( s, Actionable.SIMULATE, this.mySrc );
+					final IAEStack request = s.copy();
+					request.setStackSize( Math.min( totalStackSize, itemsToMove - planned ) );
+					wanted.add( request );
+					planned += request.getStackSize();
+				}
+			}
 
-					long possible = 0;
-					if( stack == null )
-					{
-						possible = totalStackSize;
-					}
-					else
-					{
-						possible = totalStackSize - stack.getStackSize();
-					}
+			// the destination is asked about all stacks together, so its byte and type limits are shared between them.
+			final IItemList<IAEStack> rejected = destination.injectItemsBulk( wanted, Actionable.SIMULATE, this.mySrc );
+			final IItemList<IAEStack> toMove = chan.createList();
 
-					if( possible > 0 )
-					{
-						possible = Math.min( possible, itemsToMove );
-						s.setStackSize( possible );
-
-						final IAEStack extracted = src.extractItems( s, Actionable.MODULATE, this.mySrc );
-						if( extracted != null )
-						{
-							possible = extracted.getStackSize();
-							final IAEStack failed = Platform.poweredInsert( energy, destination, extracted, this.mySrc );
-
-							if( failed != null )
-							{
-								possible -= failed.getStackSize();
-								src.injectItems( failed, Actionable.MODULATE, this.mySrc );
-							}
+			// only take what can be paid for, fluids which fail to insert have nowhere to go but back.
+			final double availablePower = energy.extractAEPower( planned, Actionable.SIMULATE, PowerMultiplier.CONFIG );
+			final long budget = Math.min( (long) ( availablePower + 0.9 ), planned );
+			planned = 0;
 
-							if( possible > 0 )
-							{
-								itemsToMove -= possible;
-								didStuff = true;
-							}
+			for( final IAEStack s : wanted )
+			{
+				final IAEStack r = rejected.findPrecise( s );
+				final long possible = Math.min( budget - planned, r == null ? s.getStackSize() : s.getStackSize() - r.getStackSize() );
 
-							break;
-						}
-					}
+				if( possible > 0 )
+				{
+					s.setStackSize( possible );
+					toMove.add( s );
+					planned += possible;
+				}
+			}
+
+			if( planned > 0 )
+			{
+				final IItemList<IAEStack> extracted = src.extractItemsBulk( toMove, Actionable.MODULATE, this.mySrc );
+
+				long moved = 0;
+				for( final IAEStack s : extracted )
+				{
+					moved += s.getStackSize();
+				}
+
+				final IItemList<IAEStack> failed = Platform.poweredInsertBulk( energy, destination, extracted, this.mySrc );
+
+				for( final IAEStack s : failed )
+				{
+					moved -= s.getStackSize();
+				}
+
+				if( !failed.isEmpty() )
+				{
+					this.returnItems( src, destination, failed );
+				}
+
+				if( moved > 0 )
+				{
+					itemsToMove -= moved;
+					didStuff = true;
 				}
 			}
 		}
@@ -475,6 +499,48 @@ public class TileIOPort extends AENetworkInvTile implements IUpgradeableHost, IC
 		return itemsToMove;
 	}
 
+	/**
+	 * Puts items which could not be moved back where they came from. Items neither side takes are dropped next to the
+	 * port, fluids cannot be dropped and are only reported, the move is limited up front so this should not happen.
+	 */
+	private void returnItems( final IMEInventory src, final IMEInventory destination, final IItemList<IAEStack> failed )
+	{
+		IItemList<IAEStack> left = src.injectItemsBulk( failed, Actionable.MODULATE, this.mySrc );
+
+		if( !left.isEmpty() )
+		{
+			left = destination.injectItemsBulk( left, Actionable.MODULATE, this.mySrc );
+		}
+
+		final List<ItemStack> drops = new ArrayList<ItemStack>();
+
+		for( final IAEStack s : left )
+		{
+			if( s instanceof IAEFluidStack && s.getStackSize() > 0 )
+			{
+				AELog.warn( "IO Port at %s could not return %d mB of %s.", this.pos, s.getStackSize(), s );
+			}
+			else if( s instanceof IAEItemStack && s.getStackSize() > 0 )
+			{
+				long size = s.getStackSize();
+				final ItemStack is = ( (IAEItemStack) s ).getItemStack();
+
+				while( size > 0 )
+				{
+					final ItemStack drop = is.copy();
+					drop.setCount( (int) Math.min( size, is.getMaxStackSize() ) );
+					drops.add( drop );
+					size -= drop.getCount();
+				}
+			}
+		}
+
+		if( !drops.isEmpty() )
+		{
+			Platform.spawnDrops( this.world, this.pos, drops );
+		}
+	}
+
 	private boolean shouldMove( final IMEInventory<IAEItemStack> itemInv, final IMEInventory<IAEFluidStack> fluidInv )
 	{
 		final FullnessMode fm = (FullnessMode) this.manager.getSetting( Settings.FULLNESS_MODE );
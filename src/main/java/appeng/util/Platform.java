@@ -1421,6 +1421,95 @@ public class Platform
 		return input;
 	}
 
+	/**
+	 * Bulk variant of {@link #poweredInsert}, the power for all stacks is drawn at once and the cell sees a single
+	 * bulk insertion. Like {@link #poweredInsert} only what the cell takes is paid for.
+	 *
+	 * @return the items which could not be inserted.
+	 */
+	public static <StackType extends IAEStack> IItemList<StackType> poweredInsertBulk( final IEnergySource energy, final IMEInventory<StackType> cell, final Iterable<StackType> input, final BaseActionSource src )
+	{
+		final IItemList<StackType> rejected = cell.injectItemsBulk( input, Actionable.SIMULATE, src );
+
+		final IItemList<StackType> leftovers = cell.getChannel().createList();
+		final List<StackType> possible = new ArrayList<>();
+		long total = 0;
+
+		for( final StackType stack : input )
+		{
+			long size = stack.getStackSize();
+			final StackType r = rejected.findPrecise( stack );
+
+			if( r != null && r.getStackSize() > 0 )
+			{
+				final long taken = Math.min( r.getStackSize(), size );
+				r.decStackSize( taken );
+				size -= taken;
+
+				final StackType split = (StackType) stack.copy();
+				split.setStackSize( taken );
+				leftovers.add( split );
+			}
+
+			if( size > 0 )
+			{
+				final StackType part = (StackType) stack.copy();
+				part.setStackSize( size );
+				possible.add( part );
+				total += size;
+			}
+		}
+
+		final double availablePower = energy.extractAEPower( total, Actionable.SIMULATE, PowerMultiplier.CONFIG );
+		long budget = Math.min( (long) ( availablePower + 0.9 ), total );
+
+		final List<StackType> toInsert = new ArrayList<>();
+		long inserting = 0;
+
+		for( final StackType stack : possible )
+		{
+			final long size = Math.min( budget, stack.getStackSize() );
+
+			if( size < stack.getStackSize() )
+			{
+				final StackType split = (StackType) stack.copy();
+				split.decStackSize( size );
+				leftovers.add( split );
+			}
+
+			if( size > 0 )
+			{
+				stack.setStackSize( size );
+				toInsert.add( stack );
+
+				budget -= size;
+				inserting += size;
+			}
+		}
+
+		if( inserting > 0 )
+		{
+			long failed = 0;
+			for( final StackType stack : cell.injectItemsBulk( toInsert, Actionable.MODULATE, src ) )
+			{
+				failed += stack.getStackSize();
+				leftovers.add( stack );
+			}
+
+			if( inserting > failed )
+			{
+				energy.extractAEPower( inserting - failed, Actionable.MODULATE, PowerMultiplier.CONFIG );
+			}
+
+			if( src.isPlayer() )
+			{
+				Stats.ItemsInserted.addToPlayer( ( (PlayerSource) src ).player, (int) ( inserting - failed ) );
+			}
+		}
+
+		return leftovers;
+	}
+
 	public static void postChanges( final IStorageGrid gs, final ItemStack removed, final ItemStack added, final BaseActionSource src )
 	{
 		final IItemList<IAEItemStack> itemChanges = AEApi.instance().storage().createItemList();
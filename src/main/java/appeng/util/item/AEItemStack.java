@@ -280,6 +280,33 @@ public final class AEItemStack extends AEStack<IAEItemStack> implements IAEItemS
 		return item;
 	}
 
+	/**
+	 * Reads the amounts written by {@link #writeAmountsToPacket(ByteBuf)} onto a copy of an already known stack.
+	 *
+	 * @return null if there is no prototype, the amounts are still consumed so the following entries can be read.
+	 */
+	public static IAEItemStack loadAmountsFromPacket( final IAEItemStack prototype, final ByteBuf data )
+	{
+		final byte mask = data.readByte();
+		final byte stackType = (byte) ( ( mask & 0x0C ) >> 2 );
+		final byte countReqType = (byte) ( ( mask & 0x30 ) >> 4 );
+		final boolean isCraftable = ( mask & 0x40 ) > 0;
+
+		final long stackSize = getPacketValue( stackType, data );
+		final long countRequestable = getPacketValue( countReqType, data );
+
+		if( prototype == null )
+		{
+			return null;
+		}
+
+		final IAEItemStack item = prototype.copy();
+		item.setStackSize( stackSize );
+		item.setCountRequestable( countRequestable );
+		item.setCraftable( isCraftable );
+		return item;
+	}
+
 	@Override
 	public void add( final IAEItemStack option )
 	{
@@ -151,6 +151,19 @@ public abstract class AEStack<StackType extends IAEStack> implements IAEStack<St
 		this.putPacketValue( i, this.countRequestable );
 	}
 
+	/**
+	 * Writes only the amounts and the craftable flag, for receivers which already know the identity of this stack.
+	 */
+	public void writeAmountsToPacket( final ByteBuf i )
+	{
+		final byte mask = (byte) ( ( this.getType( this.stackSize ) << 2 ) | ( this.getType( this.countRequestable ) << 4 ) | ( (byte) ( this.isCraftable ? 1 : 0 ) << 6 ) );
+
+		i.writeByte( mask );
+
+		this.putPacketValue( i, this.stackSize );
+		this.putPacketValue( i, this.countRequestable );
+	}
+
 	private byte getType( final long num )
 	{
 		if( num <= 255 )
@@ -0,0 +1,543 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.util.item;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import net.minecraftforge.oredict.OreDictionary;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+
+/**
+ * Single threaded {@link IItemList} backed by an open addressing hash table keyed on the {@link AEItemDef} of each
+ * stack.
+ *
+ * Unlike {@link ItemList} precise lookups do not walk a sorted structure. The sorted view needed for fuzzy range
+ * queries is only built per item id once {@link #findFuzzy(IAEItemStack, FuzzyMode)} is actually used.
+ *
+ * Lookups may run on several threads at once, for example from crafting calculations, as long as nothing writes to the
+ * list meanwhile. The fuzzy index is built and sorted during lookups, so it is guarded by the list's monitor.
+ */
+public final class HashedItemList implements IItemList<IAEItemStack>
+{
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final Object REMOVED = new Object();
+
+	private Object[] table = new Object[INITIAL_CAPACITY];
+	private int size = 0;
+	private int used = 0;
+
+	/**
+	 * Entries grouped by item id, null until the first fuzzy query. Guarded by this.
+	 */
+	private Map<Integer, FuzzyBucket> fuzzyIndex;
+
+	@Override
+	public void add( final IAEItemStack option )
+	{
+		if( option == null )
+		{
+			return;
+		}
+
+		final IAEItemStack st = this.findPrecise( option );
+
+		if( st != null )
+		{
+			st.add( option );
+			return;
+		}
+
+		this.putItemRecord( option.copy() );
+	}
+
+	@Override
+	public IAEItemStack findPrecise( final IAEItemStack itemStack )
+	{
+		if( itemStack == null )
+		{
+			return null;
+		}
+
+		final int slot = this.indexOf( itemStack );
+		return slot < 0 ? null : (IAEItemStack) this.table[slot];
+	}
+
+	@Override
+	public Collection<IAEItemStack> findFuzzy( final IAEItemStack filter, final FuzzyMode fuzzy )
+	{
+		if( filter == null )
+		{
+			return Collections.emptyList();
+		}
+
+		final AEItemStack ais = (AEItemStack) filter;
+
+		if( ais.isOre() )
+		{
+			final OreReference or = ais.getDefinition().getIsOre();
+
+			if( or.getAEEquivalents().size() == 1 )
+			{
+				final IAEItemStack is = or.getAEEquivalents().get( 0 );
+
+				return this.findFuzzyDamage( (AEItemStack) is, fuzzy, is.getItemDamage() == OreDictionary.WILDCARD_VALUE );
+			}
+			else
+			{
+				final Collection<IAEItemStack> output = new LinkedList<IAEItemStack>();
+
+				for( final IAEItemStack is : or.getAEEquivalents() )
+				{
+					output.addAll( this.findFuzzyDamage( (AEItemStack) is, fuzzy, is.getItemDamage() == OreDictionary.WILDCARD_VALUE ) );
+				}
+
+				return output;
+			}
+		}
+
+		return this.findFuzzyDamage( ais, fuzzy, false );
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return !this.iterator().hasNext();
+	}
+
+	@Override
+	public void addStorage( final IAEItemStack option )
+	{
+		if( option == null )
+		{
+			return;
+		}
+
+		final IAEItemStack st = this.findPrecise( option );
+
+		if( st != null )
+		{
+			st.incStackSize( option.getStackSize() );
+			return;
+		}
+
+		this.putItemRecord( option.copy() );
+	}
+
+	@Override
+	public void addCrafting( final IAEItemStack option )
+	{
+		if( option == null )
+		{
+			return;
+		}
+
+		final IAEItemStack st = this.findPrecise( option );
+
+		if( st != null )
+		{
+			st.setCraftable( true );
+			return;
+		}
+
+		final IAEItemStack opt = option.copy();
+		opt.setStackSize( 0 );
+		opt.setCraftable( true );
+
+		this.putItemRecord( opt );
+	}
+
+	@Override
+	public void addRequestable( final IAEItemStack option )
+	{
+		if( option == null )
+		{
+			return;
+		}
+
+		final IAEItemStack st = this.findPrecise( option );
+
+		if( st != null )
+		{
+			st.setCountRequestable( st.getCountRequestable() + option.getCountRequestable() );
+			return;
+		}
+
+		final IAEItemStack opt = option.copy();
+		opt.setStackSize( 0 );
+		opt.setCraftable( false );
+		opt.setCountRequestable( option.getCountRequestable() );
+
+		this.putItemRecord( opt );
+	}
+
+	@Override
+	public IAEItemStack getFirstItem()
+	{
+		for( final IAEItemStack stackType : this )
+		{
+			return stackType;
+		}
+
+		return null;
+	}
+
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+
+	@Override
+	public Iterator<IAEItemStack> iterator()
+	{
+		return new MeaningfulItemIterator<IAEItemStack>( new TableIterator() );
+	}
+
+	@Override
+	public void resetStatus()
+	{
+		for( final IAEItemStack i : this )
+		{
+			i.reset();
+		}
+	}
+
+	private static int hash( final Object stack )
+	{
+		final int h = stack.hashCode() * 0x9E3779B9;
+		return h ^ ( h >>> 16 );
+	}
+
+	private int indexOf( final IAEItemStack itemStack )
+	{
+		final Object[] tab = this.table;
+		final int mask = tab.length - 1;
+		final int h = itemStack.hashCode();
+
+		for( int i = hash( itemStack ) & mask; ; i = ( i + 1 ) & mask )
+		{
+			final Object o = tab[i];
+
+			if( o == null )
+			{
+				return -1;
+			}
+
+			if( o != REMOVED && o.hashCode() == h && o.equals( itemStack ) )
+			{
+				return i;
+			}
+		}
+	}
+
+	private void putItemRecord( final IAEItemStack itemStack )
+	{
+		if( ( this.used + 1 ) * 4 > this.table.length * 3 )
+		{
+			this.rehash();
+		}
+
+		final Object[] tab = this.table;
+		final int mask = tab.length - 1;
+
+		int i = hash( itemStack ) & mask;
+		while( tab[i] != null && tab[i] != REMOVED )
+		{
+			i = ( i + 1 ) & mask;
+		}
+
+		if( tab[i] == null )
+		{
+			this.used++;
+		}
+
+		tab[i] = itemStack;
+		this.size++;
+
+		synchronized( this )
+		{
+			if( this.fuzzyIndex != null )
+			{
+				this.getBucket( (AEItemStack) itemStack, true ).add( (AEItemStack) itemStack );
+			}
+		}
+	}
+
+	private void removeAt( final Object[] tab, final int slot )
+	{
+		final AEItemStack removed = (AEItemStack) tab[slot];
+
+		tab[slot] = REMOVED;
+		this.size--;
+
+		synchronized( this )
+		{
+			if( this.fuzzyIndex != null )
+			{
+				final FuzzyBucket bucket = this.getBucket( removed, false );
+
+				if( bucket != null )
+				{
+					bucket.remove( removed );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Grows the table when it is filled with live entries, otherwise only clears the accumulated removal markers.
+	 */
+	private void rehash()
+	{
+		final Object[] old = this.table;
+
+		int capacity = old.length;
+		while( this.size * 2 >= capacity )
+		{
+			capacity <<= 1;
+		}
+
+		final Object[] tab = new Object[capacity];
+		final int mask = capacity - 1;
+
+		for( final Object o : old )
+		{
+			if( o != null && o != REMOVED )
+			{
+				int i = hash( o ) & mask;
+				while( tab[i] != null )
+				{
+					i = ( i + 1 ) & mask;
+				}
+
+				tab[i] = o;
+			}
+		}
+
+		this.table = tab;
+		this.used = this.size;
+	}
+
+	private FuzzyBucket getBucket( final AEItemStack stack, final boolean create )
+	{
+		final Integer itemID = stack.getDefinition().getItemID();
+		FuzzyBucket bucket = this.fuzzyIndex.get( itemID );
+
+		if( bucket == null && create )
+		{
+			this.fuzzyIndex.put( itemID, bucket = new FuzzyBucket() );
+		}
+
+		return bucket;
+	}
+
+	private synchronized Collection<IAEItemStack> findFuzzyDamage( final AEItemStack filter, final FuzzyMode fuzzy, final boolean ignoreMeta )
+	{
+		if( this.fuzzyIndex == null )
+		{
+			this.fuzzyIndex = new HashMap<Integer, FuzzyBucket>();
+
+			for( final Object o : this.table )
+			{
+				if( o != null && o != REMOVED )
+				{
+					this.getBucket( (AEItemStack) o, true ).add( (AEItemStack) o );
+				}
+			}
+		}
+
+		final FuzzyBucket bucket = this.getBucket( filter, false );
+
+		if( bucket == null )
+		{
+			return Collections.emptyList();
+		}
+
+		final AEItemStack low = (AEItemStack) filter.getLow( fuzzy, ignoreMeta );
+		final AEItemStack high = (AEItemStack) filter.getHigh( fuzzy, ignoreMeta );
+
+		return bucket.range( low, high );
+	}
+
+	/**
+	 * All entries sharing an item id, sorted lazily in the same order as {@link ItemList}.
+	 */
+	private static final class FuzzyBucket
+	{
+
+		private final List<AEItemStack> entries = new ArrayList<AEItemStack>();
+		private boolean sorted = true;
+
+		void add( final AEItemStack stack )
+		{
+			this.entries.add( stack );
+			this.sorted = false;
+		}
+
+		void remove( final AEItemStack stack )
+		{
+			for( int x = this.entries.size() - 1; x >= 0; x-- )
+			{
+				if( this.entries.get( x ) == stack )
+				{
+					this.entries.remove( x );
+					return;
+				}
+			}
+		}
+
+		Collection<IAEItemStack> range( final AEItemStack low, final AEItemStack high )
+		{
+			if( !this.sorted )
+			{
+				Collections.sort( this.entries );
+				this.sorted = true;
+			}
+
+			final int from = this.lowerBound( low, false );
+			final int to = this.lowerBound( high, true );
+
+			if( from >= to )
+			{
+				return Collections.emptyList();
+			}
+
+			// descending, matching the order ItemList returns.
+			final List<IAEItemStack> out = new ArrayList<IAEItemStack>( to - from );
+			for( int x = to - 1; x >= from; x-- )
+			{
+				out.add( this.entries.get( x ) );
+			}
+
+			return out;
+		}
+
+		/**
+		 * @return the index of the first entry greater or equal to the key, or strictly greater when inclusive is set.
+		 */
+		private int lowerBound( final AEItemStack key, final boolean inclusive )
+		{
+			int lo = 0;
+			int hi = this.entries.size();
+
+			while( lo < hi )
+			{
+				final int mid = ( lo + hi ) >>> 1;
+				final int cmp = this.entries.get( mid ).compareTo( key );
+
+				if( cmp < 0 || ( inclusive && cmp == 0 ) )
+				{
+					lo = mid + 1;
+				}
+				else
+				{
+					hi = mid;
+				}
+			}
+
+			return lo;
+		}
+	}
+
+	private final class TableIterator implements Iterator<IAEItemStack>
+	{
+
+		private final Object[] tab = HashedItemList.this.table;
+		private int next = -1;
+		private int current = -1;
+
+		private TableIterator()
+		{
+			this.advance();
+		}
+
+		private void advance()
+		{
+			do
+			{
+				this.next++;
+			}
+			while( this.next < this.tab.length && ( this.tab[this.next] == null || this.tab[this.next] == REMOVED ) );
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.next < this.tab.length;
+		}
+
+		@Override
+		public IAEItemStack next()
+		{
+			if( !this.hasNext() )
+			{
+				throw new NoSuchElementException();
+			}
+
+			this.current = this.next;
+			this.advance();
+			return (IAEItemStack) this.tab[this.current];
+		}
+
+		@Override
+		public void remove()
+		{
+			if( this.current < 0 )
+			{
+				throw new IllegalStateException();
+			}
+
+			final Object o = this.tab[this.current];
+
+			if( this.tab == HashedItemList.this.table )
+			{
+				if( o != REMOVED )
+				{
+					HashedItemList.this.removeAt( this.tab, this.current );
+				}
+			}
+			else if( o != REMOVED )
+			{
+				// the table was resized while iterating, look the entry up again.
+				final int slot = HashedItemList.this.indexOf( (IAEItemStack) o );
+
+				if( slot >= 0 )
+				{
+					HashedItemList.this.removeAt( HashedItemList.this.table, slot );
+				}
+			}
+
+			this.current = -1;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.util.item;
+
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import appeng.api.storage.data.IAEItemStack;
+
+
+/**
+ * Numbers the item types sent to terminals, so their identity and NBT only travel once per session.
+ *
+ * The server side assigns ids in the order types are first sent, the client side mirrors them in the same order.
+ * A new session on the server starts over on the client as soon as a packet of that session arrives. Only ids which
+ * every receiver of the session has seen are marked as known, anything else is sent in full again.
+ */
+public class ItemPacketDictionary
+{
+
+	private static final AtomicInteger NEXT_SESSION = new AtomicInteger();
+
+	// only touched by the client network thread, packets of a session arrive in order.
+	private static ItemPacketDictionary clientDictionary;
+
+	private final int session;
+	private final Map<IAEItemStack, Integer> ids = new HashMap<IAEItemStack, Integer>();
+	private final BitSet known = new BitSet();
+	private final List<IAEItemStack> definitions = new ArrayList<IAEItemStack>();
+
+	public ItemPacketDictionary()
+	{
+		int next;
+		do
+		{
+			next = NEXT_SESSION.incrementAndGet();
+		}
+		while( next == 0 );
+
+		this.session = next;
+	}
+
+	private ItemPacketDictionary( final int session )
+	{
+		this.session = session;
+	}
+
+	public static ItemPacketDictionary getClientDictionary( final int session )
+	{
+		if( clientDictionary == null || clientDictionary.session != session )
+		{
+			clientDictionary = new ItemPacketDictionary( session );
+		}
+
+		return clientDictionary;
+	}
+
+	/**
+	 * @return never 0, which marks packets without a dictionary.
+	 */
+	public int getSession()
+	{
+		return this.session;
+	}
+
+	/**
+	 * @return the number of types which have an id.
+	 */
+	public int size()
+	{
+		return this.ids.size();
+	}
+
+	/**
+	 * @return the id of a type every receiver knows or -1.
+	 */
+	public int getKnownId( final IAEItemStack is )
+	{
+		final Integer id = this.ids.get( is );
+		return id != null && this.known.get( id ) ? id : -1;
+	}
+
+	/**
+	 * @return the id of the type, or the one it will receive once assigned.
+	 */
+	public int getIdOrNext( final IAEItemStack is )
+	{
+		final Integer id = this.ids.get( is );
+		return id == null ? this.ids.size() : id;
+	}
+
+	public int assign( final IAEItemStack is )
+	{
+		Integer id = this.ids.get( is );
+
+		if( id == null )
+		{
+			id = this.ids.size();
+			this.ids.put( is.copy(), id );
+		}
+
+		return id;
+	}
+
+	/**
+	 * Records that every receiver has been sent the definition of the type.
+	 */
+	public void markKnown( final IAEItemStack is )
+	{
+		this.known.set( this.assign( is ) );
+	}
+
+	/**
+	 * Forgets that receivers know any type missing from the given list, used when new receivers were only sent that
+	 * list.
+	 */
+	public void retainKnown( final Iterable<IAEItemStack> list )
+	{
+		final BitSet keep = new BitSet();
+
+		for( final IAEItemStack is : list )
+		{
+			final Integer id = this.ids.get( is );
+
+			if( id != null )
+			{
+				keep.set( id );
+			}
+		}
+
+		this.known.and( keep );
+	}
+
+	public void define( final int id, final IAEItemStack is )
+	{
+		while( this.definitions.size() <= id )
+		{
+			this.definitions.add( null );
+		}
+
+		this.definitions.set( id, is == null ? null : is.copy() );
+	}
+
+	public IAEItemStack get( final int id )
+	{
+		return id < this.definitions.size() ? this.definitions.get( id ) : null;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.core.sync.network;
+
+
+import java.io.IOException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+
+/**
+ * Reports the throughput of {@link PacketCompression} for a 50k item initial terminal sync at each level. Not part of
+ * the test suite, run it by hand with the test runtime classpath and quote its whole output, the JVM line included,
+ * when reporting results.
+ */
+public final class PacketCompressionBenchmark
+{
+
+	private static final int ROUNDS = 10;
+
+	private PacketCompressionBenchmark()
+	{
+	}
+
+	public static void main( final String[] args ) throws IOException
+	{
+		final ByteBuf payload = PacketCompressionTest.createInitialSync( PacketCompressionTest.INITIAL_SYNC_ITEMS );
+		final int size = payload.readableBytes();
+
+		System.out.println( String.format( "%s %s, %d rounds per level", System.getProperty( "java.vm.name" ), System.getProperty( "java.version" ), ROUNDS ) );
+
+		for( final int level : new int[] { 1, 6, 9 } )
+		{
+			long compressTime = 0;
+			long decompressTime = 0;
+			int compressedSize = 0;
+
+			for( int round = 0; round < ROUNDS; round++ )
+			{
+				final ByteBuf compressed = Unpooled.buffer( size );
+				final long start = System.nanoTime();
+				PacketCompression.compress( payload.duplicate(), compressed, level );
+				compressTime += System.nanoTime() - start;
+
+				compressedSize = compressed.readableBytes();
+				final ByteBuf restored = Unpooled.buffer( size );
+				final long start2 = System.nanoTime();
+				PacketCompression.decompress( compressed, restored, PacketCompressionTest.LIMIT );
+				decompressTime += System.nanoTime() - start2;
+			}
+
+			System.out.println( String.format( "level %d: %d -> %d bytes, compress %.1f MB/s, decompress %.1f MB/s", level, size, compressedSize,
+					mbPerSecond( (long) size * ROUNDS, compressTime ), mbPerSecond( (long) size * ROUNDS, decompressTime ) ) );
+		}
+	}
+
+	private static double mbPerSecond( final long bytes, final long nanos )
+	{
+		return bytes / ( 1024.0 * 1024.0 ) / Math.max( 1, nanos ) * 1e9;
+	}
+}
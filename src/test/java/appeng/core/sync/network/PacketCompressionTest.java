@@ -0,0 +1,141 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.core.sync.network;
+
+
+import java.io.IOException;
+import java.util.Random;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Tests for {@link PacketCompression}
+ */
+public class PacketCompressionTest
+{
+	static final int INITIAL_SYNC_ITEMS = 50000;
+	static final int LIMIT = 16 * 1024 * 1024;
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		final ByteBuf payload = createInitialSync( 1000 );
+		final byte[] expected = new byte[payload.readableBytes()];
+		payload.getBytes( payload.readerIndex(), expected );
+
+		final ByteBuf compressed = Unpooled.buffer();
+		PacketCompression.compress( payload, compressed, 6 );
+
+		Assert.assertEquals( 0, payload.readableBytes() );
+		Assert.assertTrue( compressed.readableBytes() < expected.length );
+
+		final ByteBuf restored = Unpooled.buffer();
+		PacketCompression.decompress( compressed, restored, LIMIT );
+
+		final byte[] actual = new byte[restored.readableBytes()];
+		restored.readBytes( actual );
+
+		Assert.assertArrayEquals( expected, actual );
+	}
+
+	@Test
+	public void testEmptyPayload() throws IOException
+	{
+		final ByteBuf compressed = Unpooled.buffer();
+		PacketCompression.compress( Unpooled.buffer(), compressed, 6 );
+
+		final ByteBuf restored = Unpooled.buffer();
+		PacketCompression.decompress( compressed, restored, LIMIT );
+
+		Assert.assertEquals( 0, restored.readableBytes() );
+	}
+
+	@Test( expected = IOException.class )
+	public void testRejectsOversizedPayload() throws IOException
+	{
+		final ByteBuf compressed = Unpooled.buffer();
+		PacketCompression.compress( Unpooled.buffer().writeZero( 1024 * 1024 ), compressed, 9 );
+
+		PacketCompression.decompress( compressed, Unpooled.buffer(), 64 * 1024 );
+	}
+
+	@Test
+	public void testInitialSyncRoundTrip() throws IOException
+	{
+		final ByteBuf payload = createInitialSync( INITIAL_SYNC_ITEMS );
+		final byte[] expected = new byte[payload.readableBytes()];
+		payload.getBytes( payload.readerIndex(), expected );
+
+		for( final int level : new int[] { 1, 6, 9 } )
+		{
+			final ByteBuf compressed = Unpooled.buffer( expected.length );
+			PacketCompression.compress( payload.duplicate(), compressed, level );
+
+			Assert.assertTrue( compressed.readableBytes() < expected.length );
+
+			final ByteBuf restored = Unpooled.buffer( expected.length );
+			PacketCompression.decompress( compressed, restored, LIMIT );
+
+			final byte[] actual = new byte[restored.readableBytes()];
+			restored.readBytes( actual );
+
+			Assert.assertArrayEquals( expected, actual );
+		}
+	}
+
+	/**
+	 * Entries shaped like PacketMEInventoryUpdate items: mask, id, damage, an occasional NBT blob and the amounts.
+	 */
+	static ByteBuf createInitialSync( final int items )
+	{
+		final Random random = new Random( 42 );
+		final ByteBuf out = Unpooled.buffer();
+
+		for( int x = 0; x < items; x++ )
+		{
+			final boolean tagged = random.nextInt( 8 ) == 0;
+
+			out.writeByte( tagged ? 0x84 : 0x04 );
+			out.writeShort( random.nextInt( 4096 ) );
+			out.writeShort( random.nextInt( 16 ) );
+
+			if( tagged )
+			{
+				final int length = 32 + random.nextInt( 96 );
+				out.writeInt( length );
+
+				for( int y = 0; y < length; y++ )
+				{
+					out.writeByte( 'a' + random.nextInt( 8 ) );
+				}
+			}
+
+			out.writeShort( random.nextInt( 65536 ) );
+			out.writeByte( 0 );
+		}
+
+		return out;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package appeng.core.worlddata;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+
+/**
+ * Tests for {@link SpawnRegion}
+ */
+public class SpawnRegionTest
+{
+	@Test
+	public void testGeneratedSurvivesWrite()
+	{
+		final SpawnRegion region = new SpawnRegion();
+		region.setGenerated( -17, 35 );
+
+		Assert.assertTrue( region.isDirty() );
+
+		final SpawnRegion read = new SpawnRegion( region.writeToNBT() );
+
+		Assert.assertTrue( read.hasGenerated( -17, 35 ) );
+		Assert.assertFalse( read.hasGenerated( -18, 35 ) );
+		Assert.assertFalse( read.isDirty() );
+	}
+
+	@Test
+	public void testLegacyFormatIsConverted()
+	{
+		final NBTTagCompound meteorite = new NBTTagCompound();
+		meteorite.setInteger( "x", 42 );
+
+		final NBTTagCompound legacy = new NBTTagCompound();
+		legacy.setBoolean( "3,-5", true );
+		legacy.setInteger( "num", 1 );
+		legacy.setTag( "0", meteorite );
+
+		final SpawnRegion region = new SpawnRegion( legacy );
+		final List<NBTTagCompound> meteorites = new ArrayList<NBTTagCompound>();
+		region.getMeteorites( meteorites );
+
+		Assert.assertTrue( region.hasGenerated( 3, -5 ) );
+		Assert.assertFalse( region.hasGenerated( 3, -4 ) );
+		Assert.assertEquals( 1, meteorites.size() );
+		Assert.assertEquals( 42, meteorites.get( 0 ).getInteger( "x" ) );
+		Assert.assertTrue( region.isDirty() );
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.me.cache.helpers;
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+
+/**
+ * Tests for {@link StorageListUpdater}
+ */
+public class StorageListUpdaterTest
+{
+	@BeforeClass
+	public static void setUp()
+	{
+		Bootstrap.register();
+	}
+
+	@Test
+	public void testAddsNewStacks()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+
+		Assert.assertTrue( apply( list, true, stack( Items.DIAMOND, 5 ) ) );
+		Assert.assertTrue( apply( list, true, stack( Items.EMERALD, 3 ) ) );
+
+		Assert.assertEquals( 5, count( list, Items.DIAMOND ) );
+		Assert.assertEquals( 3, count( list, Items.EMERALD ) );
+	}
+
+	@Test
+	public void testChangesExistingStacks()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+		list.add( stack( Items.DIAMOND, 5 ) );
+
+		Assert.assertTrue( apply( list, true, stack( Items.DIAMOND, 4 ) ) );
+		Assert.assertEquals( 9, count( list, Items.DIAMOND ) );
+
+		// extractions are posted as negative additions, removed cells as removals.
+		Assert.assertTrue( apply( list, true, stack( Items.DIAMOND, -2 ) ) );
+		Assert.assertEquals( 7, count( list, Items.DIAMOND ) );
+
+		Assert.assertTrue( apply( list, false, stack( Items.DIAMOND, 3 ) ) );
+		Assert.assertEquals( 4, count( list, Items.DIAMOND ) );
+	}
+
+	@Test
+	public void testCountReachesZero()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+		list.add( stack( Items.DIAMOND, 5 ) );
+
+		Assert.assertTrue( apply( list, true, stack( Items.DIAMOND, -5 ) ) );
+		Assert.assertEquals( 0, count( list, Items.DIAMOND ) );
+
+		StorageListUpdater.verify( list, new ItemList() );
+
+		Assert.assertTrue( apply( list, true, stack( Items.DIAMOND, 2 ) ) );
+		Assert.assertEquals( 2, count( list, Items.DIAMOND ) );
+	}
+
+	@Test
+	public void testNegativeCountNeedsRebuild()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+		list.add( stack( Items.DIAMOND, 5 ) );
+
+		Assert.assertFalse( apply( list, true, stack( Items.DIAMOND, -6 ) ) );
+	}
+
+	@Test
+	public void testUnknownRemovalNeedsRebuild()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+
+		Assert.assertFalse( apply( list, true, stack( Items.DIAMOND, -1 ) ) );
+		Assert.assertFalse( apply( list, false, stack( Items.EMERALD, 1 ) ) );
+	}
+
+	@Test
+	public void testCraftableChangesNeedRebuild()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+		list.add( stack( Items.DIAMOND, 5 ) );
+
+		final IAEItemStack craftable = stack( Items.DIAMOND, 0 );
+		craftable.setCraftable( true );
+		Assert.assertFalse( apply( list, true, craftable ) );
+
+		final IAEItemStack requestable = stack( Items.DIAMOND, 0 );
+		requestable.setCountRequestable( 10 );
+		Assert.assertFalse( apply( list, true, requestable ) );
+	}
+
+	@Test
+	public void testEmptyChangesAreIgnored()
+	{
+		final IItemList<IAEItemStack> list = new ItemList();
+
+		Assert.assertTrue( StorageListUpdater.applyChanges( list, true, Collections.<IAEItemStack>singletonList( null ) ) );
+		Assert.assertTrue( apply( list, true, stack( Items.DIAMOND, 0 ) ) );
+		Assert.assertTrue( list.isEmpty() );
+	}
+
+	@Test( expected = IllegalStateException.class )
+	public void testVerifyDetectsWrongCount()
+	{
+		final IItemList<IAEItemStack> cached = new ItemList();
+		cached.add( stack( Items.DIAMOND, 5 ) );
+
+		final IItemList<IAEItemStack> rebuilt = new ItemList();
+		rebuilt.add( stack( Items.DIAMOND, 4 ) );
+
+		StorageListUpdater.verify( cached, rebuilt );
+	}
+
+	@Test( expected = IllegalStateException.class )
+	public void testVerifyDetectsMissingStack()
+	{
+		final IItemList<IAEItemStack> rebuilt = new ItemList();
+		rebuilt.add( stack( Items.DIAMOND, 5 ) );
+
+		StorageListUpdater.verify( new ItemList(), rebuilt );
+	}
+
+	@Test( expected = IllegalStateException.class )
+	public void testVerifyDetectsCraftableState()
+	{
+		final IItemList<IAEItemStack> cached = new ItemList();
+		cached.add( stack( Items.DIAMOND, 5 ) );
+
+		final IItemList<IAEItemStack> rebuilt = new ItemList();
+		rebuilt.add( stack( Items.DIAMOND, 5 ) );
+		final IAEItemStack craftable = stack( Items.DIAMOND, 0 );
+		craftable.setCraftable( true );
+		rebuilt.add( craftable );
+
+		StorageListUpdater.verify( cached, rebuilt );
+	}
+
+	@Test
+	public void testRandomChangesMatchRebuild()
+	{
+		final Item[] items = { Items.DIAMOND, Items.EMERALD, Items.GOLD_INGOT, Items.IRON_INGOT };
+		final Map<Item, Long> stored = new HashMap<Item, Long>();
+		final IItemList<IAEItemStack> cached = new ItemList();
+		final Random random = new Random( 42 );
+
+		for( int x = 0; x < 1000; x++ )
+		{
+			final Item item = items[random.nextInt( items.length )];
+			final long current = stored.containsKey( item ) ? stored.get( item ) : 0;
+			final long delta = random.nextInt( 20 ) - Math.min( current, 10 );
+			final boolean add = random.nextBoolean();
+
+			stored.put( item, current + delta );
+			Assert.assertTrue( apply( cached, add, stack( item, add ? delta : -delta ) ) );
+
+			final IItemList<IAEItemStack> rebuilt = new ItemList();
+			for( final Map.Entry<Item, Long> e : stored.entrySet() )
+			{
+				rebuilt.add( stack( e.getKey(), e.getValue() ) );
+			}
+
+			StorageListUpdater.verify( cached, rebuilt );
+		}
+	}
+
+	private static boolean apply( final IItemList<IAEItemStack> list, final boolean add, final IAEItemStack change )
+	{
+		return StorageListUpdater.applyChanges( list, add, Collections.singletonList( change ) );
+	}
+
+	private static long count( final IItemList<IAEItemStack> list, final Item item )
+	{
+		final IAEItemStack stored = list.findPrecise( stack( item, 1 ) );
+		return stored == null ? 0 : stored.getStackSize();
+	}
+
+	private static IAEItemStack stack( final Item item, final long size )
+	{
+		final IAEItemStack stack = AEItemStack.create( new ItemStack( item ) );
+		stack.setStackSize( size );
+		return stack;
+	}
+}
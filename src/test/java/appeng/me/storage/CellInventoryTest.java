@@ -0,0 +1,201 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.me.storage;
+
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import appeng.api.config.Actionable;
+import appeng.api.storage.IMEInventory;
+import appeng.api.storage.ISaveProvider;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+import appeng.util.item.AEItemStack;
+import appeng.util.item.ItemList;
+
+
+/**
+ * Tests saving and loading the contents of a {@link CellInventory}
+ */
+public class CellInventoryTest
+{
+	@BeforeClass
+	public static void setUp()
+	{
+		Bootstrap.register();
+	}
+
+	@Test
+	public void testLoadsStoredItems()
+	{
+		final NBTTagCompound data = new NBTTagCompound();
+		writeSlot( data, 0, Items.DIAMOND, 5 );
+		writeSlot( data, 1, Items.EMERALD, 7 );
+		writeTotals( data, 2, 12 );
+
+		final CellInventory cell = cell( data, null );
+
+		Assert.assertEquals( 5, count( cell, Items.DIAMOND ) );
+		Assert.assertEquals( 7, count( cell, Items.EMERALD ) );
+		Assert.assertEquals( 2, cell.getStoredItemTypes() );
+		Assert.assertEquals( 12, cell.getStoredItemCount() );
+	}
+
+	@Test
+	public void testSaveRoundTrip()
+	{
+		final NBTTagCompound data = new NBTTagCompound();
+		writeSlot( data, 0, Items.DIAMOND, 5 );
+		writeSlot( data, 1, Items.EMERALD, 7 );
+		writeTotals( data, 2, 12 );
+
+		final CellInventory cell = cell( data, null );
+		cell.extractItems( stack( Items.DIAMOND, 2 ), Actionable.MODULATE, null );
+		cell.extractItems( stack( Items.EMERALD, 7 ), Actionable.MODULATE, null );
+
+		Assert.assertEquals( 1, data.getShort( "it" ) );
+		Assert.assertEquals( 3, data.getInteger( "ic" ) );
+		Assert.assertFalse( data.hasKey( "#1" ) );
+		Assert.assertFalse( data.hasKey( "@1" ) );
+
+		final CellInventory loaded = cell( data, null );
+
+		Assert.assertEquals( 3, count( loaded, Items.DIAMOND ) );
+		Assert.assertEquals( 0, count( loaded, Items.EMERALD ) );
+		Assert.assertEquals( 1, loaded.getStoredItemTypes() );
+		Assert.assertEquals( 3, loaded.getStoredItemCount() );
+	}
+
+	@Test
+	public void testRemovedSlotLeavesGap()
+	{
+		final NBTTagCompound data = new NBTTagCompound();
+		writeSlot( data, 0, Items.DIAMOND, 5 );
+		writeSlot( data, 1, Items.EMERALD, 7 );
+		writeSlot( data, 2, Items.GOLD_INGOT, 9 );
+		writeTotals( data, 3, 21 );
+
+		cell( data, null ).extractItems( stack( Items.DIAMOND, 5 ), Actionable.MODULATE, null );
+
+		Assert.assertFalse( data.hasKey( "#0" ) );
+		Assert.assertTrue( data.hasKey( "#1" ) );
+		Assert.assertTrue( data.hasKey( "#2" ) );
+
+		final CellInventory loaded = cell( data, null );
+
+		Assert.assertEquals( 7, count( loaded, Items.EMERALD ) );
+		Assert.assertEquals( 9, count( loaded, Items.GOLD_INGOT ) );
+		Assert.assertEquals( 2, loaded.getStoredItemTypes() );
+	}
+
+	@Test
+	public void testStaleSlotsAreIgnored()
+	{
+		final NBTTagCompound data = new NBTTagCompound();
+		writeSlot( data, 0, Items.DIAMOND, 5 );
+		writeSlot( data, 1, Items.EMERALD, 7 );
+		writeTotals( data, 1, 5 );
+
+		final CellInventory cell = cell( data, null );
+
+		Assert.assertEquals( 5, count( cell, Items.DIAMOND ) );
+		Assert.assertEquals( 0, count( cell, Items.EMERALD ) );
+		Assert.assertEquals( 1, cell.getStoredItemTypes() );
+
+		cell.extractItems( stack( Items.DIAMOND, 1 ), Actionable.MODULATE, null );
+
+		Assert.assertTrue( data.hasKey( "#0" ) );
+		Assert.assertFalse( data.hasKey( "#1" ) );
+		Assert.assertEquals( 0, count( cell( data, null ), Items.EMERALD ) );
+	}
+
+	@Test
+	public void testSavesWaitForFlush()
+	{
+		final NBTTagCompound data = new NBTTagCompound();
+		writeSlot( data, 0, Items.DIAMOND, 5 );
+		writeTotals( data, 1, 5 );
+
+		final int[] saves = new int[1];
+		final CellInventory cell = cell( data, new ISaveProvider()
+		{
+			@Override
+			public void saveChanges( final IMEInventory cellInventory )
+			{
+				saves[0]++;
+			}
+		} );
+
+		cell.extractItems( stack( Items.DIAMOND, 1 ), Actionable.MODULATE, null );
+		cell.extractItems( stack( Items.DIAMOND, 1 ), Actionable.MODULATE, null );
+
+		Assert.assertEquals( 1, saves[0] );
+		Assert.assertEquals( 5, data.getInteger( "@0" ) );
+
+		CellInventory.flushPendingSaves();
+
+		Assert.assertEquals( 3, data.getInteger( "@0" ) );
+		Assert.assertEquals( 3, data.getInteger( "ic" ) );
+		Assert.assertEquals( 3, count( cell( data, null ), Items.DIAMOND ) );
+	}
+
+	private static CellInventory cell( final NBTTagCompound data, final ISaveProvider container )
+	{
+		return new CellInventory( data, container )
+		{
+			@Override
+			protected IItemList<IAEItemStack> createItemList()
+			{
+				return new ItemList();
+			}
+		};
+	}
+
+	private static void writeSlot( final NBTTagCompound data, final int slot, final Item item, final int count )
+	{
+		data.setTag( "#" + slot, new ItemStack( item ).writeToNBT( new NBTTagCompound() ) );
+		data.setInteger( "@" + slot, count );
+	}
+
+	private static void writeTotals( final NBTTagCompound data, final int types, final int count )
+	{
+		data.setShort( "it", (short) types );
+		data.setInteger( "ic", count );
+	}
+
+	private static long count( final CellInventory cell, final Item item )
+	{
+		final IAEItemStack stored = cell.getCellItems().findPrecise( stack( item, 1 ) );
+		return stored == null ? 0 : stored.getStackSize();
+	}
+
+	private static IAEItemStack stack( final Item item, final int size )
+	{
+		return AEItemStack.create( new ItemStack( item, size ) );
+	}
+}
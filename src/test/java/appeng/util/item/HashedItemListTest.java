@@ -0,0 +1,273 @@
+/*
+ * This file is part of Applied Energistics 2.
+ * Copyright (c) 2013 - 2015, AlgorithmX2, All rights reserved.
+ *
+ * Applied Energistics 2 is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Applied Energistics 2 is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Applied Energistics 2.  If not, see <http://www.gnu.org/licenses/lgpl>.
+ */
+
+
+package appeng.util.item;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import appeng.api.config.FuzzyMode;
+import appeng.api.storage.data.IAEItemStack;
+import appeng.api.storage.data.IItemList;
+
+
+/**
+ * Tests for {@link HashedItemList}
+ */
+public class HashedItemListTest
+{
+	@BeforeClass
+	public static void setUp()
+	{
+		Bootstrap.register();
+	}
+
+	@Test
+	public void testAddMergesEqualStacks()
+	{
+		final HashedItemList list = new HashedItemList();
+		list.add( stack( Items.DIAMOND, 0, 5 ) );
+		list.add( stack( Items.DIAMOND, 0, 7 ) );
+		list.add( stack( Items.DYE, 4, 1 ) );
+
+		Assert.assertEquals( 2, list.size() );
+		Assert.assertEquals( 12, list.findPrecise( stack( Items.DIAMOND, 0, 1 ) ).getStackSize() );
+		Assert.assertEquals( 1, list.findPrecise( stack( Items.DYE, 4, 1 ) ).getStackSize() );
+		Assert.assertNull( list.findPrecise( stack( Items.DYE, 5, 1 ) ) );
+	}
+
+	@Test
+	public void testAddCopiesTheStack()
+	{
+		final HashedItemList list = new HashedItemList();
+		final IAEItemStack diamond = stack( Items.DIAMOND, 0, 5 );
+		list.add( diamond );
+		diamond.setStackSize( 1 );
+
+		Assert.assertEquals( 5, list.findPrecise( diamond ).getStackSize() );
+	}
+
+	@Test
+	public void testIteratorRemove()
+	{
+		final HashedItemList list = new HashedItemList();
+		for( int meta = 0; meta < 16; meta++ )
+		{
+			list.add( stack( Items.DYE, meta, meta + 1 ) );
+		}
+
+		for( final Iterator<IAEItemStack> i = list.iterator(); i.hasNext(); )
+		{
+			if( i.next().getItemDamage() % 2 == 0 )
+			{
+				i.remove();
+			}
+		}
+
+		Assert.assertEquals( 8, list.size() );
+		for( int meta = 0; meta < 16; meta++ )
+		{
+			Assert.assertEquals( meta % 2 != 0, list.findPrecise( stack( Items.DYE, meta, 1 ) ) != null );
+		}
+	}
+
+	@Test
+	public void testEmptyStacksAreDroppedWhileIterating()
+	{
+		final HashedItemList list = new HashedItemList();
+		list.add( stack( Items.DIAMOND, 0, 5 ) );
+		list.add( stack( Items.EMERALD, 0, 5 ) );
+		list.findPrecise( stack( Items.DIAMOND, 0, 1 ) ).setStackSize( 0 );
+
+		Assert.assertEquals( 1, count( list ) );
+		Assert.assertEquals( 1, list.size() );
+		Assert.assertNull( list.findPrecise( stack( Items.DIAMOND, 0, 1 ) ) );
+	}
+
+	@Test
+	public void testRemovedSlotsAreCompacted()
+	{
+		final HashedItemList list = new HashedItemList();
+		list.add( stack( Items.EMERALD, 0, 1 ) );
+
+		// far more removals than the table has slots, lookups must keep working through the markers.
+		for( int round = 0; round < 1000; round++ )
+		{
+			list.add( stack( Items.DYE, round % 16, 1 ) );
+			Assert.assertNotNull( list.findPrecise( stack( Items.DYE, round % 16, 1 ) ) );
+
+			list.findPrecise( stack( Items.DYE, round % 16, 1 ) ).setStackSize( 0 );
+			Assert.assertEquals( 1, count( list ) );
+		}
+
+		Assert.assertEquals( 1, list.size() );
+		Assert.assertNotNull( list.findPrecise( stack( Items.EMERALD, 0, 1 ) ) );
+		Assert.assertNull( list.findPrecise( stack( Items.DYE, 0, 1 ) ) );
+	}
+
+	@Test
+	public void testGrowsPastInitialCapacity()
+	{
+		final HashedItemList list = new HashedItemList();
+		final List<Item> items = new ArrayList<Item>();
+
+		for( final Item item : Item.REGISTRY )
+		{
+			if( !new ItemStack( item ).isEmpty() )
+			{
+				items.add( item );
+				list.add( stack( item, 0, 3 ) );
+			}
+		}
+
+		Assert.assertEquals( items.size(), list.size() );
+		Assert.assertEquals( items.size(), count( list ) );
+
+		for( final Item item : items )
+		{
+			Assert.assertEquals( 3, list.findPrecise( stack( item, 0, 1 ) ).getStackSize() );
+		}
+	}
+
+	@Test
+	public void testFuzzyMatchesItemList()
+	{
+		final HashedItemList hashed = new HashedItemList();
+		final ItemList sorted = new ItemList();
+		fillSwords( hashed );
+		fillSwords( sorted );
+
+		for( final FuzzyMode mode : FuzzyMode.values() )
+		{
+			for( final int damage : new int[] { 0, 100, 1500 } )
+			{
+				final IAEItemStack filter = stack( Items.DIAMOND_SWORD, damage, 1 );
+
+				Assert.assertEquals( mode + " " + damage, types( sorted.findFuzzy( filter, mode ) ), types( hashed.findFuzzy( filter, mode ) ) );
+			}
+		}
+
+		Assert.assertEquals( 4, hashed.findFuzzy( stack( Items.DIAMOND_SWORD, 0, 1 ), FuzzyMode.IGNORE_ALL ).size() );
+		Assert.assertTrue( hashed.findFuzzy( stack( Items.IRON_SWORD, 0, 1 ), FuzzyMode.IGNORE_ALL ).isEmpty() );
+	}
+
+	@Test
+	public void testFuzzyIndexFollowsWrites()
+	{
+		final HashedItemList list = new HashedItemList();
+		fillSwords( list );
+
+		final IAEItemStack filter = stack( Items.DIAMOND_SWORD, 0, 1 );
+		Assert.assertEquals( 4, list.findFuzzy( filter, FuzzyMode.IGNORE_ALL ).size() );
+
+		list.add( stack( Items.DIAMOND_SWORD, 42, 1 ) );
+		Assert.assertEquals( 5, list.findFuzzy( filter, FuzzyMode.IGNORE_ALL ).size() );
+
+		list.findPrecise( stack( Items.DIAMOND_SWORD, 100, 1 ) ).setStackSize( 0 );
+		count( list );
+		Assert.assertEquals( 4, list.findFuzzy( filter, FuzzyMode.IGNORE_ALL ).size() );
+	}
+
+	@Test
+	public void testConcurrentFuzzyLookups() throws Exception
+	{
+		final ExecutorService pool = Executors.newFixedThreadPool( 8 );
+
+		try
+		{
+			for( int round = 0; round < 50; round++ )
+			{
+				// a fresh list each round, so the index is built by the concurrent lookups.
+				final HashedItemList list = new HashedItemList();
+				fillSwords( list );
+
+				final List<Future<Set<IAEItemStack>>> results = new ArrayList<Future<Set<IAEItemStack>>>();
+				for( int x = 0; x < 8; x++ )
+				{
+					results.add( pool.submit( new Callable<Set<IAEItemStack>>()
+					{
+						@Override
+						public Set<IAEItemStack> call()
+						{
+							return types( list.findFuzzy( stack( Items.DIAMOND_SWORD, 0, 1 ), FuzzyMode.IGNORE_ALL ) );
+						}
+					} ) );
+				}
+
+				for( final Future<Set<IAEItemStack>> result : results )
+				{
+					Assert.assertEquals( 4, result.get().size() );
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	private static void fillSwords( final IItemList<IAEItemStack> list )
+	{
+		for( final int damage : new int[] { 0, 100, 1000, 1500 } )
+		{
+			list.add( stack( Items.DIAMOND_SWORD, damage, 1 ) );
+		}
+
+		list.add( stack( Items.DIAMOND, 0, 64 ) );
+		list.add( stack( Items.GOLDEN_SWORD, 10, 1 ) );
+	}
+
+	private static Set<IAEItemStack> types( final Collection<IAEItemStack> stacks )
+	{
+		return new HashSet<IAEItemStack>( stacks );
+	}
+
+	private static int count( final IItemList<IAEItemStack> list )
+	{
+		int n = 0;
+		for( final IAEItemStack ignored : list )
+		{
+			n++;
+		}
+		return n;
+	}
+
+	private static IAEItemStack stack( final Item item, final int damage, final int size )
+	{
+		return AEItemStack.create( new ItemStack( item, size, damage ) );
+	}
+}